@@ -1,13 +1,19 @@
 package org.pipservices3.mysql.connect;
 
-import java.sql.*;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 import org.pipservices3.commons.config.ConfigParams;
 import org.pipservices3.commons.config.IConfigurable;
 import org.pipservices3.commons.errors.ApplicationException;
 import org.pipservices3.commons.errors.ConfigException;
 import org.pipservices3.commons.errors.ConnectionException;
+import org.pipservices3.commons.errors.InvalidStateException;
 import org.pipservices3.commons.refer.IReferenceable;
 import org.pipservices3.commons.refer.IReferences;
 import org.pipservices3.commons.refer.ReferenceException;
@@ -15,10 +21,20 @@ import org.pipservices3.commons.run.IOpenable;
 import org.pipservices3.components.log.CompositeLogger;
 
 /**
- * MySQL connection using plain driver.
+ * MySQL connection pool using plain driver.
  * <p>
  * By defining a connection and sharing it through multiple persistence components
  * you can reduce number of used database connections.
+ * Every operation leases a physical connection from the pool, so concurrent
+ * calls are not serialized through a single socket.
+ * <p>
+ * When read replicas are configured, read operations are routed to the replicas
+ * and writes go to the primary. Use {@link #withPrimaryReads} to force reads
+ * to the primary when a caller needs to read its own writes.
+ * <p>
+ * Calls of several persistences that share the connection can be grouped into one transaction
+ * with {@link #beginTransaction} or {@link #inTransaction}. Inside a transaction
+ * all reads and writes on the current thread use the same primary connection.
  * <p>
  * ### Configuration parameters ###
  *
@@ -28,6 +44,7 @@ import org.pipservices3.components.log.CompositeLogger;
  *   - host:                      host name or IP address
  *   - port:                      port number (default: 3306)
  *   - uri:                       resource URI or connection string with all parameters in it
+ * - replica(s):                  (optional) read replicas with the same parameters as connection(s)
  * - credential(s):
  *   - store_key:                 (optional) a key to retrieve the credentials from {@link org.pipservices3.components.auth.ICredentialStore}
  *   - username:                  user name
@@ -36,6 +53,11 @@ import org.pipservices3.components.log.CompositeLogger;
  *   - connect_timeout:      (optional) number of milliseconds to wait before timing out when connecting a new client (default: 0)
  *   - idle_timeout:         (optional) number of milliseconds a client must sit idle in the pool and not be checked out (default: 10000)
  *   - max_pool_size:        (optional) maximum number of clients the pool should contain (default: 10)
+ *   - max_lifetime:         (optional) maximum number of milliseconds a client is kept open before it is retired (default: 1800000)
+ *   - acquire_timeout:      (optional) number of milliseconds to wait for a free client before failing (default: 30000)
+ *   - replica_selection:    (optional) replica selection for reads: round_robin or least_loaded (default: round_robin)
+ *   - statement_cache_size: (optional) number of server-side prepared statements cached per client, 0 to disable (default: 250)
+ *   - allow_local_infile:   (optional) allow LOAD DATA LOCAL INFILE used by bulk loads (default: false)
  *
  * ### References ###
  *
@@ -52,9 +74,18 @@ public class MySqlConnection implements IReferenceable, IConfigurable, IOpenable
 
             "options.connect_timeout", 0,
             "options.idle_timeout", 10000,
-            "options.max_pool_size", 3
+            "options.max_pool_size", 10,
+            "options.max_lifetime", 1800000,
+            "options.acquire_timeout", 30000,
+            "options.replica_selection", "round_robin",
+            "options.statement_cache_size", 250,
+            "options.allow_local_infile", false
     );
 
+    private final ThreadLocal<Integer> _primaryReads = ThreadLocal.withInitial(() -> 0);
+    private final ThreadLocal<MySqlTransaction> _transaction = new ThreadLocal<>();
+    private final AtomicInteger _replicaIndex = new AtomicInteger();
+
     /**
      * The logger.
      */
@@ -69,9 +100,17 @@ public class MySqlConnection implements IReferenceable, IConfigurable, IOpenable
     protected ConfigParams _options = new ConfigParams();
 
     /**
-     * The MySQL connection pool object.
+     * The MySQL connection object shared by all callers.
      */
     protected Connection _connection;
+    /**
+     * The MySQL connection pool object.
+     */
+    protected MySqlConnectionPool _pool;
+    /**
+     * The MySQL connection pools to read replicas.
+     */
+    protected List<MySqlConnectionPool> _replicas = new ArrayList<>();
     /**
      * The MySQL database name.
      */
@@ -114,16 +153,23 @@ public class MySqlConnection implements IReferenceable, IConfigurable, IOpenable
     }
 
     private String composeUriSettings(String uri) {
-        var maxPoolSize = this._options.getAsNullableInteger("max_pool_size");
-        var connectTimeoutMS = this._options.getAsNullableInteger("connect_timeout");
-        var idleTimeoutMS = this._options.getAsNullableInteger("idle_timeout");
+        var connectTimeoutMS = this._options.getAsIntegerWithDefault("connect_timeout", 0);
+        var statementCacheSize = this._options.getAsIntegerWithDefault("statement_cache_size", 250);
+        var allowLocalInfile = this._options.getAsBooleanWithDefault("allow_local_infile", false);
 
         var settings = Map.of(
                 "allowMultiQueries", true,
-                "connectionLimit", maxPoolSize,
                 "connectTimeout", connectTimeoutMS,
-                "insecureAuth", true
-//            idleTimeoutMillis: idleTimeoutMS
+                "insecureAuth", true,
+                // Keep server-side prepared statements open and reuse them across calls
+                "useServerPrepStmts", statementCacheSize > 0,
+                "cachePrepStmts", statementCacheSize > 0,
+                "prepStmtCacheSize", statementCacheSize,
+                "prepStmtCacheSqlLimit", 4096,
+                // Send JDBC batches as multi-row statements
+                "rewriteBatchedStatements", true,
+                // Bulk loads stream rows from memory, but the flag lets the server request any local file
+                "allowLoadLocalInfile", allowLocalInfile
         );
 
         StringBuilder params = new StringBuilder();
@@ -155,6 +201,7 @@ public class MySqlConnection implements IReferenceable, IConfigurable, IOpenable
     @Override
     public void open(String correlationId) throws ApplicationException {
         var uri = this._connectionResolver.resolve(correlationId);
+        var replicaUris = this._connectionResolver.resolveReplicas(correlationId);
 
         this._logger.debug(correlationId, "Connecting to MySQL...");
 
@@ -163,10 +210,28 @@ public class MySqlConnection implements IReferenceable, IConfigurable, IOpenable
 
             Class.forName("com.mysql.cj.jdbc.Driver");
 
-            this._connection = DriverManager.getConnection("jdbc:" + uri);
-            this._databaseName = _connection.getMetaData().getDatabaseProductName();
+            this._pool = this.createPool("jdbc:" + uri);
+            this._connection = this._pool.getSharedConnection();
+
+            // Check the connection and warm up the pool
+            try (var connection = this._pool.getConnection()) {
+                this._databaseName = connection.getMetaData().getDatabaseProductName();
+            }
+
+            for (var replicaUri : replicaUris) {
+                var replica = this.createPool("jdbc:" + this.composeUriSettings(replicaUri));
+                this._replicas.add(replica);
 
+                try (var connection = replica.getConnection()) {
+                    connection.getMetaData();
+                }
+            }
+
+            if (!this._replicas.isEmpty())
+                this._logger.debug(correlationId, "Connected to %d MySQL read replicas", this._replicas.size());
         } catch (Exception ex) {
+            this.closePools();
+
             throw new ConnectionException(
                     correlationId,
                     "CONNECT_FAILED",
@@ -175,6 +240,28 @@ public class MySqlConnection implements IReferenceable, IConfigurable, IOpenable
         }
     }
 
+    private MySqlConnectionPool createPool(String uri) {
+        return new MySqlConnectionPool(
+                uri,
+                this._options.getAsIntegerWithDefault("max_pool_size", 10),
+                this._options.getAsLongWithDefault("idle_timeout", 10000),
+                this._options.getAsLongWithDefault("max_lifetime", 1800000),
+                this._options.getAsLongWithDefault("acquire_timeout", 30000)
+        );
+    }
+
+    private void closePools() {
+        if (this._pool != null) {
+            this._pool.close();
+            this._pool = null;
+        }
+        this._connection = null;
+
+        for (var replica : this._replicas)
+            replica.close();
+        this._replicas = new ArrayList<>();
+    }
+
     /**
      * Closes component and frees used resources.
      *
@@ -186,11 +273,10 @@ public class MySqlConnection implements IReferenceable, IConfigurable, IOpenable
             return;
 
         try {
-            this._connection.close();
+            this.closePools();
 
             this._logger.debug(correlationId, "Disconnected from MySQL database %s", this._databaseName);
 
-            this._connection = null;
             this._databaseName = null;
         } catch (Exception ex) {
             throw new ConnectionException(
@@ -201,10 +287,174 @@ public class MySqlConnection implements IReferenceable, IConfigurable, IOpenable
         }
     }
 
+    /**
+     * Gets the MySQL connection shared by all callers. It is leased from the pool on first use,
+     * and closing it has no effect. Concurrent calls on it are serialized by the driver,
+     * so operations shall lease their own connections from {@link #getPool()}.
+     *
+     * @return the shared connection or <code>null</code> if the component is not opened.
+     */
     public Connection getConnection() {
         return this._connection;
     }
 
+    /**
+     * Gets the MySQL connection pool. Every connection leased from the pool
+     * must be closed to return it back.
+     *
+     * @return the connection pool or <code>null</code> if the component is not opened.
+     */
+    public MySqlConnectionPool getPool() {
+        return this._pool;
+    }
+
+    /**
+     * Gets the connection pool for read operations.
+     * It is one of the read replicas when they are configured, or the primary otherwise.
+     * Inside {@link #withPrimaryReads} the primary is always returned.
+     *
+     * @return the connection pool to read from.
+     */
+    public MySqlConnectionPool getReadPool() {
+        var replicas = this._replicas;
+        if (replicas.isEmpty() || this._primaryReads.get() > 0 || this._transaction.get() != null)
+            return this._pool;
+
+        if ("least_loaded".equals(this._options.getAsNullableString("replica_selection"))) {
+            var selected = replicas.get(0);
+            for (var replica : replicas) {
+                if (replica.getActiveCount() < selected.getActiveCount())
+                    selected = replica;
+            }
+            return selected;
+        }
+
+        var index = Math.floorMod(this._replicaIndex.getAndIncrement(), replicas.size());
+        return replicas.get(index);
+    }
+
+    /**
+     * Gets the connection pools to read replicas.
+     *
+     * @return a list of replica pools, empty when no replicas are configured.
+     */
+    public List<MySqlConnectionPool> getReplicas() {
+        return this._replicas;
+    }
+
+    /**
+     * Executes an action with all reads on the current thread routed to the primary.
+     * It is used to read own writes that have not yet been replicated.
+     *
+     * @param action an action to be executed.
+     * @return the result returned by the action.
+     */
+    public <R> R withPrimaryReads(Supplier<R> action) {
+        this._primaryReads.set(this._primaryReads.get() + 1);
+        try {
+            return action.get();
+        } finally {
+            var depth = this._primaryReads.get() - 1;
+            if (depth > 0)
+                this._primaryReads.set(depth);
+            else
+                this._primaryReads.remove();
+        }
+    }
+
+    /**
+     * Checks if reads on the current thread are routed to the primary by {@link #withPrimaryReads}.
+     *
+     * @return true if reads go to the primary and false otherwise.
+     */
+    public boolean isPrimaryReads() {
+        return this._primaryReads.get() > 0;
+    }
+
+    /**
+     * Starts a transaction and binds it to the current thread. All persistences
+     * that use this connection on the current thread join the transaction until it is completed.
+     * If a transaction is already active, the returned scope joins it.
+     *
+     * @param correlationId (optional) transaction id to trace execution through call chain.
+     * @return the transaction scope to be committed and closed.
+     */
+    public MySqlTransaction beginTransaction(String correlationId) {
+        var current = this._transaction.get();
+        if (current != null)
+            return current.join();
+
+        if (this._pool == null)
+            throw new RuntimeException(new InvalidStateException(
+                    correlationId, "NOT_OPENED", "MySQL connection is not opened"
+            ));
+
+        Connection connection = null;
+        try {
+            connection = this._pool.getConnection();
+            connection.setAutoCommit(false);
+        } catch (SQLException ex) {
+            if (connection != null) {
+                try {
+                    connection.close();
+                } catch (SQLException closeEx) {
+                    // The pool discards connections that cannot be reset
+                }
+            }
+            throw new RuntimeException(ex);
+        }
+
+        var transaction = new MySqlTransaction(this, connection);
+        this._transaction.set(transaction);
+        this._pool.bind(connection);
+
+        this._logger.trace(correlationId, "Started MySQL transaction");
+
+        return transaction;
+    }
+
+    /**
+     * Executes an action inside a transaction. The transaction is committed when the action
+     * returns and rolled back when it throws. Inside an active transaction the action joins it.
+     *
+     * @param correlationId (optional) transaction id to trace execution through call chain.
+     * @param action        an action to be executed.
+     * @return the result returned by the action.
+     */
+    public <R> R inTransaction(String correlationId, Supplier<R> action) {
+        try (var transaction = this.beginTransaction(correlationId)) {
+            var result = action.get();
+            transaction.commit();
+            return result;
+        }
+    }
+
+    /**
+     * Gets the transaction bound to the current thread.
+     *
+     * @return the active transaction or null if there is none.
+     */
+    public MySqlTransaction getTransaction() {
+        return this._transaction.get();
+    }
+
+    /**
+     * Checks if the current thread runs inside a transaction.
+     *
+     * @return true if a transaction is active and false otherwise.
+     */
+    public boolean isInTransaction() {
+        return this._transaction.get() != null;
+    }
+
+    void unbindTransaction(MySqlTransaction transaction) {
+        if (this._transaction.get() == transaction) {
+            this._transaction.remove();
+            if (this._pool != null)
+                this._pool.unbind();
+        }
+    }
+
     public String getDatabaseName() {
         return this._databaseName;
     }
@@ -0,0 +1,537 @@
+package org.pipservices3.mysql.connect;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool of physical MySQL connections.
+ * <p>
+ * Connections are leased with {@link #getConnection()} and returned to the pool
+ * when the leased connection is closed. Waiting callers are served in FIFO order
+ * and fail after the acquire timeout. Idle connections are evicted after the idle timeout,
+ * and every connection is retired once it exceeds its max lifetime.
+ * <p>
+ * While a {@link MySqlTransaction} is bound to the current thread, {@link #getConnection()}
+ * returns its connection instead of leasing a new one, so all statements join the transaction.
+ * <p>
+ * Statements and metadata of leased connections return the leased connection
+ * from their <code>getConnection()</code> methods, so closing it returns the connection to the pool.
+ * Result sets are returned by the driver as they are, so reading rows costs no extra calls,
+ * and their <code>getStatement()</code> returns the statement of the driver.
+ *
+ * @see MySqlConnection
+ */
+public class MySqlConnectionPool {
+
+    // Keep all interfaces of the driver object, so casts to driver specific interfaces still work
+    private static final ClassValue<Class<?>[]> INTERFACES = new ClassValue<>() {
+        @Override
+        protected Class<?>[] computeValue(Class<?> type) {
+            var interfaces = new LinkedHashSet<Class<?>>();
+            for (var current = type; current != null; current = current.getSuperclass())
+                collectInterfaces(current, interfaces);
+            return interfaces.toArray(new Class<?>[0]);
+        }
+    };
+
+    private final String _uri;
+    private final int _maxPoolSize;
+    private final long _idleTimeout;
+    private final long _maxLifetime;
+    private final long _acquireTimeout;
+
+    private final Semaphore _permits;
+    private final Deque<PooledConnection> _idle = new ArrayDeque<>();
+    private final AtomicInteger _totalCount = new AtomicInteger();
+    private final AtomicInteger _activeCount = new AtomicInteger();
+    private final ScheduledExecutorService _evictor;
+    private final ThreadLocal<Connection> _bound = new ThreadLocal<>();
+    private final Connection _shared;
+    private Connection _sharedLease;
+    private volatile boolean _closed = false;
+
+    /**
+     * Creates a new instance of the connection pool.
+     *
+     * @param uri            a JDBC connection URI.
+     * @param maxPoolSize    maximum number of connections in the pool.
+     * @param idleTimeout    number of milliseconds a connection may sit idle before it is closed (0 to disable).
+     * @param maxLifetime    maximum number of milliseconds a connection is kept open (0 to disable).
+     * @param acquireTimeout number of milliseconds to wait for a free connection.
+     */
+    public MySqlConnectionPool(String uri, int maxPoolSize, long idleTimeout, long maxLifetime, long acquireTimeout) {
+        this._uri = uri;
+        this._maxPoolSize = Math.max(1, maxPoolSize);
+        this._idleTimeout = idleTimeout;
+        this._maxLifetime = maxLifetime;
+        this._acquireTimeout = acquireTimeout;
+        this._permits = new Semaphore(this._maxPoolSize, true);
+
+        this._evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "mysql-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        var period = this._idleTimeout > 0 ? Math.max(1000, this._idleTimeout / 2) : 30000;
+        this._evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+
+        this._shared = proxy(Connection.class, new SharedHandler());
+    }
+
+    /**
+     * Leases a connection from the pool. The connection must be closed
+     * to return it back to the pool.
+     *
+     * @return a leased connection.
+     * @throws SQLException when the pool is closed, the acquire timeout expired or a new connection failed.
+     */
+    public Connection getConnection() throws SQLException {
+        if (this._closed)
+            throw new SQLException("MySQL connection pool is closed");
+
+        var bound = this._bound.get();
+        if (bound != null)
+            return this.join(bound);
+
+        try {
+            if (!this._permits.tryAcquire(this._acquireTimeout, TimeUnit.MILLISECONDS))
+                throw new SQLTimeoutException("Timed out after " + this._acquireTimeout
+                        + " ms waiting for a connection from the pool");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection from the pool", ex);
+        }
+
+        try {
+            var pooled = this.takeIdle();
+            if (pooled == null)
+                pooled = this.createConnection();
+
+            this._activeCount.incrementAndGet();
+            return pooled.lease();
+        } catch (SQLException | RuntimeException ex) {
+            this._permits.release();
+            throw ex;
+        }
+    }
+
+    /**
+     * Gets a connection shared by all callers, for components that keep one connection
+     * and run statements on it directly. It is leased from the pool on first use and held until the pool is closed.
+     * Closing it has no effect. While a transaction is bound to the current thread,
+     * the shared connection runs statements in that transaction.
+     *
+     * @return the shared connection.
+     */
+    public Connection getSharedConnection() {
+        return this._shared;
+    }
+
+    private synchronized Connection leaseShared() throws SQLException {
+        if (this._sharedLease == null || this._sharedLease.isClosed())
+            this._sharedLease = this.getConnection();
+        return this._sharedLease;
+    }
+
+    /**
+     * Binds a leased connection to the current thread. Until it is unbound,
+     * {@link #getConnection()} on this thread returns the bound connection.
+     *
+     * @param connection a connection leased from this pool.
+     */
+    void bind(Connection connection) {
+        this._bound.set(connection);
+    }
+
+    /**
+     * Unbinds the connection bound to the current thread.
+     */
+    void unbind() {
+        this._bound.remove();
+    }
+
+    /**
+     * Checks if a connection is bound to the current thread.
+     *
+     * @return true if the current thread runs inside a transaction.
+     */
+    public boolean isBound() {
+        return this._bound.get() != null;
+    }
+
+    private Connection join(Connection bound) {
+        return proxy(Connection.class, new JoinHandler(bound));
+    }
+
+    private static <P> P proxy(Class<P> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private PooledConnection takeIdle() {
+        while (true) {
+            PooledConnection pooled;
+            synchronized (this._idle) {
+                pooled = this._idle.pollFirst();
+            }
+            if (pooled == null)
+                return null;
+
+            if (!this.isExpired(pooled, System.currentTimeMillis()) && !pooled.isPhysicallyClosed())
+                return pooled;
+
+            this.destroy(pooled);
+        }
+    }
+
+    private PooledConnection createConnection() throws SQLException {
+        var connection = DriverManager.getConnection(this._uri);
+        this._totalCount.incrementAndGet();
+        return new PooledConnection(connection);
+    }
+
+    private boolean isExpired(PooledConnection pooled, long now) {
+        if (this._maxLifetime > 0 && now - pooled.createdTime >= this._maxLifetime)
+            return true;
+        return this._idleTimeout > 0 && now - pooled.lastUsedTime >= this._idleTimeout;
+    }
+
+    private void release(PooledConnection pooled) {
+        this._activeCount.decrementAndGet();
+        try {
+            if (this._closed || pooled.isPhysicallyClosed()
+                    || (this._maxLifetime > 0 && System.currentTimeMillis() - pooled.createdTime >= this._maxLifetime)) {
+                this.destroy(pooled);
+                return;
+            }
+
+            // Leave the connection in a clean state for the next caller
+            try {
+                if (!pooled.connection.getAutoCommit()) {
+                    pooled.connection.rollback();
+                    pooled.connection.setAutoCommit(true);
+                }
+            } catch (SQLException ex) {
+                this.destroy(pooled);
+                return;
+            }
+
+            pooled.lastUsedTime = System.currentTimeMillis();
+            synchronized (this._idle) {
+                this._idle.addFirst(pooled);
+            }
+        } finally {
+            this._permits.release();
+        }
+    }
+
+    private void destroy(PooledConnection pooled) {
+        this._totalCount.decrementAndGet();
+        try {
+            pooled.connection.close();
+        } catch (SQLException ex) {
+            // Ignore errors on closing broken connections
+        }
+    }
+
+    private void evictIdle() {
+        var now = System.currentTimeMillis();
+        var expired = new ArrayList<PooledConnection>();
+
+        synchronized (this._idle) {
+            var iterator = this._idle.iterator();
+            while (iterator.hasNext()) {
+                var pooled = iterator.next();
+                if (this.isExpired(pooled, now)) {
+                    iterator.remove();
+                    expired.add(pooled);
+                }
+            }
+        }
+
+        expired.forEach(this::destroy);
+    }
+
+    /**
+     * Closes all idle connections and rejects new leases.
+     * Leased connections are closed when they are returned.
+     */
+    public void close() {
+        this._closed = true;
+        this._evictor.shutdownNow();
+
+        synchronized (this) {
+            if (this._sharedLease != null) {
+                try {
+                    this._sharedLease.close();
+                } catch (SQLException ex) {
+                    // The pool destroys connections returned after it is closed
+                }
+                this._sharedLease = null;
+            }
+        }
+
+        var idle = new ArrayList<PooledConnection>();
+        synchronized (this._idle) {
+            idle.addAll(this._idle);
+            this._idle.clear();
+        }
+        idle.forEach(this::destroy);
+    }
+
+    /**
+     * Checks if the pool has been closed.
+     *
+     * @return true if the pool is closed and false otherwise.
+     */
+    public boolean isClosed() {
+        return this._closed;
+    }
+
+    /**
+     * Gets the maximum number of connections in the pool.
+     *
+     * @return the maximum pool size.
+     */
+    public int getMaxPoolSize() {
+        return this._maxPoolSize;
+    }
+
+    /**
+     * Gets the number of connections currently leased by callers.
+     *
+     * @return the number of active connections.
+     */
+    public int getActiveCount() {
+        return this._activeCount.get();
+    }
+
+    /**
+     * Gets the number of open connections waiting in the pool.
+     *
+     * @return the number of idle connections.
+     */
+    public int getIdleCount() {
+        synchronized (this._idle) {
+            return this._idle.size();
+        }
+    }
+
+    /**
+     * Gets the total number of open physical connections.
+     *
+     * @return the number of open connections.
+     */
+    public int getTotalCount() {
+        return this._totalCount.get();
+    }
+
+    /**
+     * Gets the number of callers waiting for a free connection.
+     *
+     * @return the number of waiting callers.
+     */
+    public int getWaitingCount() {
+        return this._permits.getQueueLength();
+    }
+
+    private class PooledConnection {
+        private final Connection connection;
+        private final long createdTime;
+        private long lastUsedTime;
+
+        private PooledConnection(Connection connection) {
+            this.connection = connection;
+            this.createdTime = System.currentTimeMillis();
+            this.lastUsedTime = this.createdTime;
+        }
+
+        private boolean isPhysicallyClosed() {
+            try {
+                return this.connection.isClosed();
+            } catch (SQLException ex) {
+                return true;
+            }
+        }
+
+        private Connection lease() {
+            return proxy(Connection.class, new LeaseHandler(this));
+        }
+    }
+
+    /**
+     * Invokes a method of a JDBC object and wraps the statements and metadata it returns,
+     * so their <code>getConnection()</code> returns the given connection proxy.
+     */
+    private static Object invokeWrapped(Object target, Method method, Object[] args, Object connection) throws Throwable {
+        Object result;
+        try {
+            result = method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+
+        if (result instanceof Statement || result instanceof DatabaseMetaData)
+            return wrap(result, new ChildHandler(result, connection));
+        return result;
+    }
+
+    private static Object wrap(Object target, InvocationHandler handler) {
+        var type = target.getClass();
+        return Proxy.newProxyInstance(type.getClassLoader(), INTERFACES.get(type), handler);
+    }
+
+    private static void collectInterfaces(Class<?> type, Set<Class<?>> interfaces) {
+        for (var item : type.getInterfaces()) {
+            if (interfaces.add(item))
+                collectInterfaces(item, interfaces);
+        }
+    }
+
+    private static class ChildHandler implements InvocationHandler {
+        private final Object _target;
+        private final Object _owner;
+
+        private ChildHandler(Object target, Object owner) {
+            this._target = target;
+            this._owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            var noArgs = args == null || args.length == 0;
+            switch (method.getName()) {
+                case "getConnection":
+                    if (noArgs)
+                        return this._owner;
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+            }
+
+            try {
+                return method.invoke(this._target, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        }
+    }
+
+    private class SharedHandler implements InvocationHandler {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                // The shared connection is returned when the pool is closed
+                case "close":
+                    return null;
+                case "isClosed":
+                    return MySqlConnectionPool.this._closed;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Shared MySQL connection";
+            }
+
+            var bound = MySqlConnectionPool.this._bound.get();
+            var target = bound != null ? MySqlConnectionPool.this.join(bound) : MySqlConnectionPool.this.leaseShared();
+            return invokeWrapped(target, method, args, proxy);
+        }
+    }
+
+    private class LeaseHandler implements InvocationHandler {
+        private final PooledConnection _pooled;
+        private boolean _released = false;
+
+        private LeaseHandler(PooledConnection pooled) {
+            this._pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    synchronized (this) {
+                        if (!this._released) {
+                            this._released = true;
+                            MySqlConnectionPool.this.release(this._pooled);
+                        }
+                    }
+                    return null;
+                case "isClosed":
+                    return this._released || this._pooled.isPhysicallyClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled " + this._pooled.connection;
+            }
+
+            if (this._released)
+                throw new SQLException("Connection has been returned to the pool");
+
+            return invokeWrapped(this._pooled.connection, method, args, proxy);
+        }
+    }
+
+    private static class JoinHandler implements InvocationHandler {
+        private final Connection _bound;
+        private boolean _closed = false;
+
+        private JoinHandler(Connection bound) {
+            this._bound = bound;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                // The transaction owns the connection and completes it
+                case "close":
+                    this._closed = true;
+                    return null;
+                case "commit":
+                case "rollback":
+                    if (args == null || args.length == 0)
+                        return null;
+                    break;
+                case "setAutoCommit":
+                    return null;
+                case "isClosed":
+                    return this._closed || this._bound.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Joined " + this._bound;
+            }
+
+            if (this._closed)
+                throw new SQLException("Connection has been closed");
+
+            return invokeWrapped(this._bound, method, args, proxy);
+        }
+    }
+}
@@ -11,6 +11,7 @@ import org.pipservices3.components.auth.CredentialResolver;
 import org.pipservices3.components.connect.ConnectionParams;
 import org.pipservices3.components.connect.ConnectionResolver;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -18,6 +19,7 @@ import java.util.List;
  * validates them and generates a connection URI.
  * <p>
  * It is able to process multiple connections to MySQL cluster nodes.
+ * Read replicas are configured separately and resolved into one URI per replica.
  * <p>
  * ### Configuration parameters ###
  *
@@ -28,6 +30,12 @@ import java.util.List;
  *   - port:                        port number (default: 3306)
  *   - database:                    database name
  *   - uri:                         resource URI or connection string with all parameters in it
+ * - replica(s):                    (optional) read replicas, every replica is a separate server
+ *   - discovery_key:               (optional) a key to retrieve the replica connection from  {@link org.pipservices3.components.connect.IDiscovery}
+ *   - host:                        host name or IP address
+ *   - port:                        port number (default: 3306)
+ *   - database:                    (optional) database name (default: primary database)
+ *   - uri:                         resource URI or connection string with all parameters in it
  * - credential(s):
  *   - store_key:                   (optional) a key to retrieve the credentials from {@link org.pipservices3.components.auth.ICredentialStore}
  *   - username:                    user name
@@ -49,6 +57,10 @@ public class MySqlConnectionResolver implements IReferenceable, IConfigurable {
      * The credentials resolver.
      */
     protected CredentialResolver _credentialResolver = new CredentialResolver();
+    /**
+     * The read replicas resolver.
+     */
+    protected ConnectionResolver _replicaResolver = new ConnectionResolver();
 
     /**
      * Sets references to dependent components.
@@ -59,6 +71,7 @@ public class MySqlConnectionResolver implements IReferenceable, IConfigurable {
     public void setReferences(IReferences references) {
         this._connectionResolver.setReferences(references);
         this._credentialResolver.setReferences(references);
+        this._replicaResolver.setReferences(references);
     }
 
     /**
@@ -70,6 +83,13 @@ public class MySqlConnectionResolver implements IReferenceable, IConfigurable {
     public void configure(ConfigParams config) {
         this._connectionResolver.configure(config);
         this._credentialResolver.configure(config);
+
+        // Replicas are read the same way as connections, but from their own sections
+        var replicaConfig = new ConfigParams();
+        replicaConfig.addSection("connection", config.getSection("replica"));
+        replicaConfig.addSection("connections", config.getSection("replicas"));
+        if (replicaConfig.size() > 0)
+            this._replicaResolver.configure(replicaConfig);
     }
 
     private void validateConnection(String correlationId, ConnectionParams connection) throws ConfigException {
@@ -209,4 +229,37 @@ public class MySqlConnectionResolver implements IReferenceable, IConfigurable {
 
         return this.composeUri(connections, credential);
     }
+
+    /**
+     * Resolves connection URIs of MySQL read replicas.
+     * Replicas without a database inherit the database of the primary connection.
+     *
+     * @param correlationId (optional) transaction id to trace execution through call chain.
+     * @return a list of resolved replica URIs, empty when no replicas are configured.
+     */
+    public List<String> resolveReplicas(String correlationId) throws ApplicationException {
+        var replicas = this._replicaResolver.resolveAll(correlationId);
+        var uris = new ArrayList<String>();
+        if (replicas == null || replicas.isEmpty())
+            return uris;
+
+        var connections = this._connectionResolver.resolveAll(correlationId);
+        String database = null;
+        if (connections != null) {
+            for (var connection : connections)
+                database = database != null ? database : connection.getAsNullableString("database");
+        }
+
+        var credential = this._credentialResolver.lookup(correlationId);
+
+        for (var replica : replicas) {
+            if (replica.getUri() == null && replica.getAsNullableString("database") == null && database != null)
+                replica.put("database", database);
+
+            this.validateConnection(correlationId, replica);
+            uris.add(this.composeUri(List.of(replica), credential));
+        }
+
+        return uris;
+    }
 }
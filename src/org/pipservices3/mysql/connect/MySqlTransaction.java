@@ -0,0 +1,176 @@
+package org.pipservices3.mysql.connect;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Transaction scope that binds one pooled connection to the current thread.
+ * <p>
+ * While the scope is open, every persistence that uses the same {@link MySqlConnection}
+ * on this thread runs its statements on the bound connection and joins the transaction.
+ * Commits and rollbacks issued by persistences are ignored, so the transaction
+ * is committed once by {@link #commit()}. Closing the scope without a commit rolls it back.
+ * <p>
+ * A scope opened while another one is active on the same thread joins the outer transaction.
+ * When a nested scope is closed without a commit, the whole transaction is rolled back.
+ * <p>
+ * ### Example ###
+ * <pre>
+ * {@code
+ * try (var transaction = connection.beginTransaction("123")) {
+ *     persistence1.create("123", item1);
+ *     persistence2.create("123", item2);
+ *     transaction.commit();
+ * }
+ * }
+ * </pre>
+ *
+ * @see MySqlConnection#beginTransaction
+ * @see MySqlConnection#inTransaction
+ */
+public class MySqlTransaction implements AutoCloseable {
+
+    private final MySqlConnection _owner;
+    private final MySqlTransaction _root;
+    private final Connection _connection;
+    private final List<Runnable> _completionHooks;
+    private boolean _rollbackOnly = false;
+    private boolean _completed = false;
+
+    MySqlTransaction(MySqlConnection owner, Connection connection) {
+        this._owner = owner;
+        this._root = this;
+        this._connection = connection;
+        this._completionHooks = new ArrayList<>();
+    }
+
+    private MySqlTransaction(MySqlTransaction root) {
+        this._owner = root._owner;
+        this._root = root;
+        this._connection = root._connection;
+        this._completionHooks = null;
+    }
+
+    MySqlTransaction join() {
+        return new MySqlTransaction(this);
+    }
+
+    /**
+     * Gets the connection bound to the transaction.
+     *
+     * @return the bound connection.
+     */
+    public Connection getConnection() {
+        return this._connection;
+    }
+
+    /**
+     * Checks if the scope joined a transaction started by an outer scope.
+     *
+     * @return true for nested scopes and false otherwise.
+     */
+    public boolean isNested() {
+        return this._root != this;
+    }
+
+    /**
+     * Checks if the scope was committed or rolled back.
+     *
+     * @return true if the scope is completed and false otherwise.
+     */
+    public boolean isCompleted() {
+        return this._completed;
+    }
+
+    /**
+     * Marks the transaction to be rolled back when the outermost scope completes.
+     */
+    public void setRollbackOnly() {
+        this._root._rollbackOnly = true;
+    }
+
+    /**
+     * Registers an action to run after the transaction is committed or rolled back.
+     * Persistences use it to drop cached state that was changed inside the transaction.
+     *
+     * @param action an action to be executed.
+     */
+    public void onComplete(Runnable action) {
+        this._root._completionHooks.add(action);
+    }
+
+    /**
+     * Commits the transaction. For nested scopes it only completes the scope,
+     * and the transaction is committed by the outermost scope.
+     */
+    public void commit() {
+        this.checkNotCompleted();
+        this._completed = true;
+
+        if (this.isNested())
+            return;
+
+        this._owner.unbindTransaction(this);
+
+        if (this._rollbackOnly) {
+            this.finish(false);
+            throw new IllegalStateException("Transaction was marked as rollback-only and has been rolled back");
+        }
+
+        this.finish(true);
+    }
+
+    /**
+     * Rolls back the transaction. For nested scopes the whole transaction
+     * is rolled back when the outermost scope completes.
+     */
+    public void rollback() {
+        this.checkNotCompleted();
+        this._completed = true;
+
+        if (this.isNested()) {
+            this.setRollbackOnly();
+            return;
+        }
+
+        this._owner.unbindTransaction(this);
+        this.finish(false);
+    }
+
+    /**
+     * Closes the scope. The transaction is rolled back if it was not committed.
+     */
+    @Override
+    public void close() {
+        if (!this._completed)
+            this.rollback();
+    }
+
+    private void checkNotCompleted() {
+        if (this._completed)
+            throw new IllegalStateException("Transaction has already been completed");
+    }
+
+    private void finish(boolean commit) {
+        try {
+            if (commit)
+                this._connection.commit();
+            else
+                this._connection.rollback();
+            this._connection.setAutoCommit(true);
+        } catch (SQLException ex) {
+            throw new RuntimeException(ex);
+        } finally {
+            try {
+                this._connection.close();
+            } catch (SQLException ex) {
+                // The pool discards connections that cannot be reset
+            }
+
+            for (var hook : this._completionHooks)
+                hook.run();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package org.pipservices3.mysql.persistence;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Coalesces concurrent loads of single values into batches.
+ * <p>
+ * Keys requested within a short time window are collected into one batch
+ * and loaded with a single call of the batch function. The first caller of a batch
+ * waits for the window to pass or the batch to fill up and then loads it on its own thread,
+ * so no background threads are used. Every caller receives the value for its own key.
+ *
+ * @see IdentifiableMySqlPersistence
+ */
+public class BatchLoader<K, V> {
+
+    private final Function<List<K>, Map<K, V>> _loader;
+    private final Coalescer<K, V> _coalescer;
+
+    /**
+     * Creates a new instance of the loader.
+     *
+     * @param loader  a function that loads values for a list of keys. Missing keys may be omitted in the result.
+     * @param window  number of milliseconds to collect keys into a batch.
+     * @param maxSize maximum number of keys in a batch.
+     */
+    public BatchLoader(Function<List<K>, Map<K, V>> loader, long window, int maxSize) {
+        this._loader = loader;
+        this._coalescer = new Coalescer<>(this::load, TimeUnit.MILLISECONDS.toNanos(window), maxSize);
+    }
+
+    /**
+     * Loads a value by its key together with other keys requested at the same time.
+     *
+     * @param key a key of the value.
+     * @return the loaded value or null when it was not found.
+     */
+    public V load(K key) {
+        try {
+            return this._coalescer.submit(key).join();
+        } catch (CompletionException ex) {
+            throw ex.getCause() instanceof RuntimeException cause ? cause : ex;
+        }
+    }
+
+    private void load(List<Coalescer.Request<K, V>> requests) {
+        // Callers of the same key share its value
+        var keys = new LinkedHashSet<K>();
+        requests.forEach((request) -> keys.add(request.getValue()));
+
+        var values = this._loader.apply(new ArrayList<>(keys));
+        requests.forEach((request) -> request.complete(values.get(request.getValue())));
+    }
+}
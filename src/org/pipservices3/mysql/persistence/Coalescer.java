@@ -0,0 +1,158 @@
+package org.pipservices3.mysql.persistence;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Collects concurrent requests into batches that are executed together.
+ * <p>
+ * Requests submitted within a short time window are collected into one batch.
+ * The first caller of a batch waits for the window to pass or the batch to fill up
+ * and then executes it on its own thread, so no background threads are used.
+ * Every request is completed with its own result or error.
+ * <p>
+ * The first caller is parked with {@link LockSupport#parkNanos}, so windows shorter
+ * than a millisecond are kept as accurately as the operating system timer allows.
+ *
+ * @see BatchLoader
+ * @see GroupCommit
+ */
+class Coalescer<E, R> {
+
+    private final Consumer<List<Request<E, R>>> _executor;
+    private final long _window;
+    private final int _maxSize;
+    private Batch<E, R> _current;
+
+    /**
+     * Creates a new instance of the coalescer.
+     *
+     * @param executor a function that executes a batch and completes its requests.
+     * @param window   number of nanoseconds to collect requests into a batch.
+     * @param maxSize  maximum number of requests in a batch.
+     */
+    Coalescer(Consumer<List<Request<E, R>>> executor, long window, int maxSize) {
+        this._executor = executor;
+        this._window = Math.max(0, window);
+        this._maxSize = Math.max(1, maxSize);
+    }
+
+    /**
+     * Submits a request together with other requests submitted at the same time.
+     * When the caller starts a batch, the batch is executed before the method returns.
+     *
+     * @param value a value of the request.
+     * @return a future completed with the result of the request.
+     */
+    CompletableFuture<R> submit(E value) {
+        var request = new Request<E, R>(value);
+        Batch<E, R> batch;
+        boolean leader = false;
+
+        synchronized (this) {
+            if (this._current == null) {
+                this._current = new Batch<>(Thread.currentThread());
+                leader = true;
+            }
+
+            batch = this._current;
+            batch.requests.add(request);
+
+            if (batch.requests.size() >= this._maxSize)
+                this.closeBatch(batch);
+        }
+
+        // A full batch wakes up its first caller
+        if (!leader && batch.closed)
+            LockSupport.unpark(batch.leader);
+
+        if (leader) {
+            this.awaitBatch(batch);
+            this.execute(batch);
+        }
+
+        return request.future;
+    }
+
+    private void awaitBatch(Batch<E, R> batch) {
+        var deadline = System.nanoTime() + this._window;
+        while (!batch.closed) {
+            var remaining = deadline - System.nanoTime();
+            // Interrupted callers execute the collected requests right away
+            if (remaining <= 0 || Thread.currentThread().isInterrupted())
+                break;
+            LockSupport.parkNanos(this, remaining);
+        }
+
+        synchronized (this) {
+            this.closeBatch(batch);
+        }
+    }
+
+    private void closeBatch(Batch<E, R> batch) {
+        batch.closed = true;
+        if (this._current == batch)
+            this._current = null;
+    }
+
+    private void execute(Batch<E, R> batch) {
+        try {
+            this._executor.accept(batch.requests);
+        } catch (Throwable ex) {
+            // Requests completed before the failure keep their results
+            batch.requests.forEach((request) -> request.future.completeExceptionally(ex));
+        }
+    }
+
+    /**
+     * A request collected into a batch.
+     */
+    static class Request<E, R> {
+        private final E value;
+        private final CompletableFuture<R> future = new CompletableFuture<>();
+
+        private Request(E value) {
+            this.value = value;
+        }
+
+        /**
+         * Gets the value of the request.
+         *
+         * @return the request value.
+         */
+        E getValue() {
+            return this.value;
+        }
+
+        /**
+         * Completes the request with a result.
+         *
+         * @param result the result of the request.
+         */
+        void complete(R result) {
+            this.future.complete(result);
+        }
+
+        /**
+         * Completes the request with an error.
+         *
+         * @param error the error of the request.
+         */
+        void fail(Throwable error) {
+            this.future.completeExceptionally(error);
+        }
+    }
+
+    private static class Batch<E, R> {
+        private final Thread leader;
+        private final List<Request<E, R>> requests = new ArrayList<>();
+        private volatile boolean closed = false;
+
+        private Batch(Thread leader) {
+            this.leader = leader;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package org.pipservices3.mysql.persistence;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses serialized documents stored in binary columns.
+ * <p>
+ * Every stored value starts with a format marker byte. Documents smaller than the threshold,
+ * or documents that do not get smaller, are stored as they are after the {@link #PLAIN} marker.
+ * Compressed documents are stored after the {@link #DEFLATE} marker and the original length
+ * as 4 bytes, so they are inflated into a buffer of the exact size.
+ *
+ * @see IdentifiableJsonMySqlPersistence
+ */
+public class DocumentCompression {
+
+    /**
+     * The marker of documents stored without compression.
+     */
+    public static final byte PLAIN = 0;
+    /**
+     * The marker of documents compressed with raw Deflate.
+     */
+    public static final byte DEFLATE = 1;
+
+    /**
+     * Encodes a serialized document for storage.
+     *
+     * @param data      the serialized document.
+     * @param compress  true to compress documents from the threshold size.
+     * @param threshold the minimum size of documents to compress in bytes.
+     * @return the stored value with the format marker.
+     */
+    public static byte[] encode(byte[] data, boolean compress, int threshold) {
+        if (compress && data.length >= threshold) {
+            var compressed = deflate(data);
+            if (compressed.length + 5 < data.length + 1) {
+                return ByteBuffer.allocate(compressed.length + 5)
+                        .put(DEFLATE).putInt(data.length).put(compressed)
+                        .array();
+            }
+        }
+
+        var result = new byte[data.length + 1];
+        result[0] = PLAIN;
+        System.arraycopy(data, 0, result, 1, data.length);
+        return result;
+    }
+
+    /**
+     * Decodes a stored value into the serialized document.
+     *
+     * @param value the stored value with the format marker.
+     * @return the serialized document.
+     * @throws IllegalArgumentException when the marker is unknown or the value is corrupted.
+     */
+    public static byte[] decode(byte[] value) {
+        if (value.length == 0)
+            throw new IllegalArgumentException("Stored document is empty");
+
+        switch (value[0]) {
+            case PLAIN:
+                var result = new byte[value.length - 1];
+                System.arraycopy(value, 1, result, 0, result.length);
+                return result;
+            case DEFLATE:
+                var length = ByteBuffer.wrap(value, 1, 4).getInt();
+                return inflate(value, 5, length);
+            default:
+                throw new IllegalArgumentException("Unknown stored document format " + value[0]);
+        }
+    }
+
+    private static byte[] deflate(byte[] data) {
+        // The fastest level gets most of the gain on JSON text at a fraction of the CPU time
+        var deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+
+            var output = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+            var buffer = new byte[8192];
+            while (!deflater.finished()) {
+                var count = deflater.deflate(buffer);
+                output.write(buffer, 0, count);
+            }
+            return output.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] value, int offset, int length) {
+        var inflater = new Inflater(true);
+        try {
+            inflater.setInput(value, offset, value.length - offset);
+
+            var result = new byte[length];
+            var position = 0;
+            while (position < length) {
+                var count = inflater.inflate(result, position, length - position);
+                if (count == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary()))
+                    break;
+                position += count;
+            }
+
+            if (position != length)
+                throw new IllegalArgumentException("Stored document is truncated");
+            return result;
+        } catch (DataFormatException ex) {
+            throw new IllegalArgumentException("Stored document is corrupted", ex);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package org.pipservices3.mysql.persistence;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.introspect.AnnotatedField;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMember;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMethod;
+import org.pipservices3.commons.convert.JsonConverter;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Maps table rows directly to properties of document classes and back,
+ * without serializing values into JSON text.
+ * <p>
+ * Properties are discovered the same way Jackson does it, so <code>@JsonProperty</code>
+ * and <code>@JsonIgnore</code> annotations are respected. Accessors are compiled
+ * into method handles once per document class.
+ * <p>
+ * Only flat classes with a default constructor and properties of simple types
+ * (strings, numbers and booleans) are supported. For other classes {@link #forClass}
+ * returns <code>null</code> and persistence components fall back to JSON conversion.
+ * <p>
+ * The introspected properties are checked against the output of {@link JsonConverter} for a new document,
+ * so direct mapping produces the same property names and null handling as JSON conversion,
+ * and classes that it would convert differently fall back to it as well.
+ */
+public class DocumentMapper<T> {
+
+    // Configured like the mapper of JsonConverter
+    private static final ObjectMapper _mapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            .configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+    private static final Map<Class<?>, DocumentMapper<?>> _mappers = new ConcurrentHashMap<>();
+    private static final DocumentMapper<?> UNSUPPORTED = new DocumentMapper<>();
+
+    private static final Set<Class<? extends Annotation>> _allowedAnnotations = Set.of(
+            com.fasterxml.jackson.annotation.JsonProperty.class,
+            com.fasterxml.jackson.annotation.JsonIgnore.class
+    );
+
+    private final MethodHandle _constructor;
+    private final Map<String, Property> _setters;
+    private final List<Property> _getters;
+    private final boolean _skipNulls;
+
+    private DocumentMapper() {
+        this._constructor = null;
+        this._setters = null;
+        this._getters = null;
+        this._skipNulls = false;
+    }
+
+    private DocumentMapper(MethodHandle constructor, Map<String, Property> setters, List<Property> getters,
+                           boolean skipNulls) {
+        this._constructor = constructor;
+        this._setters = setters;
+        this._getters = getters;
+        this._skipNulls = skipNulls;
+    }
+
+    /**
+     * Gets a mapper for a document class.
+     *
+     * @param type a document class.
+     * @return a mapper or <code>null</code> if the class is not supported.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> DocumentMapper<T> forClass(Class<T> type) {
+        if (type == null)
+            return null;
+
+        var mapper = _mappers.computeIfAbsent(type, DocumentMapper::build);
+        return mapper != UNSUPPORTED ? (DocumentMapper<T>) mapper : null;
+    }
+
+    private static DocumentMapper<?> build(Class<?> type) {
+        try {
+            // Platform classes have their own serializers in Jackson
+            var packageName = type.getPackageName();
+            if (packageName.startsWith("java.") || packageName.startsWith("javax."))
+                return UNSUPPORTED;
+
+            if (type.isInterface() || Modifier.isAbstract(type.getModifiers()) || hasCustomAnnotations(type))
+                return UNSUPPORTED;
+
+            var lookup = MethodHandles.lookup();
+            var constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            var constructorHandle = lookup.unreflectConstructor(constructor)
+                    .asType(MethodType.methodType(Object.class));
+
+            var javaType = _mapper.constructType(type);
+
+            // Readable properties are used to convert documents into rows
+            var getters = new ArrayList<Property>();
+            var serialization = _mapper.getSerializationConfig().introspect(javaType);
+            if (serialization.findAnyGetter() != null || serialization.findJsonValueAccessor() != null)
+                return UNSUPPORTED;
+
+            for (var property : serialization.findProperties()) {
+                AnnotatedMember member = property.hasGetter() ? property.getGetter() : property.getField();
+                if (member == null)
+                    continue;
+
+                var getter = unreflectGetter(lookup, property.getName(), member);
+                if (getter == null)
+                    return UNSUPPORTED;
+                getters.add(getter);
+            }
+
+            // Writable properties are used to convert rows into documents
+            var setters = new HashMap<String, Property>();
+            var deserialization = _mapper.getDeserializationConfig().introspect(javaType);
+            if (deserialization.findAnySetterAccessor() != null)
+                return UNSUPPORTED;
+
+            for (var property : deserialization.findProperties()) {
+                AnnotatedMember member = property.hasSetter() ? property.getSetter() : property.getField();
+                if (member == null)
+                    continue;
+
+                var setter = unreflectSetter(lookup, property.getName(), member);
+                if (setter == null)
+                    return UNSUPPORTED;
+                setters.put(setter.name, setter);
+            }
+
+            if (getters.isEmpty() || setters.isEmpty())
+                return UNSUPPORTED;
+
+            var mapper = new DocumentMapper<>(constructorHandle, setters, getters, false);
+            return mapper.matchJsonConverter();
+        } catch (Throwable ex) {
+            return UNSUPPORTED;
+        }
+    }
+
+    /**
+     * Compares properties of a new document with its JSON conversion.
+     * Properties missing from JSON must be null, and then nulls are skipped by this mapper too.
+     */
+    private DocumentMapper<?> matchJsonConverter() throws Throwable {
+        var document = this._constructor.invokeExact();
+        var json = JsonConverter.toMap(JsonConverter.toJson(document));
+        var row = this.fromDocument(document);
+        if (json == null || !row.keySet().containsAll(json.keySet()))
+            return UNSUPPORTED;
+
+        var skipNulls = false;
+        for (var entry : row.entrySet()) {
+            if (json.containsKey(entry.getKey()))
+                continue;
+            if (entry.getValue() != null)
+                return UNSUPPORTED;
+            skipNulls = true;
+        }
+
+        return skipNulls ? new DocumentMapper<>(this._constructor, this._setters, this._getters, true) : this;
+    }
+
+    private static boolean hasCustomAnnotations(AnnotatedElement element) {
+        for (var annotation : element.getAnnotations()) {
+            var type = annotation.annotationType();
+            if (type.getName().startsWith("com.fasterxml.jackson") && !_allowedAnnotations.contains(type))
+                return true;
+        }
+        return false;
+    }
+
+    private static Property unreflectGetter(MethodHandles.Lookup lookup, String name, AnnotatedMember member)
+            throws IllegalAccessException {
+        MethodHandle handle;
+        Class<?> type;
+        if (member instanceof AnnotatedMethod method && method.getParameterCount() == 0) {
+            method.getAnnotated().setAccessible(true);
+            handle = lookup.unreflect(method.getAnnotated());
+            type = method.getRawReturnType();
+        } else if (member instanceof AnnotatedField field) {
+            field.getAnnotated().setAccessible(true);
+            handle = lookup.unreflectGetter(field.getAnnotated());
+            type = field.getRawType();
+        } else {
+            return null;
+        }
+
+        if (!isSimpleType(type) || hasCustomAnnotations((AnnotatedElement) member.getMember()))
+            return null;
+
+        return new Property(name, handle.asType(MethodType.methodType(Object.class, Object.class)), null, false);
+    }
+
+    private static Property unreflectSetter(MethodHandles.Lookup lookup, String name, AnnotatedMember member)
+            throws IllegalAccessException {
+        MethodHandle handle;
+        Class<?> type;
+        if (member instanceof AnnotatedMethod method && method.getParameterCount() == 1) {
+            method.getAnnotated().setAccessible(true);
+            handle = lookup.unreflect(method.getAnnotated());
+            type = method.getRawParameterType(0);
+        } else if (member instanceof AnnotatedField field && !Modifier.isFinal(field.getAnnotated().getModifiers())) {
+            field.getAnnotated().setAccessible(true);
+            handle = lookup.unreflectSetter(field.getAnnotated());
+            type = field.getRawType();
+        } else {
+            return null;
+        }
+
+        if (!isSimpleType(type) || hasCustomAnnotations((AnnotatedElement) member.getMember()))
+            return null;
+
+        return new Property(name, handle.asType(MethodType.methodType(void.class, Object.class, Object.class)),
+                converterFor(type), type.isPrimitive());
+    }
+
+    private static boolean isSimpleType(Class<?> type) {
+        return type.isPrimitive() && type != char.class
+                || type == String.class || type == Boolean.class || type == Integer.class || type == Long.class
+                || type == Short.class || type == Byte.class || type == Double.class || type == Float.class
+                || type == BigDecimal.class;
+    }
+
+    private static Function<Object, Object> converterFor(Class<?> type) {
+        if (type == String.class)
+            return (value) -> value instanceof byte[] bytes ? new String(bytes, StandardCharsets.UTF_8) : value.toString();
+        if (type == boolean.class || type == Boolean.class)
+            return (value) -> {
+                if (value instanceof Boolean) return value;
+                if (value instanceof Number number) return number.intValue() != 0;
+                var text = value.toString();
+                return "1".equals(text) || Boolean.parseBoolean(text);
+            };
+        if (type == int.class || type == Integer.class)
+            return (value) -> value instanceof Number number ? (Object) number.intValue() : Integer.valueOf(value.toString().trim());
+        if (type == long.class || type == Long.class)
+            return (value) -> value instanceof Number number ? (Object) number.longValue() : Long.valueOf(value.toString().trim());
+        if (type == short.class || type == Short.class)
+            return (value) -> value instanceof Number number ? (Object) number.shortValue() : Short.valueOf(value.toString().trim());
+        if (type == byte.class || type == Byte.class)
+            return (value) -> value instanceof Number number ? (Object) number.byteValue() : Byte.valueOf(value.toString().trim());
+        if (type == double.class || type == Double.class)
+            return (value) -> value instanceof Number number ? (Object) number.doubleValue() : Double.valueOf(value.toString().trim());
+        if (type == float.class || type == Float.class)
+            return (value) -> value instanceof Number number ? (Object) number.floatValue() : Float.valueOf(value.toString().trim());
+        if (type == BigDecimal.class)
+            return (value) -> value instanceof BigDecimal ? value : new BigDecimal(value.toString().trim());
+
+        throw new IllegalArgumentException("Unsupported property type " + type);
+    }
+
+    /**
+     * Creates a document from a table row.
+     * Columns without matching properties are ignored, and null values of primitive properties are skipped.
+     *
+     * @param row a map with column values.
+     * @return a created document.
+     * @throws IllegalArgumentException when a column value cannot be converted to its property type.
+     */
+    @SuppressWarnings("unchecked")
+    public T toDocument(Map<String, Object> row) {
+        try {
+            var document = this._constructor.invokeExact();
+
+            for (var entry : row.entrySet()) {
+                var property = this._setters.get(entry.getKey());
+                if (property == null)
+                    continue;
+
+                var value = entry.getValue();
+                if (value == null) {
+                    if (property.primitive)
+                        continue;
+                } else {
+                    value = property.converter.apply(value);
+                }
+
+                property.handle.invokeExact(document, value);
+            }
+
+            return (T) document;
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("Failed to map row to document", ex);
+        } catch (Throwable ex) {
+            throw new IllegalStateException("Failed to map row to document", ex);
+        }
+    }
+
+    /**
+     * Converts a document into a table row.
+     *
+     * @param document a document to convert.
+     * @return a map with property values in declaration order.
+     */
+    public Map<String, Object> fromDocument(Object document) {
+        var row = new LinkedHashMap<String, Object>((int) (this._getters.size() / 0.75f) + 1);
+        try {
+            for (var property : this._getters) {
+                var value = property.handle.invokeExact(document);
+                if (value != null || !this._skipNulls)
+                    row.put(property.name, value);
+            }
+        } catch (Throwable ex) {
+            throw new IllegalStateException("Failed to map document to row", ex);
+        }
+        return row;
+    }
+
+    private static class Property {
+        private final String name;
+        private final MethodHandle handle;
+        private final Function<Object, Object> converter;
+        private final boolean primitive;
+
+        private Property(String name, MethodHandle handle, Function<Object, Object> converter, boolean primitive) {
+            this.name = name;
+            this.handle = handle;
+            this.converter = converter;
+            this.primitive = primitive;
+        }
+    }
+}
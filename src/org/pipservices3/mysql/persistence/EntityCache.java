@@ -0,0 +1,144 @@
+package org.pipservices3.mysql.persistence;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size-bounded in-process cache of entities with LRU eviction and expiration.
+ * <p>
+ * Every invalidation advances the cache version. Readers take the version
+ * before they read from the database and store the result only when no invalidation
+ * happened in the meantime, so a slow read cannot bring back a value that was
+ * changed by a concurrent write.
+ *
+ * @see IdentifiableMySqlPersistence
+ */
+public class EntityCache<K, V> {
+
+    private final int _maxSize;
+    private final long _timeout;
+    private final LinkedHashMap<K, Entry<V>> _entries;
+    private long _version = 0;
+    private long _hitCount = 0;
+    private long _missCount = 0;
+
+    /**
+     * Creates a new instance of the cache.
+     *
+     * @param maxSize maximum number of cached entities.
+     * @param timeout number of milliseconds entities are kept in the cache (0 to keep until evicted).
+     */
+    public EntityCache(int maxSize, long timeout) {
+        this._maxSize = Math.max(1, maxSize);
+        this._timeout = timeout;
+        this._entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, EntityCache.Entry<V>> eldest) {
+                return size() > EntityCache.this._maxSize;
+            }
+        };
+    }
+
+    /**
+     * Gets a cached entity.
+     *
+     * @param key a key of the entity.
+     * @return the cached entity or null when it is missing or expired.
+     */
+    public synchronized V get(K key) {
+        var entry = this._entries.get(key);
+        if (entry != null && entry.expireTime > 0 && entry.expireTime <= System.currentTimeMillis()) {
+            this._entries.remove(key);
+            entry = null;
+        }
+
+        if (entry == null) {
+            this._missCount++;
+            return null;
+        }
+
+        this._hitCount++;
+        return entry.value;
+    }
+
+    /**
+     * Gets the current version of the cache. It shall be taken before reading an entity from the database.
+     *
+     * @return the current version.
+     */
+    public synchronized long getVersion() {
+        return this._version;
+    }
+
+    /**
+     * Stores an entity unless the cache was invalidated since the given version was taken.
+     *
+     * @param key     a key of the entity.
+     * @param value   an entity to be cached.
+     * @param version the cache version taken before the entity was read.
+     * @return true if the entity was stored and false otherwise.
+     */
+    public synchronized boolean put(K key, V value, long version) {
+        if (version != this._version || value == null)
+            return false;
+
+        var expireTime = this._timeout > 0 ? System.currentTimeMillis() + this._timeout : 0;
+        this._entries.put(key, new Entry<>(value, expireTime));
+        return true;
+    }
+
+    /**
+     * Removes an entity from the cache.
+     *
+     * @param key a key of the entity.
+     */
+    public synchronized void remove(K key) {
+        this._version++;
+        this._entries.remove(key);
+    }
+
+    /**
+     * Removes all entities from the cache.
+     */
+    public synchronized void clear() {
+        this._version++;
+        this._entries.clear();
+    }
+
+    /**
+     * Gets the number of cached entities, including expired ones that were not evicted yet.
+     *
+     * @return the number of cached entities.
+     */
+    public synchronized int size() {
+        return this._entries.size();
+    }
+
+    /**
+     * Gets the number of lookups that found a cached entity.
+     *
+     * @return the number of cache hits.
+     */
+    public synchronized long getHitCount() {
+        return this._hitCount;
+    }
+
+    /**
+     * Gets the number of lookups that did not find a cached entity.
+     *
+     * @return the number of cache misses.
+     */
+    public synchronized long getMissCount() {
+        return this._missCount;
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final long expireTime;
+
+        private Entry(V value, long expireTime) {
+            this.value = value;
+            this.expireTime = expireTime;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package org.pipservices3.mysql.persistence;
+
+import org.pipservices3.mysql.connect.MySqlConnectionPool;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs small concurrent writes together in shared transactions.
+ * <p>
+ * Writes submitted within a short time window are collected into a group. The first caller
+ * of a group waits for the window to pass or the group to fill up and then runs all writes
+ * on one pooled connection in a single transaction, so the group pays for one commit.
+ * Every write runs after its own savepoint, and a failed write is rolled back to it
+ * without affecting the others. Each caller returns when the group is committed
+ * and receives only its own result or error.
+ *
+ * @see MySqlPersistence
+ */
+public class GroupCommit {
+
+    /**
+     * A write executed on the connection of a group.
+     */
+    @FunctionalInterface
+    public interface Write {
+        /**
+         * Executes the write.
+         *
+         * @param connection the connection shared by the group.
+         * @throws SQLException when the write fails.
+         */
+        void execute(Connection connection) throws SQLException;
+    }
+
+    private final MySqlConnectionPool _pool;
+    private final Coalescer<Write, Void> _coalescer;
+    private final AtomicLong _commitCount = new AtomicLong();
+    private final AtomicLong _writeCount = new AtomicLong();
+
+    /**
+     * Creates a new instance of the group commit.
+     *
+     * @param pool    a connection pool to lease connections from.
+     * @param window  number of microseconds to collect writes into a group.
+     * @param maxSize maximum number of writes in a group.
+     */
+    public GroupCommit(MySqlConnectionPool pool, long window, int maxSize) {
+        this._pool = pool;
+        this._coalescer = new Coalescer<>(this::commit, TimeUnit.MICROSECONDS.toNanos(window), maxSize);
+    }
+
+    /**
+     * Executes a write together with other writes submitted at the same time
+     * and waits until they are committed.
+     *
+     * @param write the write to execute.
+     * @throws SQLException when the write or the commit of its group fails.
+     */
+    public void execute(Write write) throws SQLException {
+        try {
+            this._coalescer.submit(write).join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof SQLException cause)
+                throw cause;
+            throw ex.getCause() instanceof RuntimeException cause ? cause : ex;
+        }
+    }
+
+    private void commit(List<Coalescer.Request<Write, Void>> group) {
+        var size = group.size();
+        var failures = new Throwable[size];
+
+        try (var connection = this._pool.getConnection()) {
+            connection.setAutoCommit(false);
+
+            for (var index = 0; index < size; index++) {
+                // A single write needs no savepoint, the whole transaction is its own
+                var savepoint = size > 1 ? connection.setSavepoint() : null;
+                try {
+                    group.get(index).getValue().execute(connection);
+                    if (savepoint != null)
+                        connection.releaseSavepoint(savepoint);
+                } catch (SQLException | RuntimeException ex) {
+                    if (savepoint == null)
+                        throw ex;
+                    connection.rollback(savepoint);
+                    failures[index] = ex;
+                }
+            }
+
+            connection.commit();
+            connection.setAutoCommit(true);
+        } catch (Throwable ex) {
+            // Nothing was committed, so every write of the group failed
+            group.forEach((request) -> request.fail(ex));
+            return;
+        }
+
+        this._commitCount.incrementAndGet();
+        this._writeCount.addAndGet(size);
+
+        for (var index = 0; index < size; index++) {
+            if (failures[index] != null)
+                group.get(index).fail(failures[index]);
+            else
+                group.get(index).complete(null);
+        }
+    }
+
+    /**
+     * Gets the number of committed groups.
+     *
+     * @return the number of commits.
+     */
+    public long getCommitCount() {
+        return this._commitCount.get();
+    }
+
+    /**
+     * Gets the number of writes in committed groups, including writes that failed.
+     *
+     * @return the number of writes.
+     */
+    public long getWriteCount() {
+        return this._writeCount.get();
+    }
+}
@@ -0,0 +1,37 @@
+package org.pipservices3.mysql.persistence;
+
+import java.io.IOException;
+
+/**
+ * Interface for codecs that serialize documents stored in the data column
+ * of {@link IdentifiableJsonMySqlPersistence}.
+ *
+ * @see JsonDocumentCodec
+ * @see JacksonDocumentCodec
+ */
+public interface IDocumentCodec {
+    /**
+     * Checks if the codec produces JSON text, which can be stored in a JSON column
+     * and used by server-side JSON functions.
+     *
+     * @return true for JSON text and false for binary formats.
+     */
+    boolean isText();
+
+    /**
+     * Serializes a document.
+     *
+     * @param document a document to serialize.
+     * @return the serialized document.
+     */
+    byte[] encode(Object document) throws IOException;
+
+    /**
+     * Deserializes a document.
+     *
+     * @param data the serialized document.
+     * @param type the class of the document.
+     * @return the deserialized document.
+     */
+    <D> D decode(byte[] data, Class<D> type) throws IOException;
+}
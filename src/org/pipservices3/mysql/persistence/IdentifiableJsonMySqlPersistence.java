@@ -1,14 +1,20 @@
 package org.pipservices3.mysql.persistence;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import org.pipservices3.commons.config.ConfigParams;
 import org.pipservices3.commons.convert.JsonConverter;
 import org.pipservices3.commons.data.AnyValueMap;
 import org.pipservices3.commons.data.IIdentifiable;
+import org.pipservices3.commons.errors.BadRequestException;
+import org.pipservices3.commons.errors.ConfigException;
+import org.pipservices3.commons.errors.InvalidStateException;
 
 import java.io.IOException;
 import java.sql.SQLException;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.regex.Pattern;
 
 /**
  * Abstract persistence component that stores data in MySQL in JSON or JSONB fields
@@ -17,6 +23,10 @@ import java.util.Map;
  * <p>
  * The JSON table has only two fields: id and data.
  * <p>
+ * With a binary codec or compression, documents are stored in a binary data column, and server-side JSON functions
+ * cannot be used on it. Partial updates then merge documents on the client, and fields used in filters
+ * have to be kept in separate columns filled by the component, see {@link #ensureJsonIndex}.
+ * <p>
  * In basic scenarios child classes shall only override [[getPageByFilter]],
  * {@link #getListByFilter} or {@link #deleteByFilter} operations with specific filter function.
  * All other operations can be used out of the box.
@@ -42,6 +52,14 @@ import java.util.Map;
  *   - connect_timeout:      (optional) number of milliseconds to wait before timing out when connecting a new client (default: 0)
  *   - idle_timeout:         (optional) number of milliseconds a client must sit idle in the pool and not be checked out (default: 10000)
  *   - max_pool_size:        (optional) maximum number of clients the pool should contain (default: 10)
+ *   - max_lifetime:         (optional) maximum number of milliseconds a client is kept open before it is retired (default: 1800000)
+ *   - acquire_timeout:      (optional) number of milliseconds to wait for a free client before failing (default: 30000)
+ *   - id_strategy:          (optional) how ids are generated and stored: random (VARCHAR ids) or ordered
+ *                           (time-ordered string ids of 32 hex digits stored as BINARY(16)) (default: random).
+ *                           With ordered ids new items with other ids are rejected, and lookups of such ids find nothing
+ *   - codec:                (optional) serialization of documents: json or cbor, binary codecs use a LONGBLOB data column (default: json)
+ *   - compression:          (optional) compression of documents stored in a LONGBLOB data column: none or deflate (default: none)
+ *   - compression_threshold: (optional) minimum size of documents to compress in bytes (default: 1024)
  *  </pre>
  * <p>
  * ### References ###
@@ -63,8 +81,7 @@ import java.util.Map;
  *     protected void defineSchema() {
  *         this.clearSchema();
  *         this.ensureTable();
- *         this.ensureSchema("ALTER TABLE `" + this._tableName + "` ADD `data_key` VARCHAR(50) AS (JSON_UNQUOTE(`data`->\"$.key\"))");
- *         this.ensureIndex(this._tableName + "_json_key", Map.of("data_key", 1), Map.of("unique", true));
+ *         this.ensureJsonIndex("$.key", "VARCHAR(50)", true);
  *     }
  *
  *     public DataPage<MyData> getPageByFilter(String correlationId, FilterParams filter, PagingParams paging) {
@@ -73,7 +90,7 @@ import java.util.Map;
  *
  *         String filterCondition = null;
  *         if (key != null)
- *             filterCondition = "data->'$.key'='" + key + "'";
+ *             filterCondition = this.rewriteJsonFilter("data->'$.key'='" + key + "'");
  *
  *         return super.getPageByFilter(correlationId, filterCondition, paging, null, null);
  *     }
@@ -96,6 +113,25 @@ import java.util.Map;
  */
 public class IdentifiableJsonMySqlPersistence<T extends IIdentifiable<K>, K> extends IdentifiableMySqlPersistence<T, K> {
 
+    /**
+     * The strategy of ids: random or ordered.
+     */
+    protected String _idStrategy = "random";
+    /**
+     * The compression of stored documents: none or deflate.
+     */
+    protected String _compression = "none";
+    /**
+     * The codec that serializes stored documents.
+     */
+    protected IDocumentCodec _codec = new JsonDocumentCodec();
+    /**
+     * The minimum size of documents to compress in bytes.
+     */
+    protected int _compressionThreshold = 1024;
+
+    private final Map<String, JsonIndex> _jsonIndexes = new LinkedHashMap<>();
+
     /**
      * Creates a new instance of the persistence component.
      *
@@ -111,17 +147,91 @@ public class IdentifiableJsonMySqlPersistence<T extends IIdentifiable<K>, K> ext
         super(documentClass, null, null);
     }
 
+    /**
+     * Configures component by passing configuration parameters.
+     *
+     * @param config configuration parameters to be set.
+     */
+    @Override
+    public void configure(ConfigParams config) throws ConfigException {
+        super.configure(config);
+
+        this._idStrategy = config.getAsStringWithDefault("options.id_strategy", this._idStrategy);
+        this._compression = config.getAsStringWithDefault("options.compression", this._compression);
+        this._codec = this.createCodec(config.getAsStringWithDefault("options.codec", "json"));
+        this._compressionThreshold = config.getAsIntegerWithDefault("options.compression_threshold", this._compressionThreshold);
+    }
+
+    private boolean isOrderedIds() {
+        return "ordered".equals(this._idStrategy);
+    }
+
+    /**
+     * Creates a codec by its name. Override it to support more formats.
+     *
+     * @param name a name of the codec: json or cbor.
+     * @return the created codec.
+     */
+    protected IDocumentCodec createCodec(String name) throws ConfigException {
+        switch (name) {
+            case "json":
+                return new JsonDocumentCodec();
+            case "cbor":
+                return JacksonDocumentCodec.cbor();
+            default:
+                throw new ConfigException(null, "UNKNOWN_CODEC", "Unknown document codec " + name);
+        }
+    }
+
+    /**
+     * Checks if documents are stored in a binary data column.
+     *
+     * @return true if documents are binary and false if they are JSON.
+     */
+    protected boolean isBinaryData() {
+        return !this._codec.isText() || "deflate".equals(this._compression);
+    }
+
+    /**
+     * Encodes a document into the value of the data column.
+     *
+     * @param document a document to encode.
+     * @return the value of the data column.
+     */
+    protected Object encodeDocument(Object document) throws IOException {
+        if (!this.isBinaryData())
+            return JsonConverter.toJson(document);
+
+        var compress = "deflate".equals(this._compression);
+        return DocumentCompression.encode(this._codec.encode(document), compress, this._compressionThreshold);
+    }
+
+    /**
+     * Decodes the value of the data column into a document.
+     * JSON text is parsed as it is, and binary values are decompressed and decoded by the codec,
+     * so tables can hold compressed and plain documents.
+     *
+     * @param data the value of the data column.
+     * @param type the class of the document.
+     * @return the decoded document.
+     */
+    protected <D> D decodeDocument(Object data, Class<D> type) throws IOException {
+        if (data instanceof byte[] bytes)
+            return this._codec.decode(DocumentCompression.decode(bytes), type);
+        return JsonConverter.fromJson(type, (String) data);
+    }
+
     /**
      * Adds DML statement to automatically create JSON(B) table
      *
-     * @param idType   type of the id column (default: VARCHAR(32))
+     * @param idType   type of the id column (default: VARCHAR(32), or BINARY(16) for ordered ids)
      * @param dataType type of the data column (default: JSON)
      */
     protected void ensureTable(String idType, String dataType) {
         if (idType == null)
-            idType = "VARCHAR(32)";
+            idType = this.isOrderedIds() ? "BINARY(16)" : "VARCHAR(32)";
         if (dataType == null)
-            dataType = "JSON";
+            dataType = this.isBinaryData() ? "LONGBLOB" : "JSON";
 
         if (this._schemaName != null) {
             var query = "CREATE SCHEMA IF NOT EXISTS " + this.quoteIdentifier(this._schemaName);
@@ -136,7 +246,255 @@ public class IdentifiableJsonMySqlPersistence<T extends IIdentifiable<K>, K> ext
      * Adds DML statement to automatically create JSON(B) table
      */
     protected void ensureTable() {
-        this.ensureTable("VARCHAR(32)", "JSON");
+        this.ensureTable(null, null);
+    }
+
+    /**
+     * Adds DML statements to index a JSON path with a virtual generated column.
+     *
+     * @param path   a JSON path in the document, like $.key
+     * @param type   type of the indexed values (default: VARCHAR(255))
+     * @param unique true to create a unique index
+     * @see #ensureJsonIndex(String, String, boolean, String)
+     */
+    protected void ensureJsonIndex(String path, String type, boolean unique) {
+        this.ensureJsonIndex(path, type, unique, "virtual");
+    }
+
+    /**
+     * Adds DML statements to index a JSON path in the data column.
+     * <p>
+     * The path is extracted into a generated column named after it, like data_key for $.key,
+     * and the column is indexed. With the functional storage the index is built over the extracting expression
+     * and no column is added (MySQL 8.0.13 or newer). Character values use binary collation,
+     * so they compare the same way as JSON values.
+     * <p>
+     * The indexed paths are used by {@link #rewriteJsonFilter} to point filters at the index.
+     * <p>
+     * When documents are stored in a binary data column, the server cannot read them,
+     * so the value is kept in a plain column that the component fills on every write,
+     * whatever the storage is. Only member paths like $.a.b can be indexed that way.
+     *
+     * @param path    a JSON path in the document, like $.key
+     * @param type    type of the indexed values (default: VARCHAR(255))
+     * @param unique  true to create a unique index
+     * @param storage how the values are kept: virtual, stored or functional
+     */
+    protected void ensureJsonIndex(String path, String type, boolean unique, String storage) {
+        if (this.isBinaryData() && !path.matches("\\$(\\.\\w+)+")) {
+            throw new RuntimeException(new InvalidStateException(
+                    null, "JSON_INDEX_NOT_SUPPORTED",
+                    "Only member paths like $.a.b can be indexed in binary documents of " + this._tableName
+            ));
+        }
+
+        type = type != null ? type : "VARCHAR(255)";
+        var name = path.replaceFirst("^\\$\\.?", "").replaceAll("\\W+", "_").replaceAll("^_|_$", "");
+        var value = "JSON_UNQUOTE(JSON_EXTRACT(`data`, '" + path.replace("'", "''") + "'))";
+        var text = type.toUpperCase().matches("(VAR)?CHAR.*|.*TEXT");
+        var collate = text ? " COLLATE utf8mb4_bin" : "";
+
+        String expression;
+        String column = null;
+        if (this.isBinaryData()) {
+            column = "data_" + name;
+            expression = this.quoteIdentifier(column);
+            this.ensureSchema("ALTER TABLE " + this.quotedTableName() + " ADD " + expression + " " + type + collate);
+        } else if ("functional".equals(storage)) {
+            expression = "(CAST(" + value + " AS " + castType(type) + ")" + collate + ")";
+        } else {
+            expression = this.quoteIdentifier("data_" + name);
+            this.ensureSchema("ALTER TABLE " + this.quotedTableName() + " ADD " + expression + " " + type + collate
+                    + " AS (" + value + ") " + ("stored".equals(storage) ? "STORED" : "VIRTUAL"));
+        }
+
+        var indexName = this.quoteIdentifier(this._tableName + "_json_" + name);
+        this.ensureSchema("CREATE" + (unique ? " UNIQUE" : "") + " INDEX " + indexName
+                + " ON " + this.quotedTableName() + " (" + expression + ")");
+
+        this._jsonIndexes.put(path, new JsonIndex(path, type, expression, column));
+    }
+
+    private boolean hasIndexedColumns() {
+        for (var index : this._jsonIndexes.values()) {
+            if (index.column != null)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Adds values of indexed paths that are kept in plain columns to a row.
+     * The values are read the way JSON_UNQUOTE(JSON_EXTRACT()) reads them.
+     *
+     * @param row      a row to be written.
+     * @param document a document in the row, as a map of JSON values.
+     */
+    private void putIndexedValues(Map<String, Object> row, Map<String, Object> document) throws JsonProcessingException {
+        for (var index : this._jsonIndexes.values()) {
+            if (index.column == null)
+                continue;
+
+            Object value = document;
+            for (var name : index.path.substring(2).split("\\."))
+                value = value instanceof Map<?, ?> map ? map.get(name) : null;
+
+            if (value instanceof Map || value instanceof Collection)
+                value = JsonConverter.toJson(value);
+            else if (value instanceof Boolean)
+                value = value.toString();
+            row.put(index.column, value);
+        }
+    }
+
+    private static String castType(String type) {
+        var upper = type.toUpperCase();
+        if (upper.matches("(VAR)?CHAR\\s*\\(.*"))
+            return upper.replaceFirst("^VAR", "");
+        if (upper.endsWith("TEXT"))
+            return "CHAR(255)";
+        if (upper.matches("(TINY|SMALL|MEDIUM|BIG)?INT(EGER)?(\\s*\\(.*)?"))
+            return "SIGNED";
+        return type;
+    }
+
+    /**
+     * Gets an SQL expression for a JSON path in the data column.
+     * Indexed paths are mapped to their generated column or functional index expression.
+     *
+     * @param path a JSON path in the document, like $.key
+     * @return the SQL expression that reads the path.
+     */
+    protected String jsonField(String path) {
+        var index = this._jsonIndexes.get(path);
+        return index != null ? index.expression
+                : "JSON_UNQUOTE(JSON_EXTRACT(`data`, '" + path.replace("'", "''") + "'))";
+    }
+
+    /**
+     * Rewrites reads of indexed JSON paths in a filter, like data->'$.key', data->>'$.key'
+     * or JSON_EXTRACT(data, '$.key'), into the indexed expressions, so the filter can use the index.
+     * <p>
+     * A read is rewritten only when it is compared to a parameter or a plain scalar literal,
+     * like data->>'$.key' = ? or data->>'$.key' IN ('A', 'B'), so the result stays the same.
+     * Reads that return JSON values, like data->'$.key', are compared as JSON, so they are rewritten
+     * only for =, &lt;&gt;, !=, &lt;, &gt;, &lt;=, &gt;= with a parameter or a literal of the indexed type.
+     * String literals and other parts of the filter are kept as they are.
+     *
+     * @param filter a filter condition.
+     * @return the rewritten filter condition.
+     */
+    protected String rewriteJsonFilter(String filter) {
+        if (filter == null || filter.isEmpty() || this._jsonIndexes.isEmpty())
+            return filter;
+
+        var result = new StringBuilder();
+        var position = 0;
+        while (position < filter.length()) {
+            var end = -1;
+            for (var index : this._jsonIndexes.values()) {
+                end = index.rewrite(filter, position, result);
+                if (end >= 0)
+                    break;
+            }
+
+            if (end < 0) {
+                var c = filter.charAt(position);
+                end = c == '\'' || c == '"' || c == '`' ? skipQuoted(filter, position) : position + 1;
+                result.append(filter, position, end);
+            }
+            position = end;
+        }
+        return result.toString();
+    }
+
+    /**
+     * Finds the end of a quoted string or identifier.
+     *
+     * @param text     a text with the quoted part.
+     * @param position a position of the opening quote.
+     * @return the position after the closing quote.
+     */
+    private static int skipQuoted(String text, int position) {
+        var quote = text.charAt(position);
+        var end = position + 1;
+        while (end < text.length()) {
+            var c = text.charAt(end);
+            if (c == '\\' && quote != '`')
+                end += 2;
+            else if (c == quote && end + 1 < text.length() && text.charAt(end + 1) == quote)
+                end += 2;
+            else if (c == quote)
+                return end + 1;
+            else
+                end++;
+        }
+        return text.length();
+    }
+
+    /**
+     * Clears all auto-created objects and indexed JSON paths
+     */
+    @Override
+    protected void clearSchema() {
+        super.clearSchema();
+        this._jsonIndexes.clear();
+    }
+
+    /**
+     * Generates a new unique id for a data item. With ordered ids it is a time-ordered
+     * id of 32 hex digits, so new rows are appended to the end of the primary key.
+     *
+     * @param item a data item without id.
+     * @return the generated id.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    protected K generateId(T item) {
+        return this.isOrderedIds() ? (K) OrderedIds.next() : super.generateId(item);
+    }
+
+    /**
+     * Assigns a unique id to a data item without id when auto generation of ids is turned on.
+     * With ordered ids the ids of new items must have 32 hex digits.
+     *
+     * @param item a data item.
+     * @return the item with assigned id.
+     */
+    @Override
+    protected T assignId(T item) {
+        var newItem = super.assignId(item);
+        if (!this.isOrderedIds() || newItem.getId() == null)
+            return newItem;
+
+        try {
+            OrderedIds.toBytes(newItem.getId().toString());
+        } catch (IllegalArgumentException ex) {
+            throw new RuntimeException(new BadRequestException(
+                    null, "INVALID_ID", "Id " + newItem.getId() + " must have 32 hex digits"
+            ).withCause(ex));
+        }
+        return newItem;
+    }
+
+    /**
+     * Converts an id into a value bound to statement parameters.
+     * With ordered ids the hex digits are bound as 16 bytes. Other ids cannot be stored,
+     * so they are bound as an empty value that matches no row, and looking them up finds nothing.
+     *
+     * @param id an id of a data item.
+     * @return the id value to bind.
+     */
+    @Override
+    protected Object convertIdToDatabase(K id) {
+        if (id == null || !this.isOrderedIds())
+            return super.convertIdToDatabase(id);
+
+        try {
+            return OrderedIds.toBytes(id.toString());
+        } catch (IllegalArgumentException ex) {
+            return new byte[0];
+        }
     }
 
     /**
@@ -149,7 +507,7 @@ public class IdentifiableJsonMySqlPersistence<T extends IIdentifiable<K>, K> ext
     protected T convertToPublic(Map<String, Object> value) {
         if (value == null) return null;
         try {
-            return JsonConverter.fromJson(_documentClass, (String) value.getOrDefault("data", null));
+            return this.decodeDocument(value.getOrDefault("data", null), _documentClass);
         } catch (IOException ex) {
             throw new RuntimeException(ex);
         }
@@ -162,15 +520,19 @@ public class IdentifiableJsonMySqlPersistence<T extends IIdentifiable<K>, K> ext
      * @return converted object in internal format.
      */
     @Override
+    @SuppressWarnings("unchecked")
     protected Map<String, Object> convertFromPublic(Object value) {
         if (value == null) return null;
 
         try {
-            return Map.of(
-                    "id", ((IIdentifiable<K>) value).getId(),
-                    "data", JsonConverter.toJson(value)
-            );
-        } catch (JsonProcessingException ex) {
+            var row = new LinkedHashMap<String, Object>();
+            row.put("id", this.convertIdToDatabase(((IIdentifiable<K>) value).getId()));
+            row.put("data", this.encodeDocument(value));
+            // Documents are read as maps only when indexed paths are kept in plain columns
+            if (this.isBinaryData() && this.hasIndexedColumns())
+                this.putIndexedValues(row, JsonConverter.toMap(JsonConverter.toJson(value)));
+            return row;
+        } catch (IOException ex) {
             throw new RuntimeException(ex);
         }
     }
@@ -187,7 +549,7 @@ public class IdentifiableJsonMySqlPersistence<T extends IIdentifiable<K>, K> ext
         if (data == null || id == null)
             return null;
 
-        var strId = "'" + id.toString() + "'";
+        this.flushBuffered(correlationId, id);
 
         String values;
 
@@ -197,21 +559,32 @@ public class IdentifiableJsonMySqlPersistence<T extends IIdentifiable<K>, K> ext
             throw new RuntimeException(ex);
         }
 
-        var query = "UPDATE " + this.quotedTableName() + " SET `data`=JSON_MERGE_PATCH(data,'" + values + "') WHERE id=" + strId;
+        if (this.isBinaryData())
+            return this.mergeOnClient(correlationId, id, values);
+
+        var query = this.composeStatement("updatePartially", () ->
+                "UPDATE " + this.quotedTableName() + " SET `data`=JSON_MERGE_PATCH(data,?) WHERE id=?"
+        );
 
         T newItem;
-        var resultMap = new HashMap<String, Object>();
-
-        try (var stmt = _client.createStatement()) {
-            stmt.execute(query);
-            query = "SELECT * FROM " + this.quotedTableName() + " WHERE id=" + strId;
-            var rs = stmt.executeQuery(query);
-            if (rs.next())
-                for (int columnIndex = 1; columnIndex <= rs.getMetaData().getColumnCount(); columnIndex++)
-                    resultMap.put(rs.getMetaData().getColumnName(columnIndex), rs.getObject(columnIndex));
-        } catch (SQLException ex) {
-            throw new RuntimeException(ex);
-        }
+        var patch = values;
+
+        // Merging the same patch again gives the same document
+        var resultMap = this.executeWithRetry(correlationId, () -> {
+            try (var connection = this._pool.getConnection()) {
+                try (var stmt = connection.prepareStatement(query)) {
+                    stmt.setString(1, patch);
+                    stmt.setObject(2, this.convertIdToDatabase(id));
+                    stmt.execute();
+                }
+
+                return "none".equals(this._writeReturnMode) ? null : this.readOneById(connection, id);
+            } catch (SQLException ex) {
+                throw new RuntimeException(ex);
+            }
+        });
+
+        this.invalidateCache(id);
 
         this._logger.trace(correlationId, "Updated partially in %s with id = %s", this._tableName, id);
 
@@ -219,4 +592,158 @@ public class IdentifiableJsonMySqlPersistence<T extends IIdentifiable<K>, K> ext
         return newItem;
     }
 
+    private T mergeOnClient(String correlationId, K id, String patch) {
+        var idValue = this.convertIdToDatabase(id);
+
+        // The row stays locked between reading and writing, so concurrent merges do not lose changes
+        var resultMap = this.executeWithRetry(correlationId, () -> {
+            try (var connection = this._pool.getConnection()) {
+                connection.setAutoCommit(false);
+                try {
+                    Object data = null;
+                    try (var stmt = connection.prepareStatement("SELECT `data` FROM " + this.quotedTableName() + " WHERE id=? FOR UPDATE")) {
+                        stmt.setObject(1, idValue);
+                        var rs = stmt.executeQuery();
+                        if (rs.next())
+                            data = rs.getObject(1);
+                    }
+
+                    if (data == null) {
+                        connection.commit();
+                        return null;
+                    }
+
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> document = this.decodeDocument(data, Map.class);
+                    var merged = mergePatch(document, JsonConverter.toMap(patch));
+                    var value = this.encodeDocument(merged);
+
+                    // Columns of indexed paths follow the merged document
+                    var row = new LinkedHashMap<String, Object>();
+                    row.put("data", value);
+                    this.putIndexedValues(row, merged);
+
+                    var query = "UPDATE " + this.quotedTableName() + " SET " + this.generateSetParameters(row) + " WHERE id=?";
+                    try (var stmt = connection.prepareStatement(query)) {
+                        var index = this.setParameters(stmt, this.generateValues(row));
+                        stmt.setObject(index + 1, idValue);
+                        stmt.execute();
+                    }
+
+                    connection.commit();
+                    return "none".equals(this._writeReturnMode) ? null : Map.of("id", idValue, "data", value);
+                } catch (SQLException | RuntimeException ex) {
+                    connection.rollback();
+                    throw ex;
+                }
+            } catch (SQLException | IOException ex) {
+                throw new RuntimeException(ex);
+            }
+        });
+
+        this.invalidateCache(id);
+
+        this._logger.trace(correlationId, "Updated partially in %s with id = %s", this._tableName, id);
+
+        return this.convertToPublic(resultMap);
+    }
+
+    /**
+     * Applies a JSON merge patch the same way as JSON_MERGE_PATCH:
+     * null values remove fields and nested objects are merged recursively.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> mergePatch(Map<String, Object> target, Map<String, Object> patch) {
+        var result = new LinkedHashMap<>(target != null ? target : Map.of());
+        for (var entry : patch.entrySet()) {
+            var value = entry.getValue();
+            if (value == null) {
+                result.remove(entry.getKey());
+            } else if (value instanceof Map) {
+                var current = result.get(entry.getKey());
+                result.put(entry.getKey(), mergePatch(current instanceof Map ? (Map<String, Object>) current : null,
+                        (Map<String, Object>) value));
+            } else {
+                result.put(entry.getKey(), value);
+            }
+        }
+        return result;
+    }
+
+    private static class JsonIndex {
+        private static final String STRING = "(?:'(?:[^'\\\\]|\\\\.|'')*'|\"(?:[^\"\\\\]|\\\\.|\"\")*\")";
+        private static final String NUMBER = "[-+]?\\d+(?:\\.\\d*)?(?:[eE][-+]?\\d+)?";
+        private static final String SCALAR = "(?:\\?|" + STRING + "|" + NUMBER + ")";
+        private static final String COMPARISON = "(?:=|<>|!=|<=|>=|<|>)";
+        private static final String END = "(?=\\s*(?:$|\\)|;|\\b(?:AND|OR|XOR)\\b))";
+        private static final Pattern PRECEDING = Pattern.compile(
+                "(?:^|\\(|\\b(?:AND|OR|XOR|NOT|WHERE))\\s*$", Pattern.CASE_INSENSITIVE);
+        private static final Pattern TEXT_OPERAND = Pattern.compile("\\s*(?:"
+                + COMPARISON + "\\s*" + SCALAR
+                + "|(?:NOT\\s+)?LIKE\\s*(?:\\?|" + STRING + ")"
+                + "|(?:NOT\\s+)?IN\\s*\\(\\s*" + SCALAR + "(?:\\s*,\\s*" + SCALAR + ")*\\s*\\)"
+                + ")" + END, Pattern.CASE_INSENSITIVE);
+
+        private final String path;
+        private final Pattern pattern;
+        private final Pattern jsonOperand;
+        private final String expression;
+        private final String column;
+
+        private JsonIndex(String path, String type, String expression, String column) {
+            this.path = path;
+            this.column = column;
+            this.pattern = Pattern.compile("(?<![\\w.`])(?:"
+                    + "JSON_UNQUOTE\\s*\\(\\s*" + extract(path, 1) + "\\s*\\)"
+                    + "|JSON_UNQUOTE\\s*\\(\\s*" + arrow(path, "->", 2) + "\\s*\\)"
+                    + "|" + arrow(path, "->>", 3)
+                    + "|" + arrow(path, "->", 4)
+                    + "|" + extract(path, 5)
+                    + ")", Pattern.CASE_INSENSITIVE);
+            this.expression = expression;
+
+            // JSON values equal the indexed ones only for literals of the indexed type
+            var upper = type.toUpperCase();
+            var literal = upper.matches("(VAR)?CHAR.*|.*TEXT") ? "|" + STRING
+                    : upper.matches("(TINY|SMALL|MEDIUM|BIG)?INT.*|DECIMAL.*|NUMERIC.*|FLOAT.*|DOUBLE.*|REAL.*")
+                    ? "|" + NUMBER : "";
+            this.jsonOperand = Pattern.compile("\\s*" + COMPARISON + "\\s*(?:\\?" + literal + ")" + END,
+                    Pattern.CASE_INSENSITIVE);
+        }
+
+        /**
+         * Rewrites a read of the path that starts at a position of a filter.
+         *
+         * @param filter   a filter condition.
+         * @param position a position in the filter.
+         * @param result   a builder to append the indexed expression to.
+         * @return the position after the read or -1 when it was not rewritten.
+         */
+        private int rewrite(String filter, int position, StringBuilder result) {
+            var matcher = this.pattern.matcher(filter).region(position, filter.length()).useTransparentBounds(true);
+            if (!matcher.lookingAt() || !PRECEDING.matcher(filter.substring(0, position)).find())
+                return -1;
+
+            var json = matcher.group(4) != null || matcher.group(5) != null;
+            var operand = (json ? this.jsonOperand : TEXT_OPERAND).matcher(filter)
+                    .region(matcher.end(), filter.length()).useTransparentBounds(true);
+            if (!operand.lookingAt())
+                return -1;
+
+            result.append(this.expression);
+            return matcher.end();
+        }
+
+        private static String literal(String path, int group) {
+            return "(['\"])" + Pattern.quote(path) + "\\" + group;
+        }
+
+        private static String extract(String path, int group) {
+            return "JSON_EXTRACT\\s*\\(\\s*`?data`?\\s*,\\s*" + literal(path, group) + "\\s*\\)";
+        }
+
+        private static String arrow(String path, String operator, int group) {
+            return "`?data`?\\s*" + operator + "\\s*" + literal(path, group);
+        }
+    }
 }
@@ -1,18 +1,38 @@
 package org.pipservices3.mysql.persistence;
 
+import org.pipservices3.commons.config.ConfigParams;
 import org.pipservices3.commons.convert.JsonConverter;
 import org.pipservices3.commons.data.AnyValueMap;
 import org.pipservices3.commons.data.IIdentifiable;
+import org.pipservices3.commons.errors.ApplicationException;
+import org.pipservices3.commons.errors.ConfigException;
+import org.pipservices3.commons.errors.InvalidStateException;
 import org.pipservices3.data.IGetter;
 import org.pipservices3.data.ISetter;
 import org.pipservices3.data.IWriter;
 
 import java.io.IOException;
+import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * Abstract persistence component that stores data in MySQL
@@ -44,11 +64,28 @@ import java.util.Map;
  *   - connect_timeout:      (optional) number of milliseconds to wait before timing out when connecting a new client (default: 0)
  *   - idle_timeout:         (optional) number of milliseconds a client must sit idle in the pool and not be checked out (default: 10000)
  *   - max_pool_size:        (optional) maximum number of clients the pool should contain (default: 10)
+ *   - max_lifetime:         (optional) maximum number of milliseconds a client is kept open before it is retired (default: 1800000)
+ *   - acquire_timeout:      (optional) number of milliseconds to wait for a free client before failing (default: 30000)
+ *   - batch_size:           (optional) number of items sent in one JDBC batch (default: 100)
+ *   - cache_size:           (optional) maximum number of items cached by getOneById, 0 to disable the cache (default: 0).
+ *                           Cache misses are read from the primary, so rows from lagging replicas are not cached
+ *   - cache_timeout:        (optional) number of milliseconds items are kept in the cache (default: 60000)
+ *   - load_window:          (optional) number of milliseconds to collect concurrent getOneById calls into one query, 0 to disable (default: 0).
+ *                           Calls inside withPrimaryReads are not collected unless the cache is enabled
+ *   - load_batch_size:      (optional) maximum number of ids collected into one query (default: 100)
+ *   - ids_chunk_size:       (optional) maximum number of ids in one IN(...) clause of getListByIds and deleteByIds (default: 1000)
+ *   - ids_parallelism:      (optional) number of id chunks processed in parallel on separate connections (default: 1)
+ *   - write_return_mode:    (optional) how set and update return items: read (read back after the write), memory (return written values) or none (default: read).
+ *                           In memory mode updatePartially still reads the item back, because only the changed fields are known
+ *   - write_behind_size:    (optional) maximum number of buffered set and update calls, 0 to write immediately (default: 0)
+ *   - write_behind_interval: (optional) number of milliseconds between flushes of buffered writes (default: 1000)
+ *   - write_behind_timeout: (optional) number of milliseconds to wait for space in a full write buffer (default: 30000)
  *  </pre>
  * <p>
  * ### References ###
  * <p>
  * - *:logger:*:*:1.0          (optional) {@link org.pipservices3.components.log.ILogger} components to pass log messages components to pass log messages
+ * - *:counters:*:*:1.0         (optional) {@link org.pipservices3.components.count.ICounters} components to pass collected measurements
  * - *:discovery:*:*:1.0        (optional) {@link org.pipservices3.components.connect.IDiscovery} services
  * - *:credential-store:*:*:1.0 (optional) Credential stores to resolve credentials
  * <p>
@@ -95,7 +132,41 @@ public class IdentifiableMySqlPersistence<T extends IIdentifiable<K>, K> extends
      * Flag to turn on auto generation of object ids.
      */
     protected boolean _autoGenerateId = true;
+    /**
+     * Number of items written in one batch by batch operations.
+     */
+    protected int _batchSize = 100;
+    /**
+     * The cache of items read by id, or null when caching is turned off.
+     */
+    protected EntityCache<K, Map<String, Object>> _cache;
+    /**
+     * The loader that coalesces concurrent reads by id, or null when reads are not coalesced.
+     */
+    protected BatchLoader<K, Map<String, Object>> _loader;
+    /**
+     * Maximum number of ids in one IN(...) clause.
+     */
+    protected int _idsChunkSize = 1000;
+    /**
+     * Number of id chunks processed in parallel.
+     */
+    protected int _idsParallelism = 1;
+    /**
+     * How write operations return items: read, memory or none.
+     */
+    protected String _writeReturnMode = "read";
+    /**
+     * The buffer of pending set and update calls, or null when writes are not buffered.
+     */
+    protected WriteBehindBuffer<K, T> _writeBuffer;
 
+    private long _writeBehindInterval = 1000;
+    private ScheduledExecutorService _flusher;
+    private final Object _flushLock = new Object();
+    private final AtomicBoolean _flushScheduled = new AtomicBoolean();
+
+    private static final int MAX_RANDOM_ATTEMPTS = 3;
 
     /**
      * Creates a new instance of the persistence component.
@@ -111,6 +182,264 @@ public class IdentifiableMySqlPersistence<T extends IIdentifiable<K>, K> extends
         super(documentClass);
     }
 
+    /**
+     * Configures component by passing configuration parameters.
+     *
+     * @param config configuration parameters to be set.
+     */
+    @Override
+    public void configure(ConfigParams config) throws ConfigException {
+        super.configure(config);
+
+        this._batchSize = Math.max(1, config.getAsIntegerWithDefault("options.batch_size", this._batchSize));
+
+        var cacheSize = config.getAsIntegerWithDefault("options.cache_size", 0);
+        var cacheTimeout = config.getAsLongWithDefault("options.cache_timeout", 60000);
+        this._cache = cacheSize > 0 ? new EntityCache<>(cacheSize, cacheTimeout) : null;
+
+        this._writeReturnMode = config.getAsStringWithDefault("options.write_return_mode", this._writeReturnMode);
+        this._idsChunkSize = Math.max(1, config.getAsIntegerWithDefault("options.ids_chunk_size", this._idsChunkSize));
+        this._idsParallelism = Math.max(1, config.getAsIntegerWithDefault("options.ids_parallelism", this._idsParallelism));
+
+        var writeBehindSize = config.getAsIntegerWithDefault("options.write_behind_size", 0);
+        var writeBehindTimeout = config.getAsLongWithDefault("options.write_behind_timeout", 30000);
+        this._writeBehindInterval = config.getAsLongWithDefault("options.write_behind_interval", this._writeBehindInterval);
+        this._writeBuffer = writeBehindSize > 0 ? new WriteBehindBuffer<>(writeBehindSize, writeBehindTimeout) : null;
+
+        var loadWindow = config.getAsLongWithDefault("options.load_window", 0);
+        var loadBatchSize = config.getAsIntegerWithDefault("options.load_batch_size", 100);
+        this._loader = loadWindow > 0 ? new BatchLoader<>(this::loadRowsByIds, loadWindow, loadBatchSize) : null;
+    }
+
+    private Map<K, Map<String, Object>> loadRowsByIds(List<K> ids) {
+        var rows = new HashMap<String, Map<String, Object>>();
+
+        // Loaded rows fill the cache, so they are read from the primary like other cache misses
+        var pool = this._cache != null ? this._pool : this.getReadPool();
+        var loaded = this.executeWithRetry(null, () -> {
+            try (var connection = pool.getConnection()) {
+                return this.readListByIds(connection, ids);
+            } catch (SQLException ex) {
+                throw new RuntimeException(ex);
+            }
+        });
+        for (var row : loaded)
+            rows.put(RandomKeys.toKeyString(row.get("id")), row);
+
+        var result = new HashMap<K, Map<String, Object>>();
+        for (var id : ids) {
+            var row = rows.get(RandomKeys.toKeyString(this.convertIdToDatabase(id)));
+            if (row != null)
+                result.put(id, row);
+        }
+        return result;
+    }
+
+    /**
+     * Opens the component.
+     *
+     * @param correlationId (optional) transaction id to trace execution through call chain.
+     */
+    @Override
+    public void open(String correlationId) throws ApplicationException {
+        super.open(correlationId);
+
+        if (this._writeBuffer != null && this._flusher == null) {
+            this._flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                var thread = new Thread(runnable, "mysql-write-behind-" + this._tableName);
+                thread.setDaemon(true);
+                return thread;
+            });
+            this._flusher.scheduleWithFixedDelay(this::flushInBackground,
+                    this._writeBehindInterval, this._writeBehindInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Closes component and frees used resources. Buffered writes are flushed before closing.
+     *
+     * @param correlationId (optional) transaction id to trace execution through call chain.
+     */
+    @Override
+    public void close(String correlationId) throws ApplicationException {
+        if (this._flusher != null) {
+            this._flusher.shutdown();
+            this._flusher = null;
+        }
+
+        // The connection is released even when buffered writes cannot be flushed
+        try {
+            if (this._writeBuffer != null && this.isOpen())
+                this.flush(correlationId);
+        } finally {
+            super.close(correlationId);
+        }
+    }
+
+    /**
+     * Writes all buffered set and update calls to the database in batches.
+     * It does nothing when writes are not buffered.
+     *
+     * @param correlationId (optional) transaction id to trace execution through call chain.
+     */
+    public void flush(String correlationId) {
+        if (this._writeBuffer == null)
+            return;
+
+        // Buffered writes of other callers must not depend on the outcome of the transaction
+        if (this.isInTransaction() && this._flusher != null) {
+            try {
+                this._flusher.submit(() -> this.flush(correlationId)).get();
+                return;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(ex);
+            } catch (ExecutionException ex) {
+                throw ex.getCause() instanceof RuntimeException cause ? cause : new RuntimeException(ex.getCause());
+            } catch (RejectedExecutionException ex) {
+                // The flusher is stopped while closing, so the caller has no transaction to join
+            }
+        }
+
+        synchronized (this._flushLock) {
+            var entries = this._writeBuffer.drain();
+            if (entries.isEmpty()) {
+                this._writeBuffer.complete();
+                return;
+            }
+
+            var sets = new ArrayList<T>();
+            var updates = new ArrayList<T>();
+            for (var entry : entries.values())
+                (entry.isUpsert() ? sets : updates).add(entry.getItem());
+
+            try {
+                if (!sets.isEmpty())
+                    this.writeSetBatch(sets, false);
+                if (!updates.isEmpty())
+                    this.writeUpdateBatch(updates, false);
+            } catch (RuntimeException ex) {
+                this._writeBuffer.restore();
+                throw ex;
+            } finally {
+                this._counters.last(this._tableName + ".write_behind.depth", this._writeBuffer.size());
+            }
+
+            // Readers fall back to the database only after cached rows are dropped
+            this.invalidateCache(entries.keySet());
+            this._writeBuffer.complete();
+
+            this._counters.increment(this._tableName + ".write_behind.flushed", entries.size());
+            this._logger.trace(correlationId, "Flushed %d buffered writes to %s", entries.size(), this._tableName);
+        }
+    }
+
+    private void flushInBackground() {
+        this._flushScheduled.set(false);
+        try {
+            this.flush(null);
+        } catch (RuntimeException ex) {
+            // Failed writes stay in the buffer and are retried by the next flush
+            this._logger.error(null, ex, "Failed to flush buffered writes to %s", this._tableName);
+        }
+    }
+
+    private T bufferWrite(String correlationId, T item, boolean upsert) {
+        // The caller may keep changing its object, so the buffer holds a copy
+        var copy = this.convertToPublic(this.convertFromPublic(item));
+
+        if (!this._writeBuffer.put(item.getId(), copy, upsert)) {
+            throw new RuntimeException(new InvalidStateException(
+                    null, "WRITE_BUFFER_FULL", "Write-behind buffer of " + this._tableName + " is full"
+            ));
+        }
+
+        var depth = this._writeBuffer.size();
+        this._counters.last(this._tableName + ".write_behind.depth", depth);
+
+        // Flush early when a full batch is waiting
+        if (depth >= this._batchSize && this._flusher != null && this._flushScheduled.compareAndSet(false, true)) {
+            try {
+                this._flusher.execute(this::flushInBackground);
+            } catch (RejectedExecutionException ex) {
+                this._flushScheduled.set(false);
+            }
+        }
+
+        this._logger.trace(correlationId, "Buffered write to %s with id = %s", this._tableName, item.getId());
+
+        return this.returnWritten(item);
+    }
+
+    /**
+     * Writes a buffered write of an item before it is changed directly in the database.
+     *
+     * @param correlationId (optional) transaction id to trace execution through call chain.
+     * @param id            an id of the item.
+     */
+    protected void flushBuffered(String correlationId, K id) {
+        if (this._writeBuffer != null && this._writeBuffer.contains(id))
+            this.flush(correlationId);
+    }
+
+    private void discardBuffered(Iterable<K> ids) {
+        if (this._writeBuffer == null)
+            return;
+
+        // A flush that has taken the items already must not write them after the delete
+        this._writeBuffer.discard(ids);
+    }
+
+    /**
+     * Removes items from the cache after they were changed or deleted.
+     *
+     * @param ids ids of changed items.
+     */
+    protected void invalidateCache(Iterable<K> ids) {
+        if (this._cache == null)
+            return;
+
+        for (var id : ids)
+            this._cache.remove(id);
+
+        // Concurrent readers may cache old rows again until the transaction completes
+        var transaction = this._connection != null ? this._connection.getTransaction() : null;
+        if (transaction != null) {
+            var cache = this._cache;
+            var changed = new ArrayList<K>();
+            ids.forEach(changed::add);
+            transaction.onComplete(() -> changed.forEach(cache::remove));
+        }
+    }
+
+    /**
+     * Removes an item from the cache after it was changed or deleted.
+     *
+     * @param id an id of the changed item.
+     */
+    protected void invalidateCache(K id) {
+        this.invalidateCache(List.of(id));
+    }
+
+    /**
+     * Checks if write operations read items back after writing them.
+     *
+     * @return true when <code>options.write_return_mode</code> is read.
+     */
+    protected boolean isReadAfterWrite() {
+        return !"memory".equals(this._writeReturnMode) && !"none".equals(this._writeReturnMode);
+    }
+
+    /**
+     * Gets the item returned by a write operation that does not read items back.
+     *
+     * @param item the written item.
+     * @return the written item in memory mode or null in none mode.
+     */
+    protected T returnWritten(T item) {
+        return "none".equals(this._writeReturnMode) ? null : item;
+    }
+
     /**
      * Converts the given object from the public partial format.
      *
@@ -121,36 +450,49 @@ public class IdentifiableMySqlPersistence<T extends IIdentifiable<K>, K> extends
         return this.convertFromPublic(value);
     }
 
+    /**
+     * Converts an id into a value bound to statement parameters.
+     * By default ids are bound as strings, the same way they were quoted in SQL literals.
+     *
+     * @param id an id of a data item.
+     * @return the id value to bind.
+     */
+    protected Object convertIdToDatabase(K id) {
+        return id != null ? id.toString() : null;
+    }
+
     /**
      * Gets a list of data items retrieved by given unique ids.
+     * Large lists are read in chunks of <code>options.ids_chunk_size</code> ids.
      *
      * @param correlationId (optional) transaction id to trace execution through call chain.
      * @param ids           ids of data items to be retrieved
-     * @return a list with requested data items.
+     * @return a list with requested data items in the order of the given ids.
      */
     public List<T> getListByIds(String correlationId, List<K> ids) {
-        var params = this.generateParameters(ids);
-        var query = "SELECT * FROM " + this.quotedTableName() + " WHERE id IN(" + params + ")";
-
-        List<T> items = new ArrayList<>();
-        var resultObjects = new ArrayList<Map<String, Object>>();
+        var uniqueIds = new ArrayList<>(new LinkedHashSet<>(ids));
 
-        try (var statement = this._client.createStatement()) {
-            var rs = statement.executeQuery(query);
-
-            // fetch all objects
-            while (rs.next()) {
-                var mapOb = new HashMap<String, Object>();
-                for (int columnIndex = 1; columnIndex <= rs.getMetaData().getColumnCount(); columnIndex++)
-                    mapOb.put(rs.getMetaData().getColumnName(columnIndex), rs.getObject(columnIndex));
-                resultObjects.add(mapOb);
+        var chunks = this.processChunks(uniqueIds, (chunk) -> this.executeWithRetry(correlationId, () -> {
+            try (var connection = this.getReadPool().getConnection()) {
+                return this.readListByIds(connection, chunk);
+            } catch (SQLException ex) {
+                throw new RuntimeException(ex);
             }
+        }));
 
-        } catch (SQLException ex) {
-            throw new RuntimeException(ex);
+        var rows = new HashMap<String, Map<String, Object>>(uniqueIds.size() * 2);
+        for (var chunk : chunks) {
+            for (var row : chunk)
+                rows.put(RandomKeys.toKeyString(row.get("id")), row);
         }
 
-        resultObjects.forEach((item) -> items.add(convertToPublic(item)));
+        // Rows come back in index order, so they are put back into the order of the ids
+        List<T> items = new ArrayList<>(rows.size());
+        for (var id : uniqueIds) {
+            var row = rows.get(RandomKeys.toKeyString(this.convertIdToDatabase(id)));
+            if (row != null)
+                items.add(convertToPublic(row));
+        }
 
         if (!items.isEmpty())
             this._logger.trace(correlationId, "Retrieved %d from %s", items.size(), this._tableName);
@@ -158,6 +500,80 @@ public class IdentifiableMySqlPersistence<T extends IIdentifiable<K>, K> extends
         return items;
     }
 
+    /**
+     * Splits ids into chunks of <code>options.ids_chunk_size</code> and processes them
+     * sequentially or, when <code>options.ids_parallelism</code> is greater than one,
+     * in parallel on other threads.
+     *
+     * @param ids    ids to be processed.
+     * @param action an action that processes a chunk of ids.
+     * @return results of the action in the order of the chunks.
+     */
+    protected <R> List<R> processChunks(List<K> ids, Function<List<K>, R> action) {
+        var chunks = new ArrayList<List<K>>();
+        for (var start = 0; start < ids.size(); start += this._idsChunkSize)
+            chunks.add(ids.subList(start, Math.min(start + this._idsChunkSize, ids.size())));
+
+        var results = new ArrayList<R>(Collections.nCopies(chunks.size(), null));
+        var workers = Math.min(this._idsParallelism, chunks.size());
+
+        // Statements of a transaction have to run on its connection and thread
+        if (workers <= 1 || this.isInTransaction()) {
+            for (var index = 0; index < chunks.size(); index++)
+                results.set(index, action.apply(chunks.get(index)));
+            return results;
+        }
+
+        // Each worker takes every n-th chunk, so no more than n connections are used at once
+        var futures = new ArrayList<CompletableFuture<Void>>(workers);
+        for (var worker = 0; worker < workers; worker++) {
+            var first = worker;
+            futures.add(CompletableFuture.supplyAsync(this.propagateReads(() -> {
+                // Workers write distinct slots, and join() publishes them to the caller
+                for (var index = first; index < chunks.size(); index += workers)
+                    results.set(index, action.apply(chunks.get(index)));
+                return null;
+            }), this.getExecutor()));
+        }
+
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException ex) {
+            throw ex.getCause() instanceof RuntimeException cause ? cause : new RuntimeException(ex.getCause());
+        }
+
+        return results;
+    }
+
+    /**
+     * Reads data items by their ids using an already leased connection.
+     *
+     * @param connection a leased connection.
+     * @param ids        ids of data items to be retrieved.
+     * @return a list of maps with the item columns.
+     */
+    protected List<Map<String, Object>> readListByIds(Connection connection, List<K> ids) throws SQLException {
+        var params = this.generateParameters(ids);
+        var query = this.composeStatement("getListByIds:" + ids.size(), () ->
+                "SELECT * FROM " + this.quotedTableName() + " WHERE id IN(" + params + ")"
+        );
+
+        List<Map<String, Object>> resultObjects;
+
+        try (var statement = connection.prepareStatement(query)) {
+            var index = 0;
+            for (var id : ids)
+                statement.setObject(++index, this.convertIdToDatabase(id));
+
+            var rs = statement.executeQuery();
+
+            // fetch all objects
+            resultObjects = RowMapper.readAll(rs);
+        }
+
+        return resultObjects;
+    }
+
     /**
      * Gets a data item by its unique id.
      *
@@ -167,19 +583,47 @@ public class IdentifiableMySqlPersistence<T extends IIdentifiable<K>, K> extends
      */
     @Override
     public T getOneById(String correlationId, K id) {
-        var query = "SELECT * FROM " + this.quotedTableName() + " WHERE id=" + "'" + id + "'";
-
         T item;
-        var resultMap = new HashMap<String, Object>();
+        Map<String, Object> resultMap = null;
+        long cacheVersion = 0;
 
-        try (var stmt = this._client.createStatement()) {
-            var rs = stmt.executeQuery(query);
+        if (this._writeBuffer != null) {
+            var buffered = this._writeBuffer.get(id);
+            if (buffered != null)
+                return this.convertToPublic(this.convertFromPublic(buffered));
+        }
 
-            if (rs.next())
-                for (int columnIndex = 1; columnIndex <= rs.getMetaData().getColumnCount(); columnIndex++)
-                    resultMap.put(rs.getMetaData().getColumnName(columnIndex), rs.getObject(columnIndex));
-        } catch (SQLException ex) {
-            throw new RuntimeException(ex);
+        // Inside a transaction cached rows may miss its own uncommitted changes
+        var cache = this.isInTransaction() ? null : this._cache;
+        if (cache != null) {
+            resultMap = cache.get(id);
+            this._counters.incrementOne(this._tableName + (resultMap != null ? ".cache.hits" : ".cache.misses"));
+            // Taken before the read, so rows replaced by concurrent writes are not cached
+            cacheVersion = cache.getVersion();
+        }
+
+        if (resultMap == null) {
+            // Batches are read from replicas unless the cache is enabled, so callers
+            // that must read from the primary are not coalesced with them
+            var coalesce = cache != null || !this.isPrimaryReads();
+            if (this._loader != null && !this.isInTransaction() && coalesce) {
+                // Coalesced callers share rows, and each of them converts its own item
+                resultMap = this._loader.load(id);
+                resultMap = resultMap != null ? resultMap : Map.of();
+            } else {
+                // Replicas may lag behind writes that have just invalidated the cache
+                var pool = cache != null ? this._pool : this.getReadPool();
+                resultMap = this.executeWithRetry(correlationId, () -> {
+                    try (var connection = pool.getConnection()) {
+                        return this.readOneById(connection, id);
+                    } catch (SQLException ex) {
+                        throw new RuntimeException(ex);
+                    }
+                });
+            }
+
+            if (cache != null && !resultMap.isEmpty())
+                cache.put(id, resultMap, cacheVersion);
         }
 
         item = this.convertToPublic(resultMap);
@@ -192,6 +636,188 @@ public class IdentifiableMySqlPersistence<T extends IIdentifiable<K>, K> extends
         return item;
     }
 
+    /**
+     * Reads a data item by its id using an already leased connection.
+     *
+     * @param connection a leased connection.
+     * @param id         an id of data item to be retrieved.
+     * @return a map with the item columns, empty when the item was not found.
+     */
+    protected Map<String, Object> readOneById(Connection connection, K id) throws SQLException {
+        var query = this.composeStatement("getOneById", () ->
+                "SELECT * FROM " + this.quotedTableName() + " WHERE id=?"
+        );
+
+        Map<String, Object> resultMap;
+
+        try (var stmt = connection.prepareStatement(query)) {
+            stmt.setObject(1, this.convertIdToDatabase(id));
+            var rs = stmt.executeQuery();
+
+            resultMap = RowMapper.readOne(rs);
+        }
+
+        return resultMap;
+    }
+
+    /**
+     * Gets a random item from items that match to a given filter.
+     * <p>
+     * Instead of counting items and skipping a random number of them, it picks
+     * a random boundary between the smallest and the largest id and seeks the first item
+     * next to it through the primary key index. Items next to larger gaps
+     * in the id space are picked more often.
+     * <p>
+     * See {@link #getManyRandom} for the cost of filtered picks and of ids
+     * that do not form a numeric range.
+     *
+     * @param correlationId (optional) transaction id to trace execution through call chain.
+     * @param filter        (optional) a filter JSON object
+     * @return a random item that satisfies the filter.
+     */
+    @Override
+    protected T getOneRandom(String correlationId, String filter) {
+        var items = this.getManyRandom(correlationId, filter, 1);
+        return items.isEmpty() ? null : items.get(0);
+    }
+
+    /**
+     * Gets a sample of distinct random items from items that match to a given filter.
+     * <p>
+     * All random boundaries are sought in a single query. When some of them land on
+     * already picked items, the missing items are sought again a few times,
+     * so fewer items can be returned when the filter matches only a few.
+     * <p>
+     * The id range is taken from the whole table, which MySQL resolves from the ends
+     * of the primary key index without reading rows. The filter is applied only while
+     * seeking, so each seek walks the index from its boundary to the next matching item:
+     * cheap for broad filters, but up to a full scan per seek for selective filters
+     * on columns that are not indexed together with the id. Such filters are better served
+     * by picking from a narrowed list or by an index that covers the filter.
+     * <p>
+     * Ids that do not form a numeric or hex string range fall back to
+     * <code>ORDER BY RAND()</code>, which reads and sorts every matching row.
+     * <p>
+     * This method shall be called by a public getManyRandom method from child class that
+     * receives FilterParams and converts them into a filter function.
+     *
+     * @param correlationId (optional) transaction id to trace execution through call chain.
+     * @param filter        (optional) a filter JSON object
+     * @param count         a number of items to pick
+     * @return a list with random items that satisfy the filter.
+     */
+    protected List<T> getManyRandom(String correlationId, String filter, int count) {
+        var where = filter != null && !filter.isEmpty() ? " WHERE " + filter : "";
+
+        // Every attempt picks a new sample, so a retried lock conflict starts over
+        var rows = this.executeWithRetry(correlationId, () -> {
+            var picked = new LinkedHashMap<String, Map<String, Object>>();
+
+            try (var connection = this.getReadPool().getConnection()) {
+                Object min = null;
+                Object max = null;
+
+                if (count > 0) {
+                    try (var statement = connection.createStatement()) {
+                        // Without a filter both ends are read from the primary key index
+                        var rs = statement.executeQuery("SELECT MIN(id), MAX(id) FROM " + this.quotedTableName());
+                        if (rs.next()) {
+                            min = rs.getObject(1);
+                            max = rs.getObject(2);
+                        }
+                    }
+                }
+
+                if (min != null && RandomKeys.isSupported(min, max)) {
+                    var from = "(SELECT * FROM " + this.quotedTableName() + (where.isEmpty() ? " WHERE " : where + " AND ");
+                    var seekUp = from + "id>=? ORDER BY id LIMIT 1)";
+                    var seekDown = from + "id<=? ORDER BY id DESC LIMIT 1)";
+
+                    for (var attempt = 0; attempt < MAX_RANDOM_ATTEMPTS && picked.size() < count; attempt++) {
+                        var boundaries = new ArrayList<Object>();
+                        var seeks = new ArrayList<String>();
+                        for (var index = picked.size(); index < count; index++) {
+                            boundaries.add(RandomKeys.nextKey(min, max));
+                            // Seeking in both directions gives the first and the last items a chance too
+                            seeks.add(ThreadLocalRandom.current().nextBoolean() ? seekUp : seekDown);
+                        }
+
+                        var query = String.join(" UNION ALL ", seeks);
+                        try (var statement = connection.prepareStatement(query)) {
+                            this.setParameters(statement, boundaries);
+                            for (var row : RowMapper.readAll(statement.executeQuery()))
+                                picked.putIfAbsent(RandomKeys.toKeyString(row.get("id")), row);
+                        }
+                    }
+
+                    // Fall back to the first item when all boundaries missed the range
+                    if (picked.isEmpty())
+                        this.readRandomRows(connection, "SELECT * FROM " + this.quotedTableName() + where
+                                + " ORDER BY id LIMIT 1", picked);
+                } else if (min != null) {
+                    // Ids without a measurable range are picked by the server at the cost of a full scan and sort
+                    this.readRandomRows(connection, "SELECT * FROM " + this.quotedTableName() + where
+                            + " ORDER BY RAND() LIMIT " + count, picked);
+                }
+            } catch (SQLException ex) {
+                throw new RuntimeException(ex);
+            }
+
+            return picked;
+        });
+
+        var items = new ArrayList<T>(rows.size());
+        rows.values().forEach((row) -> items.add(this.convertToPublic(row)));
+
+        if (items.isEmpty())
+            this._logger.trace(correlationId, "Random item wasn't found from %s", this._tableName);
+        else
+            this._logger.trace(correlationId, "Retrieved %d random items from %s", items.size(), this._tableName);
+
+        return items;
+    }
+
+    private void readRandomRows(Connection connection, String query, Map<String, Map<String, Object>> rows)
+            throws SQLException {
+        try (var statement = connection.createStatement()) {
+            for (var row : RowMapper.readAll(statement.executeQuery(query)))
+                rows.putIfAbsent(RandomKeys.toKeyString(row.get("id")), row);
+        }
+    }
+
+    /**
+     * Assigns a unique id to a data item without id when auto generation of ids is turned on.
+     * The original item is not changed, a copy with the generated id is returned.
+     *
+     * @param item a data item.
+     * @return the item with assigned id.
+     */
+    protected T assignId(T item) {
+        if (item.getId() != null || !this._autoGenerateId)
+            return item;
+
+        T newItem;
+        try {
+            // copy object
+            newItem = JsonConverter.fromJson(_documentClass, JsonConverter.toJson(item));
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+
+        newItem.setId(this.generateId(newItem));
+        return newItem;
+    }
+
+    /**
+     * Generates a new unique id for a data item.
+     *
+     * @param item a data item without id.
+     * @return the generated id.
+     */
+    protected K generateId(T item) {
+        return item.withGeneratedId();
+    }
+
     /**
      * Creates a data item.
      *
@@ -204,21 +830,27 @@ public class IdentifiableMySqlPersistence<T extends IIdentifiable<K>, K> extends
         if (item == null)
             return null;
 
-        // Assign unique id
-        var newItem = item;
-        if (newItem.getId() == null && this._autoGenerateId) {
+        var newItem = this.assignId(item);
 
-            try {
-                // copy object
-                newItem = JsonConverter.fromJson(_documentClass, JsonConverter.toJson(newItem));
-            } catch (IOException ex) {
-                throw new RuntimeException(ex);
-            }
+        newItem = super.create(correlationId, newItem);
+        this.invalidateCache(newItem.getId());
+        return newItem;
+    }
 
-            newItem.setId(newItem.withGeneratedId());
-        }
+    /**
+     * Loads data items with LOAD DATA LOCAL INFILE. Items without ids get generated ids,
+     * and buffered writes are flushed first, so they are not overtaken by the load.
+     *
+     * @param correlationId (optional) transaction id to trace execution through call chain.
+     * @param items         a stream of items to be loaded.
+     * @return the number of loaded rows.
+     */
+    @Override
+    public long bulkLoad(String correlationId, Stream<T> items) {
+        this.flush(correlationId);
 
-        return super.create(correlationId, newItem);
+        // Only new rows are inserted, and the cache holds no entries for missing ids
+        return super.bulkLoad(correlationId, items.map(this::assignId));
     }
 
     /**
@@ -234,47 +866,46 @@ public class IdentifiableMySqlPersistence<T extends IIdentifiable<K>, K> extends
         if (item == null)
             return null;
 
-        // Assign unique id
-        if (item.getId() == null && this._autoGenerateId) {
-            // copy object
-            try {
-                item = JsonConverter.fromJson(_documentClass, JsonConverter.toJson(item));
-            } catch (IOException ex) {
-                throw new RuntimeException(ex);
-            }
+        item = this.assignId(item);
 
-            item.setId(item.withGeneratedId());
+        if (this._writeBuffer != null) {
+            if (!this.isInTransaction())
+                return this.bufferWrite(correlationId, item, true);
+            this.flushBuffered(correlationId, item.getId());
         }
 
         var row = this.convertFromPublic(item);
         var columns = this.generateColumns(row);
-        var params = this.generateParameters(row);
-        var setParams = this.generateSetParameters(row);
+        var values = this.generateValues(row);
 
-        var query = "INSERT INTO " + this.quotedTableName() + " (" + columns + ") VALUES (" + params + ")";
-        query += " ON DUPLICATE KEY UPDATE " + setParams + ";";
+        var query = this.composeStatement("set:" + columns, () ->
+                "INSERT INTO " + this.quotedTableName() + " (" + columns + ") VALUES (" + this.generateParameters(row) + ")"
+                        + " ON DUPLICATE KEY UPDATE " + this.generateSetParameters(row)
+        );
 
         T newItem;
-        var resultMap = new HashMap<String, Object>();
-
-        try (var stmt = this._client.createStatement()) {
-            stmt.execute(query);
-
-            query = "SELECT * FROM " + this.quotedTableName() + " WHERE id=" + "'" + item.getId().toString() + "'";
-
-            var rs = stmt.executeQuery(query);
+        var id = item.getId();
+
+        // Upserts of the same values can be safely repeated
+        var resultMap = this.executeWithRetry(correlationId, () -> {
+            try (var connection = this._pool.getConnection()) {
+                try (var stmt = connection.prepareStatement(query)) {
+                    var index = this.setParameters(stmt, values);
+                    this.setParameters(stmt, values, index);
+                    stmt.execute();
+                }
+
+                return this.isReadAfterWrite() ? this.readOneById(connection, id) : null;
+            } catch (SQLException ex) {
+                throw new RuntimeException(ex);
+            }
+        });
 
-            // fetch results
-            if (rs.next())
-                for (int columnIndex = 1; columnIndex <= rs.getMetaData().getColumnCount(); columnIndex++)
-                    resultMap.put(rs.getMetaData().getColumnName(columnIndex), rs.getObject(columnIndex));
-        } catch (SQLException ex) {
-            throw new RuntimeException(ex);
-        }
+        this.invalidateCache(item.getId());
 
         this._logger.trace(correlationId, "Set in %s with id = %s", this.quotedTableName(), item.getId());
 
-        newItem = this.convertToPublic(resultMap);
+        newItem = this.isReadAfterWrite() ? this.convertToPublic(resultMap) : this.returnWritten(item);
         return newItem;
     }
 
@@ -290,78 +921,297 @@ public class IdentifiableMySqlPersistence<T extends IIdentifiable<K>, K> extends
         if (item == null || item.getId() == null)
             return null;
 
-        var id = "'" + item.getId().toString() + "'";
+        if (this._writeBuffer != null) {
+            if (!this.isInTransaction())
+                return this.bufferWrite(correlationId, item, false);
+            this.flushBuffered(correlationId, item.getId());
+        }
 
         var row = this.convertFromPublic(item);
-        var params = this.generateSetParameters(row);
+        var columns = this.generateColumns(row);
+        var values = this.generateValues(row);
 
-        var query = "UPDATE " + this.quotedTableName() + " SET " + params + " WHERE id=" + id + ";";
+        var query = this.composeStatement("update:" + columns, () ->
+                "UPDATE " + this.quotedTableName() + " SET " + this.generateSetParameters(row) + " WHERE id=?"
+        );
 
         T newItem;
-        var resultMap = new HashMap<String, Object>();
-
-        try (var stmt = this._client.createStatement()) {
-            stmt.execute(query);
-
-            query = "SELECT * FROM " + this.quotedTableName() + " WHERE id=" + id;
-
-            var rs = stmt.executeQuery(query);
-            // fetch all objects
-            if (rs.next())
-                for (int columnIndex = 1; columnIndex <= rs.getMetaData().getColumnCount(); columnIndex++)
-                    resultMap.put(rs.getMetaData().getColumnName(columnIndex), rs.getObject(columnIndex));
+        var count = new int[1];
+
+        var resultMap = this.executeWithRetry(correlationId, () -> {
+            try (var connection = this._pool.getConnection()) {
+                try (var stmt = connection.prepareStatement(query)) {
+                    var index = this.setParameters(stmt, values);
+                    stmt.setObject(index + 1, this.convertIdToDatabase(item.getId()));
+                    count[0] = stmt.executeUpdate();
+                }
+
+                if (this.isReadAfterWrite())
+                    return this.readOneById(connection, item.getId());
+
+                // With useAffectedRows the driver reports zero for items written with the same values,
+                // so only a zero count costs a lookup to tell them from missing items
+                if (count[0] == 0 && !"none".equals(this._writeReturnMode)
+                        && !this.readOneById(connection, item.getId()).isEmpty())
+                    count[0] = 1;
+
+                return null;
+            } catch (SQLException ex) {
+                throw new RuntimeException(ex);
+            }
+        });
 
-        } catch (SQLException ex) {
-            throw new RuntimeException(ex);
-        }
+        this.invalidateCache(item.getId());
 
         this._logger.trace(correlationId, "Updated in %s with id = %s", this._tableName, item.getId());
 
+        if (!this.isReadAfterWrite())
+            return count[0] > 0 ? this.returnWritten(item) : null;
+
         newItem = this.convertToPublic(resultMap);
         return newItem;
     }
 
     /**
      * Updates only few selected fields in a data item.
+     * The updated item is read back unless <code>options.write_return_mode</code> is none.
      *
      * @param correlationId (optional) transaction id to trace execution through call chain.
      * @param id            an id of data item to be updated.
      * @param data          a map with fields to be updated.
-     * @return the updated item.
+     * @return the updated item or null in none mode.
      */
     public T updatePartially(String correlationId, K id, AnyValueMap data) {
         if (data == null || id == null)
             return null;
 
-        String strId = "'" + id.toString() + "'";
-        var row = this.convertFromPublicPartial(data.getAsObject());
-        var params = this.generateSetParameters(row);
+        this.flushBuffered(correlationId, id);
 
-        var query = "UPDATE " + this.quotedTableName() + " SET " + params + " WHERE id=" + strId + ";";
+        var row = this.convertFromPublicPartial(data.getAsObject());
+        var columns = this.generateColumns(row);
+        var values = this.generateValues(row);
 
+        var query = this.composeStatement("update:" + columns, () ->
+                "UPDATE " + this.quotedTableName() + " SET " + this.generateSetParameters(row) + " WHERE id=?"
+        );
 
         T newItem;
-        var resultMap = new HashMap<String, Object>();
 
-        try (var stmt = this._client.createStatement()) {
-            stmt.execute(query);
+        var resultMap = this.executeWithRetry(correlationId, () -> {
+            try (var connection = this._pool.getConnection()) {
+                try (var stmt = connection.prepareStatement(query)) {
+                    var index = this.setParameters(stmt, values);
+                    stmt.setObject(index + 1, this.convertIdToDatabase(id));
+                    stmt.execute();
+                }
+
+                // Only changed fields are known, so the whole item can be returned only after reading it
+                return "none".equals(this._writeReturnMode) ? null : this.readOneById(connection, id);
+            } catch (SQLException ex) {
+                throw new RuntimeException(ex);
+            }
+        });
 
-            query = "SELECT * FROM " + this.quotedTableName() + " WHERE id=" + strId + ";";
-            var rs = stmt.executeQuery(query);
+        this.invalidateCache(id);
 
-            // fetch all objects
-            if (rs.next())
-                for (int columnIndex = 1; columnIndex <= rs.getMetaData().getColumnCount(); columnIndex++)
-                    resultMap.put(rs.getMetaData().getColumnName(columnIndex), rs.getObject(columnIndex));
+        this._logger.trace(correlationId, "Updated partially in %s with id = %s", this._tableName, id);
 
+        newItem = this.convertToPublic(resultMap);
+        return newItem;
+    }
+
+    /**
+     * Creates multiple data items using JDBC batches.
+     * Items are sent in chunks of <code>options.batch_size</code> items and committed together,
+     * so when any item fails no items are written, even inside a transaction.
+     *
+     * @param correlationId (optional) transaction id to trace execution through call chain.
+     * @param items         items to be created.
+     * @return a list of created items in the same order as the given items.
+     */
+    public List<T> createBatch(String correlationId, List<T> items) {
+        if (items == null || items.isEmpty())
+            return new ArrayList<>();
+
+        var newItems = new ArrayList<T>(items.size());
+        for (var item : items)
+            newItems.add(this.assignId(item));
+
+        var results = this.executeBatches(newItems, "create",
+                (row) -> "INSERT INTO " + this.quotedTableName() + " (" + this.generateColumns(row) + ") VALUES ("
+                        + this.generateParameters(row) + ")",
+                (item, values) -> values,
+                false
+        );
+
+        this._logger.trace(correlationId, "Created %d items in %s", newItems.size(), this._tableName);
+
+        return results;
+    }
+
+    /**
+     * Sets multiple data items using JDBC batches. Existing items are updated,
+     * and missing items are created with a multi-row INSERT ... ON DUPLICATE KEY UPDATE (MySQL 8.0.19 or newer).
+     * Items are sent in chunks of <code>options.batch_size</code> items and committed together,
+     * so when any item fails no items are written, even inside a transaction.
+     *
+     * @param correlationId (optional) transaction id to trace execution through call chain.
+     * @param items         items to be set.
+     * @return a list of set items in the same order as the given items.
+     */
+    public List<T> setBatch(String correlationId, List<T> items) {
+        if (items == null || items.isEmpty())
+            return new ArrayList<>();
+
+        var newItems = new ArrayList<T>(items.size());
+        for (var item : items)
+            newItems.add(this.assignId(item));
+
+        var results = this.writeSetBatch(newItems, this.isReadAfterWrite());
+
+        if (!this.isReadAfterWrite())
+            results.replaceAll(this::returnWritten);
+
+        this._logger.trace(correlationId, "Set %d items in %s", newItems.size(), this._tableName);
+
+        return results;
+    }
+
+    private List<T> writeSetBatch(List<T> items, boolean readBack) {
+        return this.executeBatches(items, "setBatch",
+                (row) -> {
+                    // References to the row alias let the driver rewrite the batch into a multi-row statement
+                    var alias = this.quoteIdentifier("new");
+                    var setParams = new StringBuilder();
+                    for (var column : row.keySet()) {
+                        if (setParams.length() > 0) setParams.append(",");
+                        var quoted = this.quoteIdentifier(column);
+                        setParams.append(quoted).append("=").append(alias).append(".").append(quoted);
+                    }
+
+                    return "INSERT INTO " + this.quotedTableName() + " (" + this.generateColumns(row) + ") VALUES ("
+                            + this.generateParameters(row) + ") AS " + alias + " ON DUPLICATE KEY UPDATE " + setParams;
+                },
+                (item, values) -> values,
+                readBack
+        );
+    }
+
+    /**
+     * Updates multiple data items using JDBC batches.
+     * Items are sent in chunks of <code>options.batch_size</code> items and committed together,
+     * so when any item fails no items are written, even inside a transaction.
+     *
+     * @param correlationId (optional) transaction id to trace execution through call chain.
+     * @param items         items to be updated.
+     * @return a list of updated items in the same order as the given items,
+     * with <code>null</code> for items that were not found. Missing items are detected only
+     * when items are read back, see <code>options.write_return_mode</code>.
+     */
+    public List<T> updateBatch(String correlationId, List<T> items) {
+        if (items == null || items.isEmpty())
+            return new ArrayList<>();
+
+        for (var item : items) {
+            if (item == null || item.getId() == null)
+                throw new IllegalArgumentException("Updated items must have ids");
+        }
+
+        var results = this.writeUpdateBatch(items, this.isReadAfterWrite());
+
+        if (!this.isReadAfterWrite())
+            results.replaceAll(this::returnWritten);
+
+        this._logger.trace(correlationId, "Updated %d items in %s", items.size(), this._tableName);
+
+        return results;
+    }
+
+    private List<T> writeUpdateBatch(List<T> items, boolean readBack) {
+        return this.executeBatches(items, "update",
+                (row) -> "UPDATE " + this.quotedTableName() + " SET " + this.generateSetParameters(row) + " WHERE id=?",
+                (item, values) -> {
+                    var params = new ArrayList<>(values);
+                    params.add(this.convertIdToDatabase(item.getId()));
+                    return params;
+                },
+                readBack
+        );
+    }
+
+    private List<T> executeBatches(List<T> items, String operation,
+                                   Function<Map<String, Object>, String> composer,
+                                   BiFunction<T, List<Object>, List<Object>> binder,
+                                   boolean readBack) {
+        var results = new ArrayList<T>(items.size());
+        var rows = new ArrayList<Map<String, Object>>(items.size());
+        for (var item : items)
+            rows.add(this.convertFromPublic(item));
+
+        try (var connection = this._pool.getConnection()) {
+            // Inside a transaction only its owner commits, so a failed batch is undone to a savepoint
+            var savepoint = this.isInTransaction() ? connection.setSavepoint() : null;
+            connection.setAutoCommit(false);
+
+            try {
+                var start = 0;
+                while (start < items.size()) {
+                    var row = rows.get(start);
+                    var columns = this.generateColumns(row);
+
+                    // Collect a chunk of items with the same set of columns
+                    var end = start;
+                    var parameters = new ArrayList<List<Object>>();
+                    while (end < items.size() && parameters.size() < this._batchSize
+                            && (end == start || columns.equals(this.generateColumns(rows.get(end))))) {
+                        parameters.add(binder.apply(items.get(end), this.generateValues(rows.get(end))));
+                        end++;
+                    }
+
+                    var query = this.composeStatement(operation + ":" + columns, () -> composer.apply(row));
+                    this.executeBatch(connection, query, parameters);
+
+                    Map<String, Map<String, Object>> readRows = null;
+                    if (readBack) {
+                        var ids = new ArrayList<K>(end - start);
+                        for (var index = start; index < end; index++)
+                            ids.add(items.get(index).getId());
+
+                        readRows = new HashMap<>();
+                        for (var readRow : this.readListByIds(connection, ids))
+                            readRows.put(RandomKeys.toKeyString(readRow.get("id")), readRow);
+                    }
+
+                    // Items that were not found are returned as nulls
+                    for (var index = start; index < end; index++) {
+                        var item = items.get(index);
+                        if (readRows != null)
+                            results.add(this.convertToPublic(readRows.get(RandomKeys.toKeyString(this.convertIdToDatabase(item.getId())))));
+                        else
+                            results.add(item);
+                    }
+
+                    start = end;
+                }
+
+                if (savepoint != null)
+                    connection.releaseSavepoint(savepoint);
+                connection.commit();
+            } catch (SQLException | RuntimeException ex) {
+                if (savepoint != null)
+                    connection.rollback(savepoint);
+                else
+                    connection.rollback();
+                throw ex;
+            }
         } catch (SQLException ex) {
             throw new RuntimeException(ex);
+        } finally {
+            for (var item : items)
+                this.invalidateCache(item.getId());
         }
 
-        this._logger.trace(correlationId, "Updated partially in %s with id = %s", this._tableName, id);
-
-        newItem = this.convertToPublic(resultMap);
-        return newItem;
+        return results;
     }
 
     /**
@@ -373,25 +1223,28 @@ public class IdentifiableMySqlPersistence<T extends IIdentifiable<K>, K> extends
      */
     @Override
     public T deleteById(String correlationId, K id) {
-        var strId = "'" + id.toString() + "'";
+        this.discardBuffered(List.of(id));
 
-        var query = "SELECT * FROM " + this.quotedTableName() + " WHERE id=" + strId;
-        query += "; DELETE FROM " + this.quotedTableName() + " WHERE id=" + strId;
+        var query = this.composeStatement("deleteById", () ->
+                "DELETE FROM " + this.quotedTableName() + " WHERE id=?"
+        );
 
         T item;
-        var resultMap = new HashMap<String, Object>();
+        Map<String, Object> resultMap;
 
-        try (var stmt = this._client.createStatement()) {
-            var rs = stmt.executeQuery(query);
+        try (var connection = this._pool.getConnection()) {
+            resultMap = this.readOneById(connection, id);
 
-            // fetch all objects
-            if (rs.next())
-                for (int columnIndex = 1; columnIndex <= rs.getMetaData().getColumnCount(); columnIndex++)
-                    resultMap.put(rs.getMetaData().getColumnName(columnIndex), rs.getObject(columnIndex));
+            try (var stmt = connection.prepareStatement(query)) {
+                stmt.setObject(1, this.convertIdToDatabase(id));
+                stmt.execute();
+            }
         } catch (SQLException ex) {
             throw new RuntimeException(ex);
         }
 
+        this.invalidateCache(id);
+
         this._logger.trace(correlationId, "Deleted from %s with id = %s", this._tableName, id);
 
         item = this.convertToPublic(resultMap);
@@ -400,22 +1253,80 @@ public class IdentifiableMySqlPersistence<T extends IIdentifiable<K>, K> extends
 
     /**
      * Deletes multiple data items by their unique ids.
+     * Large lists are deleted in chunks of <code>options.ids_chunk_size</code> ids.
      *
      * @param correlationId (optional) transaction id to trace execution through call chain.
      * @param ids           ids of data items to be deleted.
      */
     public void deleteByIds(String correlationId, List<K> ids) {
-        var params = this.generateParameters(ids);
-        var query = "DELETE FROM " + this.quotedTableName() + " WHERE id IN(" + params + ")";
+        this.discardBuffered(ids);
 
-        var count = 0;
+        var counts = this.processChunks(ids, (chunk) -> {
+            var params = this.generateParameters(chunk);
+            var query = this.composeStatement("deleteByIds:" + chunk.size(), () ->
+                    "DELETE FROM " + this.quotedTableName() + " WHERE id IN(" + params + ")"
+            );
 
-        try (var stmt = this._client.createStatement()) {
-            count = stmt.executeUpdate(query);
-        } catch (SQLException ex) {
-            throw new RuntimeException(ex);
-        }
+            try (var connection = this._pool.getConnection(); var stmt = connection.prepareStatement(query)) {
+                var index = 0;
+                for (var id : chunk)
+                    stmt.setObject(++index, this.convertIdToDatabase(id));
+
+                return stmt.executeUpdate();
+            } catch (SQLException ex) {
+                throw new RuntimeException(ex);
+            }
+        });
+
+        var count = counts.stream().mapToInt(Integer::intValue).sum();
+
+        this.invalidateCache(ids);
 
         this._logger.trace(correlationId, "Deleted %d items from %s", count, this._tableName);
     }
+
+    /**
+     * Deletes data items that match to a given filter.
+     * Cached items are dropped, since the deleted ids are not known.
+     *
+     * @param correlationId (optional) transaction id to trace execution through call chain.
+     * @param filter        (optional) a filter JSON object.
+     */
+    @Override
+    public void deleteByFilter(String correlationId, String filter) {
+        // Buffered items may match the filter, so they are written first
+        this.flush(correlationId);
+
+        super.deleteByFilter(correlationId, filter);
+
+        if (this._cache != null)
+            this._cache.clear();
+    }
+
+    /**
+     * Gets the order in which chunked deletes take rows.
+     * Rows are taken in the primary key order.
+     *
+     * @return the ORDER BY expression.
+     */
+    @Override
+    protected String getDeleteChunkOrder() {
+        return "id";
+    }
+
+    /**
+     * Clears component state.
+     *
+     * @param correlationId (optional) transaction id to trace execution through call chain.
+     */
+    @Override
+    public void clear(String correlationId) {
+        if (this._writeBuffer != null)
+            this._writeBuffer.clear();
+
+        super.clear(correlationId);
+
+        if (this._cache != null)
+            this._cache.clear();
+    }
 }
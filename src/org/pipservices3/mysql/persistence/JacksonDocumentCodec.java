@@ -0,0 +1,59 @@
+package org.pipservices3.mysql.persistence;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+
+import java.io.IOException;
+
+/**
+ * Codec that serializes documents into a binary format with a Jackson object mapper.
+ * <p>
+ * Binary formats store fewer bytes and decode faster than JSON text, but the documents
+ * cannot be read by server-side JSON functions. The mapper is configured like JSON conversion
+ * of documents: unknown properties are ignored and dates are written as text.
+ * Other Jackson formats, such as Smile, can be used by passing their mapper to the constructor.
+ *
+ * @see IDocumentCodec
+ */
+public class JacksonDocumentCodec implements IDocumentCodec {
+
+    private final ObjectMapper _mapper;
+
+    /**
+     * Creates a new instance of the codec.
+     *
+     * @param mapper an object mapper of a binary Jackson format.
+     */
+    public JacksonDocumentCodec(ObjectMapper mapper) {
+        this._mapper = mapper
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+                .configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false)
+                .findAndRegisterModules();
+    }
+
+    /**
+     * Creates a codec for the CBOR format.
+     *
+     * @return a new CBOR codec.
+     */
+    public static JacksonDocumentCodec cbor() {
+        return new JacksonDocumentCodec(new CBORMapper());
+    }
+
+    @Override
+    public boolean isText() {
+        return false;
+    }
+
+    @Override
+    public byte[] encode(Object document) throws IOException {
+        return this._mapper.writeValueAsBytes(document);
+    }
+
+    @Override
+    public <D> D decode(byte[] data, Class<D> type) throws IOException {
+        return this._mapper.readValue(data, type);
+    }
+}
@@ -0,0 +1,29 @@
+package org.pipservices3.mysql.persistence;
+
+import org.pipservices3.commons.convert.JsonConverter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Codec that serializes documents into JSON text with {@link JsonConverter}.
+ *
+ * @see IDocumentCodec
+ */
+public class JsonDocumentCodec implements IDocumentCodec {
+
+    @Override
+    public boolean isText() {
+        return true;
+    }
+
+    @Override
+    public byte[] encode(Object document) throws IOException {
+        return JsonConverter.toJson(document).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public <D> D decode(byte[] data, Class<D> type) throws IOException {
+        return JsonConverter.fromJson(type, new String(data, StandardCharsets.UTF_8));
+    }
+}
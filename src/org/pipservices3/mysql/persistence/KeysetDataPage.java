@@ -0,0 +1,52 @@
+package org.pipservices3.mysql.persistence;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.pipservices3.commons.data.DataPage;
+
+import java.util.List;
+
+/**
+ * Data page returned by keyset (seek) pagination.
+ * <p>
+ * In addition to the page data it carries an opaque continuation token
+ * that shall be passed to the next request to retrieve the following page.
+ * The token is <code>null</code> when there are no more items.
+ *
+ * @see MySqlPersistence#getPageByKeyset
+ */
+public class KeysetDataPage<T> extends DataPage<T> {
+
+    @JsonProperty("token")
+    private String _token;
+
+    /**
+     * Creates a new empty instance of data page.
+     */
+    public KeysetDataPage() {
+    }
+
+    /**
+     * Creates a new instance of data page and assigns its values.
+     *
+     * @param data  a list of items from the retrieved page.
+     * @param token (optional) a continuation token for the next page.
+     * @param total (optional) a total number of objects in the result.
+     */
+    public KeysetDataPage(List<T> data, String token, Long total) {
+        super(data, total);
+        this._token = token;
+    }
+
+    /**
+     * Gets the continuation token to retrieve the next page.
+     *
+     * @return the continuation token or null if this is the last page.
+     */
+    public String getToken() {
+        return _token;
+    }
+
+    public void setToken(String token) {
+        this._token = token;
+    }
+}
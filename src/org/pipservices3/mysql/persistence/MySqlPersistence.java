@@ -1,29 +1,55 @@
 package org.pipservices3.mysql.persistence;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.mysql.cj.jdbc.JdbcStatement;
 import org.pipservices3.commons.config.ConfigParams;
 import org.pipservices3.commons.config.IConfigurable;
 import org.pipservices3.commons.convert.JsonConverter;
 import org.pipservices3.commons.data.DataPage;
 import org.pipservices3.commons.data.PagingParams;
 import org.pipservices3.commons.errors.ApplicationException;
+import org.pipservices3.commons.errors.BadRequestException;
 import org.pipservices3.commons.errors.ConfigException;
 import org.pipservices3.commons.errors.ConnectionException;
 import org.pipservices3.commons.errors.InvalidStateException;
-import org.pipservices3.commons.random.RandomInteger;
 import org.pipservices3.commons.refer.*;
 import org.pipservices3.commons.run.ICleanable;
 import org.pipservices3.commons.run.IOpenable;
+import org.pipservices3.components.count.CompositeCounters;
 import org.pipservices3.components.log.CompositeLogger;
 import org.pipservices3.mysql.connect.MySqlConnection;
+import org.pipservices3.mysql.connect.MySqlConnectionPool;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeSet;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 
 /**
@@ -52,10 +78,27 @@ import java.util.Map;
  *   - connect_timeout:      (optional) number of milliseconds to wait before timing out when connecting a new client (default: 0)
  *   - idle_timeout:         (optional) number of milliseconds a client must sit idle in the pool and not be checked out (default: 10000)
  *   - max_pool_size:        (optional) maximum number of clients the pool should contain (default: 10)
+ *   - max_lifetime:         (optional) maximum number of milliseconds a client is kept open before it is retired (default: 1800000)
+ *   - acquire_timeout:      (optional) number of milliseconds to wait for a free client before failing (default: 30000)
+ *   - direct_mapping:       (optional) map rows directly to document properties instead of converting via JSON (default: true)
+ *   - total_mode:           (optional) how page totals are counted: sequential, parallel, window or estimate (default: sequential)
+ *   - single_flight:        (optional) scope where identical concurrent reads share one execution: none, persistence or connection (default: none)
+ *   - group_commit_window:  (optional) number of microseconds to collect concurrent creates into one transaction, 0 to commit each one (default: 0)
+ *   - group_commit_size:    (optional) maximum number of creates committed in one transaction (default: 100)
+ *   - bulk_load_size:       (optional) number of rows sent and committed by one LOAD DATA statement in bulkLoad (default: 10000)
+ *   - allow_local_infile:   (optional) allow LOAD DATA LOCAL INFILE on connections, required by bulkLoad (default: false)
+ *   - delete_chunk_size:    (optional) maximum number of rows removed by one DELETE in deleteByFilter and clear, 0 for a single DELETE (default: 0)
+ *   - delete_pause:         (optional) number of milliseconds to pause between delete chunks (default: 0)
+ *   - clear_mode:           (optional) how clear removes all rows: delete or truncate (default: delete)
+ *   - retry_attempts:       (optional) number of retries of reads and idempotent writes after a deadlock or lock wait timeout, 0 to disable.
+ *                           All reads are covered, streams retry only opening the cursor (default: 0)
+ *   - retry_delay:          (optional) base number of milliseconds to wait before a retry, doubled with every attempt (default: 50)
+ *   - retry_max_delay:      (optional) maximum number of milliseconds to wait before a retry (default: 1000)
  *
  * ### References ###
  *
  * - *:logger:*:*:1.0           (optional) {@link org.pipservices3.components.log.ILogger} components to pass log messages
+ * - *:counters:*:*:1.0         (optional) {@link org.pipservices3.components.count.ICounters} components to pass collected measurements
  * - *:discovery:*:*:1.0        (optional) {@link org.pipservices3.components.connect.IDiscovery} services
  * - *:credential-store:*:*:1.0 (optional) Credential stores to resolve credentials
  *
@@ -73,16 +116,15 @@ import java.util.Map;
  *
  *     public MyData getByName(String correlationId, String name) {
  *         MyData item;
- *         var resultMap = new HashMap<String, Object>();
+ *         Map<String, Object> resultMap;
  *
- *         var query = "SELECT * FROM " + this.quotedTableName() + " WHERE name=" + "'" + name + "'";
+ *         var query = "SELECT * FROM " + this.quotedTableName() + " WHERE name=?";
  *
- *         try (var stmt = this._client.createStatement()) {
- *             var rs = stmt.executeQuery(query);
+ *         try (var connection = this._pool.getConnection(); var stmt = connection.prepareStatement(query)) {
+ *             stmt.setString(1, name);
+ *             var rs = stmt.executeQuery();
  *
- *             if (rs.next())
- *                 for (int columnIndex = 1; columnIndex <= rs.getMetaData().getColumnCount(); columnIndex++)
- *                     resultMap.put(rs.getMetaData().getColumnName(columnIndex), rs.getObject(columnIndex));
+ *             resultMap = RowMapper.readOne(rs);
  *         } catch (SQLException ex) {
  *             throw new RuntimeException(ex);
  *         }
@@ -100,24 +142,30 @@ import java.util.Map;
  *         var columns = this.generateColumns(row);
  *         var params = this.generateParameters(row);
  *         var setParams = this.generateSetParameters(row);
+ *         var values = this.generateValues(row);
  *
  *         var query = "INSERT INTO " + this.quotedTableName() + " (" + columns + ") VALUES (" + params + ")";
- *         query += " ON DUPLICATE KEY UPDATE " + setParams + ";";
+ *         query += " ON DUPLICATE KEY UPDATE " + setParams;
  *
  *         MyData newItem;
- *         var resultMap = new HashMap<String, Object>();
+ *         Map<String, Object> resultMap;
  *
- *         try (var stmt = this._client.createStatement()) {
- *             stmt.execute(query);
+ *         try (var connection = this._pool.getConnection()) {
+ *             try (var stmt = connection.prepareStatement(query)) {
+ *                 var index = this.setParameters(stmt, values);
+ *                 this.setParameters(stmt, values, index);
+ *                 stmt.execute();
+ *             }
  *
- *             query = "SELECT * FROM " + this.quotedTableName() + " WHERE id=" + "'" + item.getId().toString() + "'";
+ *             query = "SELECT * FROM " + this.quotedTableName() + " WHERE id=?";
  *
- *             var rs = stmt.executeQuery(query);
+ *             try (var stmt = connection.prepareStatement(query)) {
+ *                 stmt.setString(1, item.getId());
+ *                 var rs = stmt.executeQuery();
  *
- *             // fetch results
- *             if (rs.next())
- *                 for (int columnIndex = 1; columnIndex <= rs.getMetaData().getColumnCount(); columnIndex++)
- *                     resultMap.put(rs.getMetaData().getColumnName(columnIndex), rs.getObject(columnIndex));
+ *                 // fetch results
+ *                 resultMap = RowMapper.readOne(rs);
+ *             }
  *         } catch (SQLException ex) {
  *             throw new RuntimeException(ex);
  *         }
@@ -151,11 +199,23 @@ public class MySqlPersistence<T> implements IReferenceable, IUnreferenceable, IC
             // connections.*
             // credential.*
 
-            "options.max_pool_size", 2,
+            "options.max_pool_size", 10,
             "options.keep_alive", 1,
             "options.connect_timeout", 5000,
             "options.auto_reconnect", true,
             "options.max_page_size", 100,
+            "options.direct_mapping", true,
+            "options.total_mode", "sequential",
+            "options.single_flight", "none",
+            "options.group_commit_window", 0,
+            "options.group_commit_size", 100,
+            "options.bulk_load_size", 10000,
+            "options.delete_chunk_size", 0,
+            "options.delete_pause", 0,
+            "options.clear_mode", "delete",
+            "options.retry_attempts", 0,
+            "options.retry_delay", 50,
+            "options.retry_max_delay", 1000,
             "options.debug", true
     );
 
@@ -164,6 +224,30 @@ public class MySqlPersistence<T> implements IReferenceable, IUnreferenceable, IC
     private boolean _opened = false;
     private boolean _localConnection;
     private List<String> _schemaStatements = new ArrayList<>();
+    private final Map<String, String> _statements = new ConcurrentHashMap<>();
+
+    private static final int MAX_CACHED_STATEMENTS = 1000;
+    private static final String TOTAL_COLUMN = "__total";
+
+    private String _totalMode = "sequential";
+    private String _singleFlightScope = "none";
+    private SingleFlight _singleFlight;
+    private long _groupCommitWindow = 0;
+    private int _groupCommitSize = 100;
+    private GroupCommit _groupCommit;
+    private int _bulkLoadSize = 10000;
+    private int _deleteChunkSize = 0;
+    private long _deletePause = 0;
+    private String _clearMode = "delete";
+    private int _retryAttempts = 0;
+    private long _retryDelay = 50;
+    private long _retryMaxDelay = 1000;
+
+    private static final int ER_LOCK_WAIT_TIMEOUT = 1205;
+    private static final int ER_LOCK_DEADLOCK = 1213;
+
+    private static final Map<MySqlConnection, SingleFlight> _connectionFlights = new WeakHashMap<>();
+    private volatile ExecutorService _executor;
 
     /**
      * The dependency resolver.
@@ -173,6 +257,10 @@ public class MySqlPersistence<T> implements IReferenceable, IUnreferenceable, IC
      * The logger.
      */
     protected CompositeLogger _logger = new CompositeLogger();
+    /**
+     * The performance counters.
+     */
+    protected CompositeCounters _counters = new CompositeCounters();
 
     /**
      * The MySQL connection component.
@@ -180,9 +268,13 @@ public class MySqlPersistence<T> implements IReferenceable, IUnreferenceable, IC
     protected MySqlConnection _connection;
 
     /**
-     * The MySQL connection pool object.
+     * The MySQL connection object.
      */
     protected Connection _client;
+    /**
+     * The MySQL connection pool object.
+     */
+    protected MySqlConnectionPool _pool;
     /**
      * The MySQL database name.
      */
@@ -205,6 +297,11 @@ public class MySqlPersistence<T> implements IReferenceable, IUnreferenceable, IC
      */
     protected Class<T> _documentClass;
 
+    /**
+     * The mapper that converts rows directly into documents, or null when JSON conversion is used.
+     */
+    protected DocumentMapper<T> _documentMapper;
+
     /**
      * Creates a new instance of the persistence component.
      *
@@ -215,10 +312,12 @@ public class MySqlPersistence<T> implements IReferenceable, IUnreferenceable, IC
         this._tableName = tableName;
         this._schemaName = schemaName;
         this._documentClass = documentClass;
+        this._documentMapper = DocumentMapper.forClass(documentClass);
     }
 
     public MySqlPersistence(Class<T> documentClass) {
         this._documentClass = documentClass;
+        this._documentMapper = DocumentMapper.forClass(documentClass);
     }
 
     /**
@@ -237,6 +336,21 @@ public class MySqlPersistence<T> implements IReferenceable, IUnreferenceable, IC
         this._tableName = config.getAsStringWithDefault("table", this._tableName);
         this._schemaName = config.getAsStringWithDefault("schema", this._schemaName);
         this._maxPageSize = config.getAsIntegerWithDefault("options.max_page_size", this._maxPageSize);
+
+        this._totalMode = config.getAsStringWithDefault("options.total_mode", this._totalMode);
+        this._singleFlightScope = config.getAsStringWithDefault("options.single_flight", this._singleFlightScope);
+        this._groupCommitWindow = config.getAsLongWithDefault("options.group_commit_window", this._groupCommitWindow);
+        this._groupCommitSize = config.getAsIntegerWithDefault("options.group_commit_size", this._groupCommitSize);
+        this._bulkLoadSize = Math.max(1, config.getAsIntegerWithDefault("options.bulk_load_size", this._bulkLoadSize));
+        this._deleteChunkSize = Math.max(0, config.getAsIntegerWithDefault("options.delete_chunk_size", this._deleteChunkSize));
+        this._deletePause = config.getAsLongWithDefault("options.delete_pause", this._deletePause);
+        this._clearMode = config.getAsStringWithDefault("options.clear_mode", this._clearMode);
+        this._retryAttempts = Math.max(0, config.getAsIntegerWithDefault("options.retry_attempts", this._retryAttempts));
+        this._retryDelay = Math.max(0, config.getAsLongWithDefault("options.retry_delay", this._retryDelay));
+        this._retryMaxDelay = Math.max(0, config.getAsLongWithDefault("options.retry_max_delay", this._retryMaxDelay));
+
+        var directMapping = config.getAsBooleanWithDefault("options.direct_mapping", true);
+        this._documentMapper = directMapping ? DocumentMapper.forClass(this._documentClass) : null;
     }
 
     /**
@@ -248,6 +362,7 @@ public class MySqlPersistence<T> implements IReferenceable, IUnreferenceable, IC
     public void setReferences(IReferences references) throws ReferenceException, ConfigException {
         this._references = references;
         this._logger.setReferences(references);
+        this._counters.setReferences(references);
 
         // Get connection
         this._dependencyResolver.setReferences(references);
@@ -348,10 +463,19 @@ public class MySqlPersistence<T> implements IReferenceable, IUnreferenceable, IC
      * @return converted object in public format.
      */
     protected T convertToPublic(Map<String, Object> value) {
-        try {
-            if (value != null && !value.isEmpty())
-                return JsonConverter.fromJson(_documentClass, JsonConverter.toJson(value));
+        if (value == null || value.isEmpty())
             return null;
+
+        if (this._documentMapper != null) {
+            try {
+                return this._documentMapper.toDocument(value);
+            } catch (IllegalArgumentException ex) {
+                // Fall back to JSON conversion for values the mapper cannot handle
+            }
+        }
+
+        try {
+            return JsonConverter.fromJson(_documentClass, JsonConverter.toJson(value));
         } catch (IOException ex) {
             throw new RuntimeException(ex);
         }
@@ -364,6 +488,9 @@ public class MySqlPersistence<T> implements IReferenceable, IUnreferenceable, IC
      * @return converted object in internal format.
      */
     protected Map<String, Object> convertFromPublic(Object value) {
+        if (value != null && this._documentMapper != null && value.getClass() == this._documentClass)
+            return this._documentMapper.fromDocument(value);
+
         try {
             if (value != null)
                 return JsonConverter.toMap(JsonConverter.toJson(value));
@@ -393,6 +520,62 @@ public class MySqlPersistence<T> implements IReferenceable, IUnreferenceable, IC
         return builder;
     }
 
+    /**
+     * Gets the connection pool for read operations.
+     * When the connection has read replicas, reads are routed to one of them.
+     *
+     * @return the connection pool to read from.
+     */
+    protected MySqlConnectionPool getReadPool() {
+        return this._connection != null ? this._connection.getReadPool() : this._pool;
+    }
+
+    /**
+     * Wraps an action to be run on another thread with the read routing of the calling thread.
+     * Inside {@link #withPrimaryReads} the action reads from the primary as well.
+     *
+     * @param action an action to be wrapped.
+     * @return the wrapped action.
+     */
+    protected <R> Supplier<R> propagateReads(Supplier<R> action) {
+        var connection = this._connection;
+        if (connection == null || !connection.isPrimaryReads())
+            return action;
+        return () -> connection.withPrimaryReads(action);
+    }
+
+    /**
+     * Executes an action with all reads on the current thread routed to the primary.
+     * Use it to read own writes when the connection has read replicas.
+     *
+     * @param action an action to be executed.
+     * @return the result returned by the action.
+     */
+    public <R> R withPrimaryReads(Supplier<R> action) {
+        return this._connection.withPrimaryReads(action);
+    }
+
+    /**
+     * Checks if the current thread runs inside a transaction started on the connection.
+     * Inside a transaction all statements must run on the current thread,
+     * and reads must not be shared with other callers.
+     *
+     * @return true if a transaction is active and false otherwise.
+     */
+    protected boolean isInTransaction() {
+        return this._connection != null && this._connection.isInTransaction();
+    }
+
+    /**
+     * Checks if reads on the current thread are routed to the primary by {@link #withPrimaryReads}.
+     * Such reads must not be shared with callers that read from replicas.
+     *
+     * @return true if reads go to the primary and false otherwise.
+     */
+    protected boolean isPrimaryReads() {
+        return this._connection != null && this._connection.isPrimaryReads();
+    }
+
     /**
      * Checks if the component is opened.
      *
@@ -434,7 +617,11 @@ public class MySqlPersistence<T> implements IReferenceable, IUnreferenceable, IC
         this._opened = false;
 
         this._client = this._connection.getConnection();
+        this._pool = this._connection.getPool();
         this._databaseName = this._connection.getDatabaseName();
+        this._singleFlight = this.createSingleFlight();
+        this._groupCommit = this._groupCommitWindow > 0
+                ? new GroupCommit(this._pool, this._groupCommitWindow, this._groupCommitSize) : null;
 
         // Define database schema
         this.defineSchema();
@@ -449,6 +636,7 @@ public class MySqlPersistence<T> implements IReferenceable, IUnreferenceable, IC
                     this._databaseName, this._tableName);
         } catch (Exception ex) {
             this._client = null;
+            this._pool = null;
             throw new ConnectionException(
                     correlationId,
                     "CONNECT_FAILED",
@@ -477,8 +665,15 @@ public class MySqlPersistence<T> implements IReferenceable, IUnreferenceable, IC
         if (this._localConnection)
             this._connection.close(correlationId);
 
+        if (this._executor != null) {
+            this._executor.shutdown();
+            this._executor = null;
+        }
+
         this._opened = false;
         this._client = null;
+        this._pool = null;
+        this._groupCommit = null;
     }
 
     /**
@@ -497,9 +692,15 @@ public class MySqlPersistence<T> implements IReferenceable, IUnreferenceable, IC
             }
         }
 
-        var query = "DELETE FROM " + this.quotedTableName();
+        // TRUNCATE commits implicitly, so it cannot be used inside a transaction
+        if (!"truncate".equals(this._clearMode) || this.isInTransaction()) {
+            this.executeDelete(correlationId, null);
+            return;
+        }
+
+        var query = "TRUNCATE TABLE " + this.quotedTableName();
 
-        try (var stmt = this._client.createStatement()) {
+        try (var connection = this._pool.getConnection(); var stmt = connection.createStatement()) {
             stmt.execute(query);
         } catch (SQLException e) {
             throw new RuntimeException(e);
@@ -514,7 +715,7 @@ public class MySqlPersistence<T> implements IReferenceable, IUnreferenceable, IC
         // Todo: include schema
         var query = "SHOW TABLES LIKE '" + this._tableName + "'";
 
-        try (var stmt = this._client.createStatement()) {
+        try (var connection = this._pool.getConnection(); var stmt = connection.createStatement()) {
             var rs = stmt.executeQuery(query);
 
             var exist = false;
@@ -562,7 +763,7 @@ public class MySqlPersistence<T> implements IReferenceable, IUnreferenceable, IC
     }
 
     /**
-     * Generates a list of value parameters to use in SQL statements like: "$1,$2,$3"
+     * Generates a list of value parameters to use in SQL statements like: "?,?,?"
      *
      * @param values an array with values or a key-value map
      * @return a generated list of value parameters
@@ -574,16 +775,16 @@ public class MySqlPersistence<T> implements IReferenceable, IUnreferenceable, IC
 
     protected String generateParameters(Iterable<?> values) {
         StringBuilder result = new StringBuilder();
-        for (var value : values) {
-            if (!result.toString().equals("")) result.append(",");
-            result.append("'").append(value).append("'");
+        for (var ignored : values) {
+            if (result.length() > 0) result.append(",");
+            result.append("?");
         }
 
         return result.toString();
     }
 
     /**
-     * Generates a list of column sets to use in UPDATE statements like: column1=$1,column2=$2
+     * Generates a list of column sets to use in UPDATE statements like: column1=?,column2=?
      *
      * @param values a key-value map with columns and values
      * @return a generated list of column sets
@@ -591,13 +792,174 @@ public class MySqlPersistence<T> implements IReferenceable, IUnreferenceable, IC
     protected String generateSetParameters(Map<String, Object> values) {
         StringBuilder result = new StringBuilder();
         for (var column : values.keySet()) {
-            if (!result.toString().equals("")) result.append(",");
-            result.append(this.quoteIdentifier(column)).append("=").append("'").append(values.get(column)).append("'");
+            if (result.length() > 0) result.append(",");
+            result.append(this.quoteIdentifier(column)).append("=?");
         }
 
         return result.toString();
     }
 
+    /**
+     * Generates a list of column parameters to bind to a prepared statement.
+     * Nested objects and arrays are bound as JSON strings.
+     *
+     * @param values a key-value map with columns and values
+     * @return a generated list of values
+     */
+    protected List<Object> generateValues(Map<String, Object> values) {
+        var result = new ArrayList<>(values.size());
+        for (var value : values.values()) {
+            if (value instanceof Map || value instanceof Collection) {
+                try {
+                    value = JsonConverter.toJson(value);
+                } catch (JsonProcessingException ex) {
+                    throw new RuntimeException(ex);
+                }
+            }
+            result.add(value);
+        }
+
+        return result;
+    }
+
+    /**
+     * Binds parameter values to a prepared statement in their order.
+     *
+     * @param statement a prepared statement.
+     * @param values    values to be bound.
+     * @param offset    a number of already bound parameters.
+     * @return the number of bound parameters including the offset.
+     */
+    protected int setParameters(PreparedStatement statement, Iterable<?> values, int offset) throws SQLException {
+        var index = offset;
+        for (var value : values)
+            statement.setObject(++index, value);
+
+        return index;
+    }
+
+    protected int setParameters(PreparedStatement statement, Iterable<?> values) throws SQLException {
+        return this.setParameters(statement, values, 0);
+    }
+
+    /**
+     * Executes a prepared statement as a JDBC batch, one set of parameters per batch entry.
+     *
+     * @param connection a leased connection.
+     * @param query      a SQL text of the statement.
+     * @param parameters a list of parameter values for every batch entry.
+     * @return update counts for every batch entry.
+     */
+    protected int[] executeBatch(Connection connection, String query, List<List<Object>> parameters) throws SQLException {
+        try (var statement = connection.prepareStatement(query)) {
+            for (var values : parameters) {
+                this.setParameters(statement, values);
+                statement.addBatch();
+            }
+
+            return statement.executeBatch();
+        }
+    }
+
+    /**
+     * Executes a read or joins an identical read that is already in flight.
+     * Reads are identical when they come from the same persistence class and table,
+     * have the same SQL text, up to whitespace, the same parameters and go to the same kind
+     * of server, primary or replica. Results are shared between callers and must not be modified,
+     * so the action should return raw rows that every caller copies and converts on its own.
+     * When single-flight reads are turned off, the read is simply executed.
+     *
+     * @param query      a SQL text of the read.
+     * @param parameters parameter values bound to the read.
+     * @param action     the read to execute on the given pool.
+     * @return the result of the read.
+     */
+    protected <R> R executeShared(String query, List<Object> parameters, Function<MySqlConnectionPool, R> action) {
+        // The pool is picked once, so the key names the server that actually executes the read
+        var pool = this.getReadPool();
+
+        // Joined callers share the retries of the read too
+        Supplier<R> retried = () -> this.executeWithRetry(null, () -> action.apply(pool));
+
+        // Uncommitted changes are visible only inside the transaction
+        var singleFlight = this._singleFlight;
+        if (singleFlight == null || this.isInTransaction())
+            return retried.get();
+
+        var key = new StringBuilder(query.length() + 64);
+        key.append(this.getClass().getName()).append(':').append(this._tableName).append(':');
+        key.append(pool == this._pool ? "primary:" : "replica:");
+        appendNormalizedSql(key, query);
+        for (var value : parameters) {
+            key.append('\u0000');
+            if (value instanceof byte[] bytes)
+                key.append("bytes:").append(HexFormat.of().formatHex(bytes));
+            else if (value != null)
+                key.append(value.getClass().getName()).append(':').append(value);
+        }
+
+        var executed = new boolean[1];
+        var result = singleFlight.execute(key.toString(), () -> {
+            executed[0] = true;
+            return retried.get();
+        });
+
+        this._counters.incrementOne(this._tableName + (executed[0] ? ".reads.executed" : ".reads.shared"));
+        return result;
+    }
+
+    private static List<Map<String, Object>> copyRows(List<Map<String, Object>> rows) {
+        // Rows may be shared with concurrent callers, and conversions are free to modify them
+        var copies = new ArrayList<Map<String, Object>>(rows.size());
+        for (var row : rows)
+            copies.add(new LinkedHashMap<>(row));
+        return copies;
+    }
+
+    private static void appendNormalizedSql(StringBuilder builder, String query) {
+        // Collapses whitespace outside of quoted literals and identifiers
+        char quote = 0;
+        var space = false;
+        for (var index = 0; index < query.length(); index++) {
+            var c = query.charAt(index);
+            if (quote != 0) {
+                builder.append(c);
+                if (c == '\\' && index + 1 < query.length())
+                    builder.append(query.charAt(++index));
+                else if (c == quote)
+                    quote = 0;
+            } else if (Character.isWhitespace(c)) {
+                space = true;
+            } else {
+                if (space && builder.length() > 0)
+                    builder.append(' ');
+                space = false;
+                if (c == '\'' || c == '"' || c == '`')
+                    quote = c;
+                builder.append(c);
+            }
+        }
+    }
+
+    /**
+     * Gets SQL text of a statement from the per-table statement cache or composes and caches it.
+     * The key shall uniquely identify the statement, usually an operation name and a set of columns.
+     * Stable statement texts let the driver reuse server-side prepared statements.
+     *
+     * @param key      a unique key of the statement.
+     * @param composer a function to compose the statement when it is not cached.
+     * @return the SQL text of the statement.
+     */
+    protected String composeStatement(String key, Supplier<String> composer) {
+        var statement = this._statements.get(key);
+        if (statement == null) {
+            statement = composer.get();
+            if (this._statements.size() < MAX_CACHED_STATEMENTS)
+                this._statements.put(key, statement);
+        }
+        return statement;
+    }
+
     /**
      * Gets a page of data items retrieved by a given filter and sorted according to sort parameters.
      * <p>
@@ -615,13 +977,26 @@ public class MySqlPersistence<T> implements IReferenceable, IUnreferenceable, IC
                                           String sort, String select) {
 
         select = select != null ? select : "*";
-        var query = "SELECT " + select + " FROM " + this.quotedTableName();
+        var query = "SELECT " + select;
 
         // Adjust max item count based on configuration
         paging = paging != null ? paging : new PagingParams();
         var skip = paging.getSkip(-1);
         var take = paging.getTake(this._maxPageSize);
         var pagingEnabled = paging.hasTotal();
+        var totalMode = pagingEnabled ? this._totalMode : null;
+
+        // Start counting on another pooled connection while the page is read
+        CompletableFuture<Long> total = null;
+        if ("parallel".equals(totalMode) && !this.isInTransaction())
+            total = CompletableFuture.supplyAsync(
+                    this.propagateReads(() -> this.getCountByFilter(correlationId, filter)), this.getExecutor());
+
+        // The window is evaluated before LIMIT, so every row carries the total of all matches
+        if ("window".equals(totalMode))
+            query += ", COUNT(*) OVER() AS " + TOTAL_COLUMN;
+
+        query += " FROM " + this.quotedTableName();
 
         if (filter != null && !filter.isEmpty())
             query += " WHERE " + filter;
@@ -635,50 +1010,370 @@ public class MySqlPersistence<T> implements IReferenceable, IUnreferenceable, IC
             query += " OFFSET " + skip;
 
         List<T> items = new ArrayList<>();
-        var resultObjects = new ArrayList<Map<String, Object>>();
+        PageRows page;
 
-        try (var statement = this._client.createStatement()) {
-            var rs = statement.executeQuery(query);
+        try {
+            var pageQuery = query;
+            page = this.executeShared(pageQuery, List.of(), (pool) -> {
+                List<Map<String, Object>> rows;
+                try (var connection = pool.getConnection(); var statement = connection.createStatement()) {
+                    var rs = statement.executeQuery(pageQuery);
+
+                    // fetch all objects
+                    rows = RowMapper.readAll(rs);
+                } catch (SQLException ex) {
+                    throw new RuntimeException(ex);
+                }
 
-            // fetch all objects
-            while (rs.next()) {
-                var mapOb = new HashMap<String, Object>();
-                for (int columnIndex = 1; columnIndex <= rs.getMetaData().getColumnCount(); columnIndex++)
-                    mapOb.put(rs.getMetaData().getColumnName(columnIndex), rs.getObject(columnIndex));
-                resultObjects.add(mapOb);
-            }
+                // Rows are shared by concurrent callers, so the total is taken out before they see them
+                Long windowTotal = null;
+                if ("window".equals(totalMode)) {
+                    for (var item : rows) {
+                        var value = item.remove(TOTAL_COLUMN);
+                        if (windowTotal == null && value instanceof Number number)
+                            windowTotal = number.longValue();
+                    }
+                }
 
-        } catch (SQLException ex) {
-            throw new RuntimeException(ex);
+                return new PageRows(rows, windowTotal);
+            });
+        } catch (RuntimeException ex) {
+            if (total != null)
+                total.cancel(false);
+            throw ex;
         }
 
+        var resultObjects = copyRows(page.rows);
+        Long count = page.total;
+
         resultObjects.forEach((item) -> items.add(convertToPublic(item)));
 
         if (!items.isEmpty())
             this._logger.trace(correlationId, "Retrieved %d from %s", items.size(), this._tableName);
 
-        if (pagingEnabled) {
-            query = "SELECT COUNT(*) AS count FROM " + this.quotedTableName();
-            if (filter != null && !filter.equals(""))
-                query += " WHERE " + filter;
+        if (!pagingEnabled)
+            return new DataPage<>(items);
+
+        if (total != null) {
+            try {
+                count = total.join();
+            } catch (CompletionException ex) {
+                throw ex.getCause() instanceof RuntimeException cause ? cause : new RuntimeException(ex.getCause());
+            }
+        } else if ("estimate".equals(totalMode)) {
+            count = this.getEstimatedCountByFilter(correlationId, filter);
+        }
 
-            long count = 0;
+        // Pages past the end have no rows to carry the window total
+        if (count == null)
+            count = this.getCountByFilter(correlationId, filter);
 
-            try (var statement = this._client.createStatement()) {
-                var rs = statement.executeQuery(query);
+        return new DataPage<>(items, count);
+    }
 
-                if (rs.next())
-                    count = rs.getLong(1);
+    /**
+     * Gets an estimated number of data items retrieved by a given filter.
+     * <p>
+     * Without a filter the estimate is the table row count from information_schema.
+     * With a filter it is the number of rows MySQL expects to examine according to EXPLAIN.
+     * Both come from table statistics and do not scan the table.
+     *
+     * @param correlationId (optional) transaction id to trace execution through call chain.
+     * @param filter        (optional) a filter JSON object
+     * @return an estimated number of objects that satisfy the filter.
+     */
+    protected long getEstimatedCountByFilter(String correlationId, String filter) {
+        long count = this.executeWithRetry(correlationId, () -> {
+            try (var connection = this.getReadPool().getConnection()) {
+                if (filter == null || filter.isEmpty()) {
+                    var params = new ArrayList<Object>();
+                    var query = "SELECT TABLE_ROWS FROM information_schema.TABLES WHERE " + this.generateTableCondition(params);
+                    try (var statement = connection.prepareStatement(query)) {
+                        this.setParameters(statement, params);
+
+                        var rs = statement.executeQuery();
+                        return rs.next() ? rs.getLong(1) : 0L;
+                    }
+                } else {
+                    var query = "EXPLAIN SELECT * FROM " + this.quotedTableName() + " WHERE " + filter;
+                    try (var statement = connection.createStatement()) {
+                        var rs = statement.executeQuery(query);
+                        return rs.next() ? Math.round(rs.getLong("rows") * rs.getDouble("filtered") / 100) : 0L;
+                    }
+                }
             } catch (SQLException ex) {
                 throw new RuntimeException(ex);
             }
+        });
 
-            return new DataPage<>(items, count);
-        } else {
-            return new DataPage<>(items);
+        this._logger.trace(correlationId, "Estimated %d items in %s", count, this._tableName);
+
+        return count;
+    }
+
+    private SingleFlight createSingleFlight() {
+        switch (this._singleFlightScope) {
+            case "persistence":
+                return new SingleFlight();
+            case "connection":
+                // Persistence components that share a connection share in-flight reads too
+                synchronized (_connectionFlights) {
+                    return _connectionFlights.computeIfAbsent(this._connection, (connection) -> new SingleFlight());
+                }
+            default:
+                return null;
         }
     }
 
+    /**
+     * Executes an operation and repeats it when MySQL fails it with a deadlock or a lock wait timeout.
+     * Retries wait with exponential backoff and full jitter, so competing callers do not collide again.
+     * The operation must be safe to repeat. Inside a transaction it is not retried,
+     * because the server has rolled back the whole transaction and only its owner can repeat it.
+     * All reads of this class go through it. Streams retry only opening the cursor,
+     * since rows already passed to the caller cannot be read again.
+     *
+     * @param correlationId (optional) transaction id to trace execution through call chain.
+     * @param action        the operation to execute.
+     * @return the result of the operation.
+     */
+    protected <R> R executeWithRetry(String correlationId, Supplier<R> action) {
+        if (this._retryAttempts <= 0 || this.isInTransaction())
+            return action.get();
+
+        for (var attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (RuntimeException ex) {
+                if (!this.isRetryable(ex))
+                    throw ex;
+
+                if (attempt > this._retryAttempts) {
+                    this._counters.incrementOne(this._tableName + ".retries.exhausted");
+                    throw ex;
+                }
+
+                var backoff = Math.min(this._retryMaxDelay, this._retryDelay << Math.min(attempt - 1, 30));
+                var delay = backoff > 0 ? ThreadLocalRandom.current().nextLong(backoff + 1) : 0;
+
+                this._counters.incrementOne(this._tableName + ".retries");
+                this._logger.debug(correlationId, "Retrying operation on %s after lock conflict in %d ms, attempt %d",
+                        this._tableName, delay, attempt);
+
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw ex;
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if an error is a deadlock or a lock wait timeout, after which an operation can be repeated.
+     *
+     * @param error an error thrown by an operation.
+     * @return true if the operation can be retried and false otherwise.
+     */
+    protected boolean isRetryable(Throwable error) {
+        for (var cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException ex) {
+                if (ex.getErrorCode() == ER_LOCK_DEADLOCK || ex.getErrorCode() == ER_LOCK_WAIT_TIMEOUT
+                        || "40001".equals(ex.getSQLState()))
+                    return true;
+            }
+            if (cause.getCause() == cause)
+                break;
+        }
+        return false;
+    }
+
+    /**
+     * Executes a small write in its own transaction. When group commit is turned on,
+     * the write shares one transaction and one commit with other writes submitted at the same time,
+     * and a failure of one write does not affect the others.
+     * Inside a transaction started on the connection, the write simply joins it.
+     *
+     * @param write the write to execute.
+     */
+    protected void executeWrite(GroupCommit.Write write) {
+        try {
+            var groupCommit = this._groupCommit;
+            if (groupCommit != null && !this.isInTransaction()) {
+                groupCommit.execute(write);
+                return;
+            }
+
+            try (var connection = this._pool.getConnection()) {
+                write.execute(connection);
+            }
+        } catch (SQLException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Gets the executor for operations that run in parallel on other pooled connections.
+     * It is created on first use and shut down when the component is closed.
+     *
+     * @return the executor service.
+     */
+    protected ExecutorService getExecutor() {
+        var executor = this._executor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = this._executor;
+                if (executor == null) {
+                    executor = Executors.newCachedThreadPool(runnable -> {
+                        var thread = new Thread(runnable, "mysql-" + this._tableName);
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    this._executor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * Gets a page of data items retrieved by a given filter using keyset (seek) pagination.
+     * <p>
+     * Items are sorted by the key columns, and every page starts right after the last key
+     * of the previous page, so deep pages are retrieved as fast as the first one.
+     * The key columns must uniquely identify rows and must be included into the selected columns.
+     * <p>
+     * This method shall be called by a public getPageByKeyset method from child class that
+     * receives FilterParams and converts them into a filter function.
+     *
+     * @param correlationId (optional) transaction id to trace execution through call chain.
+     * @param filter        (optional) a filter JSON object
+     * @param paging        (optional) paging parameters, skip is ignored
+     * @param token         (optional) a continuation token returned with the previous page
+     * @param keys          names of key columns to sort and seek by
+     * @param descending    true to sort by the key columns in descending order
+     * @param select        (optional) projection JSON object
+     * @return a requested data page with a continuation token for the next page.
+     */
+    protected KeysetDataPage<T> getPageByKeyset(String correlationId, String filter, PagingParams paging,
+                                                String token, List<String> keys, boolean descending, String select) {
+        if (keys == null || keys.isEmpty())
+            throw new IllegalArgumentException("Keyset pagination requires at least one key column");
+
+        select = select != null ? select : "*";
+        paging = paging != null ? paging : new PagingParams();
+        var take = paging.getTake(this._maxPageSize);
+        var lastKey = this.decodeKeysetToken(correlationId, token, keys.size());
+
+        var columns = new ArrayList<String>(keys.size());
+        for (var key : keys)
+            columns.add(this.quoteIdentifier(key));
+
+        var query = "SELECT " + select + " FROM " + this.quotedTableName();
+
+        var conditions = new ArrayList<String>();
+        if (filter != null && !filter.isEmpty())
+            conditions.add("(" + filter + ")");
+
+        if (lastKey != null) {
+            // Row constructor comparison lets MySQL seek the index by all key columns at once
+            var operator = descending ? " < " : " > ";
+            if (columns.size() == 1)
+                conditions.add(columns.get(0) + operator + "?");
+            else
+                conditions.add("(" + String.join(",", columns) + ")" + operator + "(" + this.generateParameters(lastKey) + ")");
+        }
+
+        if (!conditions.isEmpty())
+            query += " WHERE " + String.join(" AND ", conditions);
+
+        var direction = descending ? " DESC" : "";
+        query += " ORDER BY " + String.join(direction + ",", columns) + direction;
+
+        // Read one extra row to find out if there is a next page
+        query += " LIMIT " + (take + 1);
+
+        List<Map<String, Object>> resultObjects;
+
+        var keysetQuery = query;
+        resultObjects = this.executeWithRetry(correlationId, () -> {
+            try (var connection = this.getReadPool().getConnection(); var statement = connection.prepareStatement(keysetQuery)) {
+                if (lastKey != null)
+                    this.setParameters(statement, lastKey);
+
+                var rs = statement.executeQuery();
+                return RowMapper.readAll(rs);
+            } catch (SQLException ex) {
+                throw new RuntimeException(ex);
+            }
+        });
+
+        String nextToken = null;
+        if (resultObjects.size() > take) {
+            resultObjects = resultObjects.subList(0, (int) take);
+            nextToken = this.encodeKeysetToken(resultObjects.get(resultObjects.size() - 1), keys);
+        }
+
+        List<T> items = new ArrayList<>(resultObjects.size());
+        resultObjects.forEach((item) -> items.add(convertToPublic(item)));
+
+        if (!items.isEmpty())
+            this._logger.trace(correlationId, "Retrieved %d from %s", items.size(), this._tableName);
+
+        Long total = paging.hasTotal() ? this.getCountByFilter(correlationId, filter) : null;
+        return new KeysetDataPage<>(items, nextToken, total);
+    }
+
+    private String encodeKeysetToken(Map<String, Object> row, List<String> keys) {
+        var values = new ArrayList<Object>(keys.size());
+        for (var key : keys) {
+            if (!row.containsKey(key))
+                throw new IllegalArgumentException("Key column " + key + " is missing in the selected columns");
+
+            var value = row.get(key);
+            if (value instanceof byte[] bytes)
+                value = Map.of("$binary", Base64.getEncoder().encodeToString(bytes));
+            else if (value != null && !(value instanceof Number) && !(value instanceof Boolean))
+                value = value.toString();
+            values.add(value);
+        }
+
+        try {
+            var json = JsonConverter.toJson(values);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+        } catch (JsonProcessingException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private List<Object> decodeKeysetToken(String correlationId, String token, int size) {
+        if (token == null || token.isEmpty())
+            return null;
+
+        List<?> values;
+        try {
+            var json = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            values = JsonConverter.fromJson(List.class, json);
+        } catch (IOException | IllegalArgumentException ex) {
+            values = null;
+        }
+
+        if (values == null || values.size() != size)
+            throw new RuntimeException(
+                    new BadRequestException(correlationId, "INVALID_TOKEN", "Continuation token is invalid")
+                            .withDetails("token", token)
+            );
+
+        var result = new ArrayList<Object>(values.size());
+        for (var value : values) {
+            if (value instanceof Map<?, ?> map && map.get("$binary") instanceof String text)
+                value = Base64.getDecoder().decode(text);
+            result.add(value);
+        }
+        return result;
+    }
+
     /**
      * Gets a number of data items retrieved by a given filter.
      * <p>
@@ -694,16 +1389,15 @@ public class MySqlPersistence<T> implements IReferenceable, IUnreferenceable, IC
         if (filter != null && filter != "")
             query += " WHERE " + filter;
 
-        long count = 0;
-
-        try (var statement = this._client.createStatement()) {
-            var rs = statement.executeQuery(query);
-
-            if (rs.next())
-                count = rs.getLong(1);
-        } catch (SQLException ex) {
-            throw new RuntimeException(ex);
-        }
+        var countQuery = query;
+        long count = this.executeShared(countQuery, List.of(), (pool) -> {
+            try (var connection = pool.getConnection(); var statement = connection.createStatement()) {
+                var rs = statement.executeQuery(countQuery);
+                return rs.next() ? rs.getLong(1) : 0L;
+            } catch (SQLException ex) {
+                throw new RuntimeException(ex);
+            }
+        });
 
         this._logger.trace(correlationId, "Counted %d items in %s", count, this._tableName);
 
@@ -733,24 +1427,20 @@ public class MySqlPersistence<T> implements IReferenceable, IUnreferenceable, IC
             query += " ORDER BY " + sort;
 
         List<T> items = new ArrayList<>();
-        var resultObjects = new ArrayList<Map<String, Object>>();
 
-        try (var statement = this._client.createStatement()) {
-            var rs = statement.executeQuery(query);
+        var listQuery = query;
+        var rows = this.executeShared(listQuery, List.of(), (pool) -> {
+            try (var connection = pool.getConnection(); var statement = connection.createStatement()) {
+                var rs = statement.executeQuery(listQuery);
 
-            // fetch all objects
-            while (rs.next()) {
-                var mapOb = new HashMap<String, Object>();
-                for (int columnIndex = 1; columnIndex <= rs.getMetaData().getColumnCount(); columnIndex++)
-                    mapOb.put(rs.getMetaData().getColumnName(columnIndex), rs.getObject(columnIndex));
-                resultObjects.add(mapOb);
+                // fetch all objects
+                return RowMapper.readAll(rs);
+            } catch (SQLException ex) {
+                throw new RuntimeException(ex);
             }
+        });
 
-        } catch (SQLException ex) {
-            throw new RuntimeException(ex);
-        }
-
-        resultObjects.forEach((item) -> items.add(convertToPublic(item)));
+        copyRows(rows).forEach((item) -> items.add(convertToPublic(item)));
 
         if (!items.isEmpty())
             this._logger.trace(correlationId, "Retrieved %d from %s", items.size(), this._tableName);
@@ -758,9 +1448,106 @@ public class MySqlPersistence<T> implements IReferenceable, IUnreferenceable, IC
         return items;
     }
 
+    /**
+     * Gets a lazy stream of data items retrieved by a given filter and sorted according to sort parameters.
+     * <p>
+     * Rows are streamed from the server one by one and converted only when they are consumed,
+     * so memory use does not depend on the result size. The stream holds a pooled connection
+     * and must be closed, preferably with try-with-resources. Closing the stream early
+     * makes the driver skip the remaining rows of the result.
+     * Inside a transaction the stream uses the transaction connection,
+     * which cannot run other statements until the stream is closed.
+     * <p>
+     * This method shall be called by a public getStreamByFilter method from child class that
+     * receives FilterParams and converts them into a filter function.
+     *
+     * @param correlationId (optional) transaction id to trace execution through call chain.
+     * @param filter        (optional) a filter JSON object
+     * @param sort          (optional) sorting JSON object
+     * @param select        (optional) projection JSON object
+     * @return a stream with requested objects.
+     */
+    protected Stream<T> getStreamByFilter(String correlationId, String filter, String sort, String select) {
+        select = select != null ? select : "*";
+        var query = "SELECT " + select + " FROM " + this.quotedTableName();
+
+        if (filter != null)
+            query += " WHERE " + filter;
+
+        if (sort != null)
+            query += " ORDER BY " + sort;
+
+        // Only opening the cursor is retried, rows already passed to the caller cannot be read again
+        var streamQuery = query;
+        var resources = this.executeWithRetry(correlationId, () -> {
+            Connection connection = null;
+            Statement statement = null;
+            try {
+                connection = this.getReadPool().getConnection();
+                statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                // Makes the driver stream rows instead of reading the whole result into memory
+                statement.setFetchSize(Integer.MIN_VALUE);
+
+                var rs = statement.executeQuery(streamQuery);
+                return new AutoCloseable[]{rs, statement, connection};
+            } catch (SQLException ex) {
+                this.closeResources(new AutoCloseable[]{statement, connection});
+                throw new RuntimeException(ex);
+            }
+        });
+        var rs = (ResultSet) resources[0];
+
+        var rows = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            private RowMapper _mapper;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (!rs.next())
+                        return false;
+
+                    if (this._mapper == null)
+                        this._mapper = new RowMapper(rs);
+
+                    action.accept(convertToPublic(this._mapper.mapRow(rs)));
+                    return true;
+                } catch (SQLException ex) {
+                    throw new RuntimeException(ex);
+                }
+            }
+        };
+
+        this._logger.trace(correlationId, "Streaming items from %s", this._tableName);
+
+        return StreamSupport.stream(rows, false).onClose(() -> this.closeResources(resources));
+    }
+
+    private void closeResources(AutoCloseable[] resources) {
+        RuntimeException error = null;
+        for (var resource : resources) {
+            if (resource == null)
+                continue;
+
+            try {
+                resource.close();
+            } catch (Exception ex) {
+                if (error == null)
+                    error = new RuntimeException(ex);
+            }
+        }
+
+        if (error != null)
+            throw error;
+    }
+
     /**
      * Gets a random item from items that match to a given filter.
      * <p>
+     * This class knows no key to seek by, so it counts matching items and skips
+     * a random number of them. Both queries read up to all matching rows, which
+     * gets expensive on large tables. {@link IdentifiableMySqlPersistence} overrides
+     * this method to seek random boundaries through the primary key index.
+     * <p>
      * This method shall be called by a public getOneRandom method from child class that
      * receives FilterParams and converts them into a filter function.
      *
@@ -774,15 +1561,19 @@ public class MySqlPersistence<T> implements IReferenceable, IUnreferenceable, IC
         if (filter != null)
             query += " WHERE " + filter;
 
-        long count = 0;
-
-        try (var statement = this._client.createStatement()) {
-            var rs = statement.executeQuery(query);
+        var countQuery = query;
+        long count = this.executeWithRetry(correlationId, () -> {
+            try (var connection = this.getReadPool().getConnection(); var statement = connection.createStatement()) {
+                var rs = statement.executeQuery(countQuery);
+                return rs.next() ? rs.getLong(1) : 0L;
+            } catch (SQLException ex) {
+                throw new RuntimeException(ex);
+            }
+        });
 
-            if (rs.next())
-                count = rs.getLong(1);
-        } catch (SQLException ex) {
-            throw new RuntimeException(ex);
+        if (count == 0) {
+            this._logger.trace(correlationId, "Random item wasn't found from %s", this._tableName);
+            return null;
         }
 
         query = "SELECT * FROM " + this.quotedTableName();
@@ -790,25 +1581,22 @@ public class MySqlPersistence<T> implements IReferenceable, IUnreferenceable, IC
         if (filter != null)
             query += " WHERE " + filter;
 
-        var pos = RandomInteger.nextInteger(0, (int) count);
+        var pos = ThreadLocalRandom.current().nextLong(count);
         query += " LIMIT 1" + " OFFSET " + pos;
 
-        T item;
-        var resultMap = new HashMap<String, Object>();
-
-        try (var statement = this._client.createStatement()) {
-            var rs = statement.executeQuery(query);
+        var itemQuery = query;
+        var resultMap = this.executeWithRetry(correlationId, () -> {
+            try (var connection = this.getReadPool().getConnection(); var statement = connection.createStatement()) {
+                var rs = statement.executeQuery(itemQuery);
 
-            // fetch all objects
-            if (rs.next())
-                for (int columnIndex = 1; columnIndex <= rs.getMetaData().getColumnCount(); columnIndex++)
-                    resultMap.put(rs.getMetaData().getColumnName(columnIndex), rs.getObject(columnIndex));
-
-        } catch (SQLException ex) {
-            throw new RuntimeException(ex);
-        }
+                // fetch all objects
+                return RowMapper.readOne(rs);
+            } catch (SQLException ex) {
+                throw new RuntimeException(ex);
+            }
+        });
 
-        item = convertToPublic(resultMap);
+        var item = convertToPublic(resultMap);
 
         if (item == null)
             this._logger.trace(correlationId, "Random item wasn't found from %s", this._tableName);
@@ -831,20 +1619,134 @@ public class MySqlPersistence<T> implements IReferenceable, IUnreferenceable, IC
 
         var row = this.convertFromPublic(item);
         var columns = this.generateColumns(row);
-        var params = this.generateParameters(row);
+        var values = this.generateValues(row);
+
+        var query = this.composeStatement("create:" + columns, () ->
+                "INSERT INTO " + this.quotedTableName() + " (" + columns + ") VALUES (" + this.generateParameters(row) + ")"
+        );
+
+        this.executeWrite((connection) -> {
+            try (var statement = connection.prepareStatement(query)) {
+                this.setParameters(statement, values);
+                statement.execute();
+            }
+        });
+
+        this._logger.trace(correlationId, "Created in %s with id = %s", this.quotedTableName(), row.getOrDefault("id", null));
+
+        return item;
+    }
+
+    /**
+     * Loads data items with LOAD DATA LOCAL INFILE, the fastest way to insert large amounts of rows.
+     * <p>
+     * Items are converted and encoded into tab-separated rows while the driver sends them,
+     * without temporary files or buffering the whole stream. Every <code>options.bulk_load_size</code> rows
+     * are sent by one statement and committed. Columns are taken from the table, except generated ones,
+     * so properties that are missing in some items are loaded as NULL. Values of columns
+     * with binary types are loaded from hex digits.
+     * Rows with keys that already exist are skipped, as LOAD DATA LOCAL does by default.
+     * <p>
+     * The connection must be configured with <code>options.allow_local_infile</code>,
+     * and the server must have local_infile enabled.
+     *
+     * @param correlationId (optional) transaction id to trace execution through call chain.
+     * @param items         a stream of items to be loaded.
+     * @return the number of loaded rows.
+     */
+    public long bulkLoad(String correlationId, Stream<T> items) {
+        var rows = items.map(this::convertFromPublic).iterator();
+        if (!rows.hasNext())
+            return 0;
+
+        long count = 0;
+        try (var connection = this._pool.getConnection()) {
+            // Columns come from the table, since items may skip null properties or have other types in binary columns
+            var columns = new ArrayList<String>();
+            var binaryColumns = new TreeSet<String>(String.CASE_INSENSITIVE_ORDER);
+            this.readLoadColumns(connection, columns, binaryColumns);
+            if (columns.isEmpty()) {
+                throw new RuntimeException(new InvalidStateException(
+                        correlationId, "TABLE_NOT_FOUND", "Columns of table " + this._tableName + " were not found"
+                ));
+            }
+
+            // Binary values come as hex digits and are decoded through user variables
+            var targets = new StringBuilder();
+            var assignments = new StringBuilder();
+            for (var index = 0; index < columns.size(); index++) {
+                var column = this.quoteIdentifier(columns.get(index));
+                if (targets.length() > 0) targets.append(",");
+
+                if (binaryColumns.contains(columns.get(index))) {
+                    targets.append("@c").append(index);
+                    assignments.append(assignments.length() > 0 ? "," : " SET ")
+                            .append(column).append("=UNHEX(@c").append(index).append(")");
+                } else {
+                    targets.append(column);
+                }
+            }
+
+            var query = "LOAD DATA LOCAL INFILE 'stream' INTO TABLE " + this.quotedTableName()
+                    + " CHARACTER SET utf8mb4 FIELDS TERMINATED BY '\\t' ESCAPED BY '\\\\' LINES TERMINATED BY '\\n'"
+                    + " (" + targets + ")" + assignments;
+
+            connection.setAutoCommit(false);
+            try (var statement = connection.createStatement()) {
+                var loader = statement.unwrap(JdbcStatement.class);
 
-        var query = "INSERT INTO " + this.quotedTableName() + " (" + columns + ") VALUES (" + params + ")";
-        //query += "; SELECT * FROM " + this.quotedTableName();
+                while (rows.hasNext()) {
+                    var input = new TsvInputStream(rows, columns, binaryColumns, this._bulkLoadSize);
+                    loader.setLocalInfileInputStream(input);
+                    count += statement.executeUpdate(query);
+                    connection.commit();
 
-        try (var statement = this._client.createStatement()) {
-            statement.execute(query);
+                    this._logger.trace(correlationId, "Loaded %d rows into %s", input.getRowCount(), this._tableName);
+                }
+            } catch (SQLException | RuntimeException ex) {
+                connection.rollback();
+                throw ex;
+            }
         } catch (SQLException ex) {
             throw new RuntimeException(ex);
         }
 
-        this._logger.trace(correlationId, "Created in %s with id = %s", this.quotedTableName(), convertFromPublic(item).getOrDefault("id", null));
+        this._counters.increment(this._tableName + ".bulk_load.rows", (int) Math.min(count, Integer.MAX_VALUE));
+        this._logger.trace(correlationId, "Bulk loaded %d items into %s", count, this._tableName);
 
-        return item;
+        return count;
+    }
+
+    private void readLoadColumns(Connection connection, List<String> columns, Set<String> binaryColumns) throws SQLException {
+        var params = new ArrayList<Object>();
+        var query = "SELECT COLUMN_NAME, DATA_TYPE FROM information_schema.COLUMNS WHERE " + this.generateTableCondition(params)
+                + " AND EXTRA NOT LIKE '%GENERATED%' ORDER BY ORDINAL_POSITION";
+
+        try (var statement = connection.prepareStatement(query)) {
+            this.setParameters(statement, params);
+
+            var rs = statement.executeQuery();
+            while (rs.next()) {
+                var column = rs.getString(1);
+                columns.add(column);
+                if (rs.getString(2).toLowerCase().matches("(var)?binary|(tiny|medium|long)?blob"))
+                    binaryColumns.add(column);
+            }
+        }
+    }
+
+    /**
+     * Generates a condition that selects the table in information_schema views.
+     * Without a configured schema the table is looked up in the current database of the connection.
+     *
+     * @param params a list to add the parameters of the condition to.
+     * @return the generated condition.
+     */
+    private String generateTableCondition(List<Object> params) {
+        if (this._schemaName != null)
+            params.add(this._schemaName);
+        params.add(this._tableName);
+        return "TABLE_SCHEMA=" + (this._schemaName != null ? "?" : "DATABASE()") + " AND TABLE_NAME=?";
     }
 
     /**
@@ -857,21 +1759,82 @@ public class MySqlPersistence<T> implements IReferenceable, IUnreferenceable, IC
      * @param filter        (optional) a filter JSON object.
      */
     public void deleteByFilter(String correlationId, String filter) {
+        var count = this.executeDelete(correlationId, filter);
+
+        this._logger.trace(correlationId, "Deleted %d items from %s", count, this._tableName);
+    }
+
+    /**
+     * Deletes rows that match to a given filter and returns their number.
+     * <p>
+     * When <code>options.delete_chunk_size</code> is set, rows are removed by repeated
+     * DELETE ... LIMIT statements, each in its own transaction, with <code>options.delete_pause</code>
+     * between them. Short statements hold locks only briefly and let replicas keep up.
+     * Chunks are taken in the order of {@link #getDeleteChunkOrder} when it is defined.
+     *
+     * @param correlationId (optional) transaction id to trace execution through call chain.
+     * @param filter        (optional) a filter JSON object.
+     * @return the number of deleted rows.
+     */
+    protected long executeDelete(String correlationId, String filter) {
         var query = "DELETE FROM " + this.quotedTableName();
         if (filter != null)
             query += " WHERE " + filter;
 
+        var chunkSize = this._deleteChunkSize;
+        if (chunkSize > 0) {
+            var order = this.getDeleteChunkOrder();
+            if (order != null)
+                query += " ORDER BY " + order;
+            query += " LIMIT " + chunkSize;
+        }
+
         long count = 0;
 
-        try (var statement = this._client.createStatement()) {
-            var rs = statement.executeQuery(query);
+        try (var connection = this._pool.getConnection(); var statement = connection.createStatement()) {
+            while (true) {
+                var deleted = statement.executeUpdate(query);
+                count += deleted;
 
-            if (rs.next())
-                count = rs.getLong(1);
+                if (chunkSize <= 0 || deleted < chunkSize)
+                    break;
+
+                this._logger.trace(correlationId, "Deleted chunk of %d items from %s", deleted, this._tableName);
+
+                // Locks are held until the end of a transaction, so pausing inside it does not help
+                if (this._deletePause > 0 && !this.isInTransaction())
+                    Thread.sleep(this._deletePause);
+            }
         } catch (SQLException ex) {
             throw new RuntimeException(ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(ex);
         }
 
-        this._logger.trace(correlationId, "Deleted %d items from %s", count, this._tableName);
+        this._counters.increment(this._tableName + ".deleted", (int) Math.min(count, Integer.MAX_VALUE));
+
+        return count;
+    }
+
+    /**
+     * Gets the order in which chunked deletes take rows.
+     * Without an order every chunk may scan and lock rows differently,
+     * and statement-based replicas may delete other rows than the primary.
+     *
+     * @return an ORDER BY expression or null when the table has no known key.
+     */
+    protected String getDeleteChunkOrder() {
+        return null;
+    }
+
+    private static class PageRows {
+        private final List<Map<String, Object>> rows;
+        private final Long total;
+
+        private PageRows(List<Map<String, Object>> rows, Long total) {
+            this.rows = rows;
+            this.total = total;
+        }
     }
 }
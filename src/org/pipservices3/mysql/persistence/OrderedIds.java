@@ -0,0 +1,75 @@
+package org.pipservices3.mysql.persistence;
+
+import java.util.HexFormat;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generates time-ordered unique ids in the UUID version 7 layout and converts them
+ * between 32 hex digits and 16 bytes.
+ * <p>
+ * An id starts with the Unix time in milliseconds followed by a counter, so ids generated
+ * by one process increase monotonically and new rows are appended to the end of the clustered index.
+ * The remaining 62 bits are random. Ids are unique but not unguessable, so they must not be used as secrets.
+ *
+ * @see IdentifiableJsonMySqlPersistence
+ */
+public class OrderedIds {
+
+    private static final HexFormat HEX = HexFormat.of();
+    private static final int MAX_COUNTER = 0xfff;
+
+    private static long _lastTime = 0;
+    private static int _counter = 0;
+
+    /**
+     * Generates a new id.
+     *
+     * @return the id as 32 lowercase hex digits.
+     */
+    public static String next() {
+        long time;
+        int counter;
+
+        synchronized (OrderedIds.class) {
+            time = Math.max(System.currentTimeMillis(), _lastTime);
+            if (time == _lastTime && _counter < MAX_COUNTER) {
+                _counter++;
+            } else {
+                // The counter starts low in every millisecond, so many ids fit into it
+                if (time == _lastTime)
+                    time++;
+                _counter = ThreadLocalRandom.current().nextInt(MAX_COUNTER / 2);
+            }
+            _lastTime = time;
+            counter = _counter;
+        }
+
+        var high = (time << 16) | 0x7000L | counter;
+        var low = (ThreadLocalRandom.current().nextLong() & 0x3fffffffffffffffL) | 0x8000000000000000L;
+
+        return HEX.toHexDigits(high) + HEX.toHexDigits(low);
+    }
+
+    /**
+     * Converts an id from hex digits into 16 bytes.
+     *
+     * @param id an id with 32 hex digits.
+     * @return the id bytes.
+     * @throws IllegalArgumentException when the id is not 32 hex digits.
+     */
+    public static byte[] toBytes(String id) {
+        if (id == null || id.length() != 32)
+            throw new IllegalArgumentException("Id must have 32 hex digits: " + id);
+        return HEX.parseHex(id);
+    }
+
+    /**
+     * Converts an id from 16 bytes into hex digits.
+     *
+     * @param bytes the id bytes.
+     * @return the id as 32 lowercase hex digits.
+     */
+    public static String fromBytes(byte[] bytes) {
+        return bytes != null ? HEX.formatHex(bytes) : null;
+    }
+}
@@ -0,0 +1,173 @@
+package org.pipservices3.mysql.persistence;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.HexFormat;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generates random key boundaries between the smallest and the largest key of a table.
+ * <p>
+ * Integer keys are picked uniformly from their range, decimal keys are interpolated,
+ * and string and binary keys are treated as numbers in the radix of their characters or bytes.
+ */
+class RandomKeys {
+
+    private static final String HEX_LOWER = "0123456789abcdef";
+    private static final String HEX_UPPER = "0123456789ABCDEF";
+    private static final String ALPHANUMERIC = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+    private static final int MAX_STRING_DIGITS = 12;
+
+    private RandomKeys() {
+    }
+
+    /**
+     * Checks if random boundaries can be generated between the keys.
+     *
+     * @param min the smallest key.
+     * @param max the largest key.
+     * @return true if the keys are integers, decimals, strings or binaries of the same kind.
+     */
+    static boolean isSupported(Object min, Object max) {
+        return isInteger(min) && isInteger(max)
+                || min instanceof Number && max instanceof Number
+                || min instanceof String && max instanceof String
+                || min instanceof byte[] && max instanceof byte[];
+    }
+
+    /**
+     * Generates a random key between the smallest and the largest key, both inclusive.
+     *
+     * @param min the smallest key.
+     * @param max the largest key.
+     * @return a random key boundary.
+     */
+    static Object nextKey(Object min, Object max) {
+        if (isInteger(min) && isInteger(max))
+            return nextInteger(toBigInteger(min), toBigInteger(max));
+        if (min instanceof Number low && max instanceof Number high)
+            return nextDecimal(new BigDecimal(low.toString()), new BigDecimal(high.toString()));
+        if (min instanceof String low && max instanceof String high)
+            return nextString(low, high);
+        if (min instanceof byte[] low && max instanceof byte[] high)
+            return nextBinary(low, high);
+
+        throw new IllegalArgumentException("Unsupported key type " + min.getClass().getName());
+    }
+
+    /**
+     * Converts a key into a string that can be used as a map key.
+     *
+     * @param key a key value.
+     * @return a string representation of the key.
+     */
+    static String toKeyString(Object key) {
+        return key instanceof byte[] bytes ? HexFormat.of().formatHex(bytes) : String.valueOf(key);
+    }
+
+    private static boolean isInteger(Object value) {
+        return value instanceof Long || value instanceof Integer || value instanceof Short
+                || value instanceof Byte || value instanceof BigInteger;
+    }
+
+    private static BigInteger toBigInteger(Object value) {
+        return value instanceof BigInteger integer ? integer : BigInteger.valueOf(((Number) value).longValue());
+    }
+
+    private static BigInteger nextInteger(BigInteger min, BigInteger max) {
+        var range = max.subtract(min);
+        if (range.signum() <= 0)
+            return min;
+
+        // Extra bits keep the modulo bias negligible
+        var random = new BigInteger(range.bitLength() + 16, ThreadLocalRandom.current());
+        return min.add(random.mod(range.add(BigInteger.ONE)));
+    }
+
+    private static BigDecimal nextDecimal(BigDecimal min, BigDecimal max) {
+        var fraction = BigDecimal.valueOf(ThreadLocalRandom.current().nextDouble());
+        return min.add(max.subtract(min).multiply(fraction));
+    }
+
+    private static String nextString(String min, String max) {
+        var prefix = 0;
+        while (prefix < min.length() && prefix < max.length() && min.charAt(prefix) == max.charAt(prefix))
+            prefix++;
+
+        var digits = Math.min(Math.max(min.length(), max.length()) - prefix, MAX_STRING_DIGITS);
+        if (digits <= 0)
+            return min;
+
+        var alphabet = alphabetOf(min.substring(prefix) + max.substring(prefix));
+        var radix = BigInteger.valueOf(alphabet.length());
+
+        var value = nextInteger(
+                toNumber(min, prefix, digits, alphabet),
+                toNumber(max, prefix, digits, alphabet)
+        );
+
+        var chars = new char[digits];
+        for (var index = digits - 1; index >= 0; index--) {
+            var remainders = value.divideAndRemainder(radix);
+            chars[index] = alphabet.charAt(remainders[1].intValue());
+            value = remainders[0];
+        }
+
+        return min.substring(0, prefix) + new String(chars);
+    }
+
+    private static String alphabetOf(String text) {
+        if (text.chars().allMatch(c -> HEX_LOWER.indexOf(c) >= 0))
+            return HEX_LOWER;
+        if (text.chars().allMatch(c -> HEX_UPPER.indexOf(c) >= 0))
+            return HEX_UPPER;
+        if (text.chars().allMatch(c -> ALPHANUMERIC.indexOf(c) >= 0))
+            return ALPHANUMERIC;
+
+        // Printable ASCII characters
+        var builder = new StringBuilder();
+        for (var c = ' '; c <= '~'; c++)
+            builder.append(c);
+        return builder.toString();
+    }
+
+    private static BigInteger toNumber(String text, int offset, int digits, String alphabet) {
+        var radix = BigInteger.valueOf(alphabet.length());
+        var value = BigInteger.ZERO;
+
+        for (var index = offset; index < offset + digits; index++) {
+            var digit = 0;
+            if (index < text.length()) {
+                // Characters outside of the alphabet are rounded down to the closest one
+                var c = text.charAt(index);
+                for (var position = alphabet.length() - 1; position >= 0; position--) {
+                    if (alphabet.charAt(position) <= c) {
+                        digit = position;
+                        break;
+                    }
+                }
+            }
+            value = value.multiply(radix).add(BigInteger.valueOf(digit));
+        }
+
+        return value;
+    }
+
+    private static byte[] nextBinary(byte[] min, byte[] max) {
+        var length = Math.max(min.length, max.length);
+        var value = nextInteger(toUnsigned(min, length), toUnsigned(max, length));
+
+        var bytes = value.toByteArray();
+        var result = new byte[length];
+        var count = Math.min(bytes.length, length);
+        System.arraycopy(bytes, bytes.length - count, result, length - count, count);
+        return result;
+    }
+
+    private static BigInteger toUnsigned(byte[] bytes, int length) {
+        // Shorter values are padded on the right as they compare in MySQL
+        var padded = new byte[length];
+        System.arraycopy(bytes, 0, padded, 0, bytes.length);
+        return new BigInteger(1, padded);
+    }
+}
@@ -0,0 +1,103 @@
+package org.pipservices3.mysql.persistence;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps rows of a result set into key-value maps.
+ * <p>
+ * The result set metadata is read only once when the mapper is created.
+ * Column names are interned and reused by all rows, and row maps
+ * are pre-sized for the number of columns.
+ * <p>
+ * ### Example ###
+ * <pre>
+ * {@code
+ * try (var connection = this._pool.getConnection(); var stmt = connection.createStatement()) {
+ *     var rs = stmt.executeQuery(query);
+ *     var rows = RowMapper.readAll(rs);
+ *     ...
+ * }
+ * }
+ * </pre>
+ */
+public class RowMapper {
+
+    private final String[] _columns;
+    private final int _capacity;
+
+    /**
+     * Creates a new instance of the mapper and reads column names from the result set metadata.
+     *
+     * @param rs a result set to be mapped.
+     */
+    public RowMapper(ResultSet rs) throws SQLException {
+        var metaData = rs.getMetaData();
+        var count = metaData.getColumnCount();
+
+        this._columns = new String[count];
+        for (var index = 0; index < count; index++)
+            this._columns[index] = metaData.getColumnLabel(index + 1).intern();
+
+        // Capacity that fits all columns without rehashing
+        this._capacity = (int) (count / 0.75f) + 1;
+    }
+
+    /**
+     * Gets names of the mapped columns.
+     *
+     * @return an array with column names.
+     */
+    public String[] getColumns() {
+        return this._columns;
+    }
+
+    /**
+     * Maps the current row of the result set.
+     *
+     * @param rs a result set positioned at a row.
+     * @return a map with column values.
+     */
+    public Map<String, Object> mapRow(ResultSet rs) throws SQLException {
+        var row = new HashMap<String, Object>(this._capacity);
+        for (var index = 0; index < this._columns.length; index++)
+            row.put(this._columns[index], rs.getObject(index + 1));
+        return row;
+    }
+
+    /**
+     * Reads all remaining rows of a result set.
+     *
+     * @param rs a result set to be read.
+     * @return a list of maps with column values.
+     */
+    public static List<Map<String, Object>> readAll(ResultSet rs) throws SQLException {
+        var rows = new ArrayList<Map<String, Object>>();
+        if (!rs.next())
+            return rows;
+
+        var mapper = new RowMapper(rs);
+        do {
+            rows.add(mapper.mapRow(rs));
+        } while (rs.next());
+
+        return rows;
+    }
+
+    /**
+     * Reads the next row of a result set.
+     *
+     * @param rs a result set to be read.
+     * @return a map with column values or an empty map when there are no more rows.
+     */
+    public static Map<String, Object> readOne(ResultSet rs) throws SQLException {
+        if (!rs.next())
+            return new HashMap<>();
+
+        return new RowMapper(rs).mapRow(rs);
+    }
+}
@@ -0,0 +1,76 @@
+package org.pipservices3.mysql.persistence;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicates identical operations that run at the same time.
+ * <p>
+ * The first caller with a given key executes the operation. Callers that come
+ * with the same key while it is in flight wait for it and receive the same result
+ * or error. Results are not kept after the operation completes,
+ * so every later call executes the operation again.
+ *
+ * @see MySqlPersistence
+ */
+public class SingleFlight {
+
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> _calls = new ConcurrentHashMap<>();
+    private final AtomicLong _executedCount = new AtomicLong();
+    private final AtomicLong _sharedCount = new AtomicLong();
+
+    /**
+     * Executes an operation or joins an identical one that is already in flight.
+     *
+     * @param key    a key that identifies the operation.
+     * @param action the operation to execute.
+     * @return the result of the operation.
+     */
+    @SuppressWarnings("unchecked")
+    public <R> R execute(String key, Supplier<R> action) {
+        var future = new CompletableFuture<Object>();
+        var existing = this._calls.putIfAbsent(key, future);
+
+        if (existing != null) {
+            this._sharedCount.incrementAndGet();
+            try {
+                return (R) existing.join();
+            } catch (CompletionException ex) {
+                throw ex.getCause() instanceof RuntimeException cause ? cause : ex;
+            }
+        }
+
+        this._executedCount.incrementAndGet();
+        try {
+            var result = action.get();
+            future.complete(result);
+            return result;
+        } catch (Throwable ex) {
+            future.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            this._calls.remove(key, future);
+        }
+    }
+
+    /**
+     * Gets the number of operations that were executed.
+     *
+     * @return the number of executed operations.
+     */
+    public long getExecutedCount() {
+        return this._executedCount.get();
+    }
+
+    /**
+     * Gets the number of calls that received the result of an operation already in flight.
+     *
+     * @return the number of saved executions.
+     */
+    public long getSharedCount() {
+        return this._sharedCount.get();
+    }
+}
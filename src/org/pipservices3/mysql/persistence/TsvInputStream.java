@@ -0,0 +1,177 @@
+package org.pipservices3.mysql.persistence;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.pipservices3.commons.convert.JsonConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Input stream that encodes rows into the tab-separated format of LOAD DATA while it is read.
+ * <p>
+ * Rows are taken from the iterator one at a time, so no more than one encoded row
+ * is kept in memory. The stream ends after the given number of rows or when the iterator is exhausted.
+ * Values use the default LOAD DATA escaping: NULL is written as \N, and backslashes,
+ * tabs, line breaks and zero bytes are escaped with a backslash. Values of binary columns are written
+ * as hex digits, which the statement has to decode with UNHEX(), since raw bytes
+ * would have to pass the character set conversion of the text columns.
+ *
+ * @see MySqlPersistence#bulkLoad
+ */
+class TsvInputStream extends InputStream {
+
+    private final Iterator<Map<String, Object>> _rows;
+    private final List<String> _columns;
+    private final Set<String> _binaryColumns;
+    private final int _maxRows;
+    private final ByteArrayOutputStream _buffer = new ByteArrayOutputStream(1024);
+    private byte[] _row = new byte[0];
+    private int _position = 0;
+    private int _rowCount = 0;
+
+    /**
+     * Creates a new instance of the stream.
+     *
+     * @param rows    an iterator over rows to be encoded.
+     * @param columns names of columns in the order they are written.
+     * @param maxRows maximum number of rows to take from the iterator.
+     */
+    TsvInputStream(Iterator<Map<String, Object>> rows, List<String> columns, int maxRows) {
+        this(rows, columns, Set.of(), maxRows);
+    }
+
+    /**
+     * Creates a new instance of the stream that writes values of binary columns as hex digits.
+     *
+     * @param rows          an iterator over rows to be encoded.
+     * @param columns       names of columns in the order they are written.
+     * @param binaryColumns names of columns that are decoded with UNHEX().
+     * @param maxRows       maximum number of rows to take from the iterator.
+     */
+    TsvInputStream(Iterator<Map<String, Object>> rows, List<String> columns, Set<String> binaryColumns, int maxRows) {
+        this._rows = rows;
+        this._columns = columns;
+        this._binaryColumns = binaryColumns;
+        this._maxRows = maxRows;
+    }
+
+    /**
+     * Gets the number of rows taken from the iterator so far.
+     *
+     * @return the number of encoded rows.
+     */
+    int getRowCount() {
+        return this._rowCount;
+    }
+
+    @Override
+    public int read() {
+        if (!this.fill())
+            return -1;
+        return this._row[this._position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) {
+        if (length == 0)
+            return 0;
+        if (!this.fill())
+            return -1;
+
+        var count = Math.min(length, this._row.length - this._position);
+        System.arraycopy(this._row, this._position, buffer, offset, count);
+        this._position += count;
+        return count;
+    }
+
+    private boolean fill() {
+        while (this._position >= this._row.length) {
+            if (this._rowCount >= this._maxRows || !this._rows.hasNext())
+                return false;
+
+            this.encode(this._rows.next());
+            this._rowCount++;
+        }
+        return true;
+    }
+
+    private void encode(Map<String, Object> row) {
+        this._buffer.reset();
+
+        for (var index = 0; index < this._columns.size(); index++) {
+            if (index > 0)
+                this._buffer.write('\t');
+            var column = this._columns.get(index);
+            this.writeValue(row.get(column), this._binaryColumns.contains(column));
+        }
+        this._buffer.write('\n');
+
+        this._row = this._buffer.toByteArray();
+        this._position = 0;
+    }
+
+    private void writeValue(Object value, boolean binary) {
+        if (value == null) {
+            this._buffer.write('\\');
+            this._buffer.write('N');
+            return;
+        }
+
+        if (value instanceof byte[] bytes) {
+            this.writeEscaped(binary ? HexFormat.of().formatHex(bytes).getBytes(StandardCharsets.US_ASCII) : bytes);
+            return;
+        }
+
+        String text;
+        if (value instanceof Boolean flag)
+            text = flag ? "1" : "0";
+        else if (value instanceof BigDecimal decimal)
+            text = decimal.toPlainString();
+        else if (value instanceof Map || value instanceof Collection) {
+            try {
+                text = JsonConverter.toJson(value);
+            } catch (JsonProcessingException ex) {
+                throw new RuntimeException(ex);
+            }
+        } else
+            text = value.toString();
+
+        var bytes = text.getBytes(StandardCharsets.UTF_8);
+        this.writeEscaped(binary ? HexFormat.of().formatHex(bytes).getBytes(StandardCharsets.US_ASCII) : bytes);
+    }
+
+    private void writeEscaped(byte[] bytes) {
+        for (var b : bytes) {
+            switch (b) {
+                case '\\':
+                    this._buffer.write('\\');
+                    break;
+                case '\t':
+                    this._buffer.write('\\');
+                    b = 't';
+                    break;
+                case '\n':
+                    this._buffer.write('\\');
+                    b = 'n';
+                    break;
+                case '\r':
+                    this._buffer.write('\\');
+                    b = 'r';
+                    break;
+                case 0:
+                    this._buffer.write('\\');
+                    b = '0';
+                    break;
+            }
+            this._buffer.write(b);
+        }
+    }
+}
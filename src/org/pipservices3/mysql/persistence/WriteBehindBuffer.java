@@ -0,0 +1,216 @@
+package org.pipservices3.mysql.persistence;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded buffer of pending writes that keeps only the last version of every item.
+ * <p>
+ * Writers block while the buffer is full, unless they replace an item that is already pending.
+ * Drained items stay visible to readers until the flush that took them completes,
+ * so the latest version of an item can always be found either in the buffer or in the database.
+ *
+ * @see IdentifiableMySqlPersistence
+ */
+public class WriteBehindBuffer<K, T> {
+
+    private final int _maxSize;
+    private final long _timeout;
+    private Map<K, Entry<T>> _pending = new LinkedHashMap<>();
+    private Map<K, Entry<T>> _flushing = new LinkedHashMap<>();
+    private CompletableFuture<Void> _flushed = CompletableFuture.completedFuture(null);
+
+    /**
+     * Creates a new instance of the buffer.
+     *
+     * @param maxSize maximum number of pending items.
+     * @param timeout number of milliseconds writers wait for free space before failing.
+     */
+    public WriteBehindBuffer(int maxSize, long timeout) {
+        this._maxSize = Math.max(1, maxSize);
+        this._timeout = timeout;
+    }
+
+    /**
+     * Adds a pending write or replaces the pending write of the same item.
+     *
+     * @param id     an id of the item.
+     * @param item   the item to be written.
+     * @param upsert true if the item shall be created when it does not exist.
+     * @return true if the write was added or false if the buffer stayed full until the timeout.
+     */
+    public synchronized boolean put(K id, T item, boolean upsert) {
+        var deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this._timeout);
+        try {
+            while (!this._pending.containsKey(id) && this._pending.size() >= this._maxSize) {
+                var remaining = deadline - System.nanoTime();
+                if (remaining <= 0)
+                    return false;
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+
+        // A set followed by updates still has to create the item
+        var previous = this._pending.get(id);
+        var entry = new Entry<>(item, upsert || (previous != null && previous.upsert));
+        this._pending.put(id, entry);
+        return true;
+    }
+
+    /**
+     * Gets the latest pending version of an item, including items that are being flushed.
+     *
+     * @param id an id of the item.
+     * @return the pending item or null if there is none.
+     */
+    public synchronized T get(K id) {
+        var entry = this._pending.get(id);
+        if (entry == null)
+            entry = this._flushing.get(id);
+        return entry != null ? entry.item : null;
+    }
+
+    /**
+     * Checks if an item has a pending write or is being flushed.
+     *
+     * @param id an id of the item.
+     * @return true if the item is in the buffer.
+     */
+    public synchronized boolean contains(K id) {
+        return this._pending.containsKey(id) || this._flushing.containsKey(id);
+    }
+
+    /**
+     * Takes all pending writes to flush them. They remain visible to {@link #get}
+     * until {@link #complete} or {@link #restore} is called.
+     *
+     * @return the pending writes in the order they were added.
+     */
+    public synchronized Map<K, Entry<T>> drain() {
+        var drained = this._pending;
+        this._flushing = drained;
+        this._flushed = new CompletableFuture<>();
+        this._pending = new LinkedHashMap<>();
+        this.notifyAll();
+        return drained;
+    }
+
+    /**
+     * Completes a flush of drained writes.
+     */
+    public synchronized void complete() {
+        this._flushing = new LinkedHashMap<>();
+        this._flushed.complete(null);
+    }
+
+    /**
+     * Returns drained writes back to the buffer after a failed flush.
+     * Writes replaced by newer versions in the meantime are dropped,
+     * but the newer versions still create items that the dropped writes would have created.
+     */
+    public synchronized void restore() {
+        var restored = new LinkedHashMap<>(this._flushing);
+        restored.keySet().removeAll(this._pending.keySet());
+        for (var pending : this._pending.entrySet()) {
+            var entry = pending.getValue();
+            var dropped = this._flushing.get(pending.getKey());
+            if (!entry.upsert && dropped != null && dropped.upsert)
+                entry = new Entry<>(entry.item, true);
+            restored.put(pending.getKey(), entry);
+        }
+        this._pending = restored;
+        this._flushing = new LinkedHashMap<>();
+        this._flushed.complete(null);
+    }
+
+    /**
+     * Drops a pending write of an item.
+     *
+     * @param id an id of the item.
+     */
+    public synchronized void remove(K id) {
+        if (this._pending.remove(id) != null)
+            this.notifyAll();
+    }
+
+    /**
+     * Drops pending writes of items and waits for a flush that has already taken some of them,
+     * so when the method returns the items are neither pending nor being written.
+     * Writes returned by a failed flush are dropped as well.
+     *
+     * @param ids ids of the items.
+     */
+    public void discard(Iterable<K> ids) {
+        while (true) {
+            CompletableFuture<Void> flushed;
+
+            synchronized (this) {
+                var flushing = false;
+                for (var id : ids) {
+                    this.remove(id);
+                    flushing = flushing || this._flushing.containsKey(id);
+                }
+
+                if (!flushing)
+                    return;
+                flushed = this._flushed;
+            }
+
+            // Waiting outside of the lock lets the flush complete or restore its writes
+            flushed.join();
+        }
+    }
+
+    /**
+     * Drops all pending writes.
+     */
+    public synchronized void clear() {
+        this._pending.clear();
+        this.notifyAll();
+    }
+
+    /**
+     * Gets the number of pending writes, not counting writes that are being flushed.
+     *
+     * @return the number of pending writes.
+     */
+    public synchronized int size() {
+        return this._pending.size();
+    }
+
+    /**
+     * A pending write.
+     */
+    public static class Entry<T> {
+        private final T item;
+        private final boolean upsert;
+
+        private Entry(T item, boolean upsert) {
+            this.item = item;
+            this.upsert = upsert;
+        }
+
+        /**
+         * Gets the item to be written.
+         *
+         * @return the item.
+         */
+        public T getItem() {
+            return item;
+        }
+
+        /**
+         * Checks if the item shall be created when it does not exist.
+         *
+         * @return true for sets and false for updates.
+         */
+        public boolean isUpsert() {
+            return upsert;
+        }
+    }
+}
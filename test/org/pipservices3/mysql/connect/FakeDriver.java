@@ -0,0 +1,372 @@
+package org.pipservices3.mysql.connect;
+
+import com.mysql.cj.jdbc.JdbcStatement;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.logging.Logger;
+
+/**
+ * JDBC driver for "jdbc:fake:" URIs that creates in-memory connections
+ * and records what was done with them, so the pool can be tested without a database.
+ */
+public class FakeDriver implements Driver {
+
+    private static final FakeDriver _instance = new FakeDriver();
+
+    static {
+        try {
+            DriverManager.registerDriver(_instance);
+        } catch (SQLException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private final List<FakeConnection> _connections = new CopyOnWriteArrayList<>();
+    private final Map<String, ToIntFunction<String>> _updates = new ConcurrentHashMap<>();
+    private final Map<String, Function<String, List<Map<String, Object>>>> _queries = new ConcurrentHashMap<>();
+
+    /**
+     * Gets a unique URI served by the driver.
+     *
+     * @param name a name of the test.
+     * @return the JDBC URI.
+     */
+    public static String uri(String name) {
+        return "jdbc:fake:" + name + ":" + System.nanoTime();
+    }
+
+    /**
+     * Gets physical connections created for a URI.
+     *
+     * @param uri a JDBC URI.
+     * @return the created connections.
+     */
+    public static List<FakeConnection> connections(String uri) {
+        return _instance._connections.stream().filter((c) -> c.uri.equals(uri)).toList();
+    }
+
+    /**
+     * Sets update counts returned by statements of connections to a URI.
+     * By default every update reports one row. The function fails an update
+     * by throwing a RuntimeException with an SQLException as its cause.
+     *
+     * @param uri     a JDBC URI.
+     * @param updates a function that gets an update count for an executed SQL text.
+     */
+    public static void onUpdate(String uri, ToIntFunction<String> updates) {
+        _instance._updates.put(uri, updates);
+    }
+
+    /**
+     * Sets rows returned by queries of connections to a URI.
+     * By default every query returns no rows. The function fails a query
+     * by throwing a RuntimeException with an SQLException as its cause.
+     *
+     * @param uri     a JDBC URI.
+     * @param queries a function that gets rows for an executed SQL text, as maps of column labels to values.
+     */
+    public static void onQuery(String uri, Function<String, List<Map<String, Object>>> queries) {
+        _instance._queries.put(uri, queries);
+    }
+
+    /**
+     * Creates a row returned by queries.
+     *
+     * @param values column labels followed by their values.
+     * @return the row with columns in the given order.
+     */
+    public static Map<String, Object> row(Object... values) {
+        var row = new LinkedHashMap<String, Object>();
+        for (var index = 0; index < values.length; index += 2)
+            row.put((String) values[index], values[index + 1]);
+        return row;
+    }
+
+    @Override
+    public Connection connect(String url, Properties info) {
+        if (!this.acceptsURL(url))
+            return null;
+
+        var connection = new FakeConnection(url);
+        this._connections.add(connection);
+        return connection.proxy;
+    }
+
+    @Override
+    public boolean acceptsURL(String url) {
+        return url != null && url.startsWith("jdbc:fake:");
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+        return new DriverPropertyInfo[0];
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return 1;
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return 0;
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+        return false;
+    }
+
+    @Override
+    public Logger getParentLogger() {
+        return Logger.getGlobal();
+    }
+
+    /**
+     * A physical connection with its recorded state.
+     */
+    public static class FakeConnection {
+        public final String uri;
+        public final Connection proxy;
+        public volatile boolean closed = false;
+        public volatile boolean autoCommit = true;
+        public volatile int commits = 0;
+        public volatile int rollbacks = 0;
+        public volatile int savepoints = 0;
+        public volatile int savepointRollbacks = 0;
+        public final List<String> statements = new CopyOnWriteArrayList<>();
+        public final List<List<Object>> parameters = new CopyOnWriteArrayList<>();
+        public final List<Integer> fetchSizes = new CopyOnWriteArrayList<>();
+        public volatile int openStatements = 0;
+        public volatile int openResultSets = 0;
+        public final List<byte[]> infiles = new CopyOnWriteArrayList<>();
+
+        private FakeConnection(String uri) {
+            this.uri = uri;
+            this.proxy = (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "close": this.closed = true; return null;
+                            case "isClosed": return this.closed;
+                            case "getAutoCommit": return this.autoCommit;
+                            case "setAutoCommit": this.autoCommit = (Boolean) args[0]; return null;
+                            case "commit": this.commits++; return null;
+                            case "rollback":
+                                if (args != null && args.length > 0)
+                                    this.savepointRollbacks++;
+                                else
+                                    this.rollbacks++;
+                                return null;
+                            case "setSavepoint": this.savepoints++; return this.savepoint();
+                            case "createStatement": return this.statement(null);
+                            case "prepareStatement": return this.statement((String) args[0]);
+                            case "equals": return proxy == args[0];
+                            case "hashCode": return System.identityHashCode(proxy);
+                            case "toString": return "Fake connection " + uri;
+                            default: return null;
+                        }
+                    }
+            );
+        }
+
+        private Savepoint savepoint() {
+            return (Savepoint) Proxy.newProxyInstance(
+                    Savepoint.class.getClassLoader(),
+                    new Class<?>[]{Savepoint.class},
+                    (proxy, method, args) -> switch (method.getName()) {
+                        case "equals" -> proxy == args[0];
+                        case "hashCode" -> System.identityHashCode(proxy);
+                        default -> null;
+                    }
+            );
+        }
+
+        private Statement statement(String preparedSql) throws SQLException {
+            if (this.closed)
+                throw new SQLException("Connection is closed");
+
+            var statement = new Statement[1];
+            var resultSet = new ResultSet[]{this.resultSet(statement, List.of())};
+            InputStream[] infile = new InputStream[1];
+            var bound = new TreeMap<Integer, Object>();
+            var batch = new ArrayList<Object>();
+            var batchSize = new int[1];
+            var fetchSize = new int[1];
+            var closed = new boolean[1];
+            this.openStatements++;
+            statement[0] = (Statement) Proxy.newProxyInstance(
+                    FakeDriver.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class, JdbcStatement.class},
+                    (proxy, method, args) -> switch (method.getName()) {
+                        // Real drivers return the physical connection
+                        case "getConnection" -> this.proxy;
+                        case "executeQuery" -> {
+                            var sql = args != null ? (String) args[0] : preparedSql;
+                            this.record(sql, bound.values());
+                            this.fetchSizes.add(fetchSize[0]);
+                            var queries = _instance._queries.get(this.uri);
+                            try {
+                                resultSet[0] = this.resultSet(statement, queries != null ? queries.apply(sql) : List.of());
+                            } catch (RuntimeException ex) {
+                                throw ex.getCause() instanceof SQLException cause ? cause : ex;
+                            }
+                            this.openResultSets++;
+                            yield resultSet[0];
+                        }
+                        case "getResultSet" -> resultSet[0];
+                        case "execute" -> {
+                            this.record(args != null ? (String) args[0] : preparedSql, bound.values());
+                            yield true;
+                        }
+                        case "executeUpdate" -> {
+                            var sql = args != null ? (String) args[0] : preparedSql;
+                            this.record(sql, bound.values());
+                            if (infile[0] != null)
+                                this.infiles.add(readAll(infile[0]));
+                            yield this.update(sql);
+                        }
+                        case "setFetchSize" -> {
+                            fetchSize[0] = (Integer) args[0];
+                            yield null;
+                        }
+                        case "addBatch" -> {
+                            batch.addAll(bound.values());
+                            batchSize[0]++;
+                            yield null;
+                        }
+                        case "executeBatch" -> {
+                            this.record(preparedSql, batch);
+                            batch.clear();
+                            var counts = new int[batchSize[0]];
+                            batchSize[0] = 0;
+                            for (var index = 0; index < counts.length; index++)
+                                counts[index] = this.update(preparedSql);
+                            yield counts;
+                        }
+                        case "setLocalInfileInputStream" -> {
+                            infile[0] = (InputStream) args[0];
+                            yield null;
+                        }
+                        case "close" -> {
+                            if (!closed[0]) {
+                                closed[0] = true;
+                                this.openStatements--;
+                            }
+                            yield null;
+                        }
+                        case "unwrap" -> proxy;
+                        case "isWrapperFor" -> ((Class<?>) args[0]).isInstance(proxy);
+                        case "equals" -> proxy == args[0];
+                        case "hashCode" -> System.identityHashCode(proxy);
+                        default -> {
+                            // Parameters are bound by setters that take an index and a value
+                            if (method.getName().startsWith("set") && args != null && args.length >= 2
+                                    && args[0] instanceof Integer index)
+                                bound.put(index, method.getName().equals("setNull") ? null : args[1]);
+                            yield null;
+                        }
+                    }
+            );
+            return statement[0];
+        }
+
+        private void record(String sql, Collection<Object> parameters) {
+            this.statements.add(sql);
+            this.parameters.add(new ArrayList<>(parameters));
+        }
+
+        private int update(String sql) throws SQLException {
+            var updates = _instance._updates.get(this.uri);
+            try {
+                return updates != null ? updates.applyAsInt(sql) : 1;
+            } catch (RuntimeException ex) {
+                if (ex.getCause() instanceof SQLException cause)
+                    throw cause;
+                throw ex;
+            }
+        }
+
+        private ResultSet resultSet(Statement[] statement, List<Map<String, Object>> rows) {
+            var position = new int[]{-1};
+            var wasNull = new boolean[1];
+            var closed = new boolean[1];
+            var labels = rows.isEmpty() ? List.<String>of() : new ArrayList<>(rows.get(0).keySet());
+            var metaData = (ResultSetMetaData) Proxy.newProxyInstance(
+                    ResultSetMetaData.class.getClassLoader(),
+                    new Class<?>[]{ResultSetMetaData.class},
+                    (proxy, method, args) -> switch (method.getName()) {
+                        case "getColumnCount" -> labels.size();
+                        case "getColumnLabel", "getColumnName" -> labels.get((Integer) args[0] - 1);
+                        default -> null;
+                    }
+            );
+            return (ResultSet) Proxy.newProxyInstance(
+                    ResultSet.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "getStatement": return statement[0];
+                            case "getMetaData": return metaData;
+                            case "next": return ++position[0] < rows.size();
+                            case "wasNull": return wasNull[0];
+                            case "close":
+                                if (!closed[0]) {
+                                    closed[0] = true;
+                                    this.openResultSets--;
+                                }
+                                return null;
+                            case "equals": return proxy == args[0];
+                            case "hashCode": return System.identityHashCode(proxy);
+                        }
+                        if (!method.getName().startsWith("get") || args == null || args.length != 1)
+                            return null;
+
+                        // Columns are read by their index or label
+                        var row = rows.get(position[0]);
+                        var value = args[0] instanceof Integer index ? row.get(labels.get(index - 1)) : row.get(args[0]);
+                        wasNull[0] = value == null;
+                        return switch (method.getName()) {
+                            case "getString" -> value != null ? value.toString() : null;
+                            case "getLong" -> value != null ? ((Number) value).longValue() : 0L;
+                            case "getInt" -> value != null ? ((Number) value).intValue() : 0;
+                            case "getDouble" -> value != null ? ((Number) value).doubleValue() : 0.0;
+                            default -> value;
+                        };
+                    }
+            );
+        }
+
+        private static byte[] readAll(InputStream input) {
+            try (input) {
+                return input.readAllBytes();
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+    }
+}
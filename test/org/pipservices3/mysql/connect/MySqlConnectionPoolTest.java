@@ -0,0 +1,243 @@
+package org.pipservices3.mysql.connect;
+
+import com.mysql.cj.jdbc.JdbcStatement;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class MySqlConnectionPoolTest {
+
+    @Test
+    public void testLeaseAndReturn() throws SQLException {
+        var uri = FakeDriver.uri("lease");
+        var pool = new MySqlConnectionPool(uri, 2, 0, 0, 1000);
+
+        var connection = pool.getConnection();
+        assertEquals(1, pool.getActiveCount());
+        connection.close();
+        assertEquals(0, pool.getActiveCount());
+        assertEquals(1, pool.getIdleCount());
+
+        // The idle connection is reused and calls on a returned lease fail
+        var next = pool.getConnection();
+        assertEquals(1, FakeDriver.connections(uri).size());
+        assertThrows(SQLException.class, connection::createStatement);
+        next.close();
+
+        pool.close();
+        assertTrue(FakeDriver.connections(uri).get(0).closed);
+    }
+
+    @Test
+    public void testRollbackOnReturn() throws SQLException {
+        var uri = FakeDriver.uri("rollback");
+        var pool = new MySqlConnectionPool(uri, 1, 0, 0, 1000);
+
+        var connection = pool.getConnection();
+        connection.setAutoCommit(false);
+        connection.close();
+
+        var physical = FakeDriver.connections(uri).get(0);
+        assertEquals(1, physical.rollbacks);
+        assertTrue(physical.autoCommit);
+        assertFalse(physical.closed);
+        pool.close();
+    }
+
+    @Test
+    public void testAcquireTimeout() throws SQLException {
+        var pool = new MySqlConnectionPool(FakeDriver.uri("timeout"), 1, 0, 0, 100);
+
+        var connection = pool.getConnection();
+        var start = System.currentTimeMillis();
+        assertThrows(SQLTimeoutException.class, pool::getConnection);
+        assertTrue(System.currentTimeMillis() - start >= 100);
+
+        // The permit of the failed caller is not lost
+        connection.close();
+        pool.getConnection().close();
+        pool.close();
+    }
+
+    @Test
+    public void testFairOrder() throws Exception {
+        var pool = new MySqlConnectionPool(FakeDriver.uri("fair"), 1, 0, 0, 5000);
+        var order = Collections.synchronizedList(new ArrayList<Integer>());
+        var threads = new ArrayList<Thread>();
+
+        var connection = pool.getConnection();
+        for (var index = 0; index < 3; index++) {
+            var number = index;
+            var thread = new Thread(() -> {
+                try (var leased = pool.getConnection()) {
+                    order.add(number);
+                } catch (SQLException ex) {
+                    order.add(-1);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+
+            // Queue the waiters one after another
+            while (pool.getWaitingCount() < index + 1)
+                Thread.sleep(1);
+        }
+
+        connection.close();
+        for (var thread : threads)
+            thread.join();
+
+        assertEquals(List.of(0, 1, 2), order);
+        pool.close();
+    }
+
+    @Test
+    public void testIdleEviction() throws Exception {
+        var uri = FakeDriver.uri("idle");
+        var pool = new MySqlConnectionPool(uri, 1, 50, 0, 1000);
+
+        pool.getConnection().close();
+        Thread.sleep(80);
+
+        // The expired idle connection is closed instead of being leased
+        pool.getConnection().close();
+        var connections = FakeDriver.connections(uri);
+        assertEquals(2, connections.size());
+        assertTrue(connections.get(0).closed);
+        assertFalse(connections.get(1).closed);
+        assertEquals(1, pool.getTotalCount());
+        pool.close();
+    }
+
+    @Test
+    public void testMaxLifetime() throws Exception {
+        var uri = FakeDriver.uri("lifetime");
+        var pool = new MySqlConnectionPool(uri, 1, 0, 50, 1000);
+
+        var connection = pool.getConnection();
+        Thread.sleep(80);
+        connection.close();
+
+        // The retired connection is closed when it is returned
+        assertTrue(FakeDriver.connections(uri).get(0).closed);
+        assertEquals(0, pool.getIdleCount());
+        assertEquals(0, pool.getTotalCount());
+        pool.close();
+    }
+
+    @Test
+    public void testContention() throws Exception {
+        var uri = FakeDriver.uri("contention");
+        var pool = new MySqlConnectionPool(uri, 3, 0, 0, 10000);
+        var active = new AtomicInteger();
+        var maxActive = new AtomicInteger();
+        var errors = new AtomicInteger();
+        var executor = Executors.newFixedThreadPool(20);
+        var done = new CountDownLatch(200);
+
+        for (var index = 0; index < 200; index++) {
+            executor.execute(() -> {
+                try (var connection = pool.getConnection()) {
+                    maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                    Thread.sleep(1);
+                    active.decrementAndGet();
+                } catch (Exception ex) {
+                    errors.incrementAndGet();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        assertEquals(0, errors.get());
+        assertTrue(maxActive.get() <= 3);
+        assertTrue(FakeDriver.connections(uri).size() <= 3);
+        assertEquals(0, pool.getActiveCount());
+        pool.close();
+    }
+
+    @Test
+    public void testStatementsReturnLeasedConnection() throws SQLException {
+        var uri = FakeDriver.uri("statement");
+        var pool = new MySqlConnectionPool(uri, 1, 0, 0, 1000);
+
+        var connection = pool.getConnection();
+        var statement = connection.createStatement();
+        assertSame(connection, statement.getConnection());
+
+        // Result sets are not wrapped and belong to the statement of the driver
+        var rs = statement.executeQuery("SELECT 1");
+        assertNotSame(statement, rs.getStatement());
+        assertSame(FakeDriver.connections(uri).get(0).proxy, rs.getStatement().getConnection());
+
+        var prepared = connection.prepareStatement("SELECT 1");
+        assertSame(connection, prepared.getConnection());
+
+        // Wrapped statements keep driver specific interfaces
+        assertTrue(statement instanceof JdbcStatement);
+        assertTrue(prepared instanceof JdbcStatement);
+
+        // Closing through the statement returns the lease and keeps the physical connection
+        statement.getConnection().close();
+        assertEquals(0, pool.getActiveCount());
+        assertFalse(FakeDriver.connections(uri).get(0).closed);
+        pool.close();
+    }
+
+    @Test
+    public void testBoundConnection() throws SQLException {
+        var uri = FakeDriver.uri("bound");
+        var pool = new MySqlConnectionPool(uri, 2, 0, 0, 1000);
+
+        var connection = pool.getConnection();
+        pool.bind(connection);
+        try {
+            // Callers join the bound connection and cannot complete it
+            var joined = pool.getConnection();
+            assertSame(joined, joined.createStatement().getConnection());
+            joined.commit();
+            joined.close();
+            assertEquals(1, pool.getActiveCount());
+            assertEquals(0, FakeDriver.connections(uri).get(0).commits);
+        } finally {
+            pool.unbind();
+        }
+
+        connection.close();
+        assertEquals(0, pool.getActiveCount());
+        pool.close();
+    }
+
+    @Test
+    public void testSharedConnection() throws SQLException {
+        var uri = FakeDriver.uri("shared");
+        var pool = new MySqlConnectionPool(uri, 2, 0, 0, 1000);
+
+        // The shared connection is leased on first use and survives close
+        Connection shared = pool.getSharedConnection();
+        assertEquals(0, pool.getActiveCount());
+        shared.createStatement().close();
+        shared.close();
+        shared.createStatement();
+        assertEquals(1, pool.getActiveCount());
+        assertEquals(1, FakeDriver.connections(uri).size());
+
+        pool.close();
+        assertTrue(shared.isClosed());
+        assertTrue(FakeDriver.connections(uri).get(0).closed);
+    }
+}
@@ -2,7 +2,9 @@ package org.pipservices3.mysql.fixtures;
 
 import org.pipservices3.commons.data.AnyValueMap;
 import org.pipservices3.commons.data.FilterParams;
+import org.pipservices3.commons.data.PagingParams;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.Assert.*;
@@ -48,6 +50,18 @@ public class DummyPersistenceFixture {
         var item = _persistence.getOneRandom(null, null);
         assertNotNull(item);
 
+        // get many random
+        var sample = _persistence.getManyRandom(null, null, 2);
+        assertFalse(sample.isEmpty());
+        assertEquals(sample.size(), sample.stream().map(Dummy::getId).distinct().count());
+
+        sample = _persistence.getManyRandom(null, FilterParams.fromTuples("key", dummy1.getKey()), 1);
+        assertEquals(1, sample.size());
+        assertEquals(dummy1.getId(), sample.get(0).getId());
+
+        sample = _persistence.getManyRandom(null, FilterParams.fromTuples("key", "missing"), 2);
+        assertTrue(sample.isEmpty());
+
         // Update the dummy
         dummy1.setContent("Updated Content 1");
         var result = this._persistence.update(null, dummy1);
@@ -119,6 +133,12 @@ public class DummyPersistenceFixture {
         assertFalse(items.isEmpty());
         assertEquals(items.size(), 2);
 
+        // Items are returned in the order of ids
+        items = this._persistence.getListByIds(null, List.of(dummy2.getId(), dummy1.getId()));
+        assertEquals(2, items.size());
+        assertEquals(dummy2.getId(), items.get(0).getId());
+        assertEquals(dummy1.getId(), items.get(1).getId());
+
         items = this._persistence.getListByIds(null, List.of(dummy1.getId()));
         assertNotNull(items);
         assertEquals(items.size(), 1);
@@ -130,6 +150,17 @@ public class DummyPersistenceFixture {
         assertEquals(items.size(), 1);
         assertEquals(items.get(0).getKey(), dummy2.getKey());
 
+        // Stream items
+        try (var stream = this._persistence.getStreamByFilter(null, null)) {
+            assertEquals(2, stream.count());
+        }
+
+        try (var stream = this._persistence.getStreamByFilter(null, FilterParams.fromTuples("key", dummy1.getKey()))) {
+            var item = stream.findFirst().orElse(null);
+            assertNotNull(item);
+            assertEquals(dummy1.getId(), item.getId());
+        }
+
         // Delete batch
         this._persistence.deleteByIds(null, List.of(dummy1.getId(), dummy2.getId()));
 
@@ -137,4 +168,131 @@ public class DummyPersistenceFixture {
         items = this._persistence.getListByIds(null, List.of(dummy1.getId(), dummy2.getId()));
         assertTrue(items.isEmpty());
     }
+
+    public void testBatchWriteOperations() {
+        // Create batch
+        var items = this._persistence.createBatch(null, List.of(this._dummy1, this._dummy2));
+        assertEquals(2, items.size());
+        assertNotNull(items.get(0).getId());
+        assertNotNull(items.get(1).getId());
+        assertEquals(this._dummy1.getKey(), items.get(0).getKey());
+        assertEquals(this._dummy2.getKey(), items.get(1).getKey());
+
+        var dummy1 = items.get(0);
+        var dummy2 = items.get(1);
+
+        // Update batch
+        dummy1.setContent("Updated Content 1");
+        dummy2.setContent("Updated Content 2");
+        var missing = new Dummy("missing", "key 3", "Content 3");
+        items = this._persistence.updateBatch(null, List.of(dummy1, missing, dummy2));
+        assertEquals(3, items.size());
+        assertEquals("Updated Content 1", items.get(0).getContent());
+        assertNull(items.get(1));
+        assertEquals("Updated Content 2", items.get(2).getContent());
+
+        // Set batch
+        dummy1.setContent("Set Content 1");
+        var dummy3 = new Dummy(null, "key 3", "Content 3");
+        items = this._persistence.setBatch(null, List.of(dummy1, dummy3));
+        assertEquals(2, items.size());
+        assertEquals(dummy1.getId(), items.get(0).getId());
+        assertEquals("Set Content 1", items.get(0).getContent());
+        assertNotNull(items.get(1).getId());
+        assertEquals("key 3", items.get(1).getKey());
+
+        var count = this._persistence.getCountByFilter(null, null);
+        assertEquals(3, count);
+    }
+
+    public void testBatchFailure() {
+        var dummy1 = this._persistence.create(null, this._dummy1);
+
+        // The duplicate id fails the last chunk, and the whole batch is rolled back
+        var items = List.of(
+                new Dummy(null, "key 3", "Content 3"),
+                new Dummy(null, "key 4", "Content 4"),
+                new Dummy(null, "key 5", "Content 5"),
+                new Dummy(dummy1.getId(), "key 6", "Content 6")
+        );
+        assertThrows(RuntimeException.class, () -> this._persistence.createBatch(null, items));
+
+        var count = this._persistence.getCountByFilter(null, null);
+        assertEquals(1, count);
+
+        var dummy = this._persistence.getOneById(null, dummy1.getId());
+        assertEquals(this._dummy1.getKey(), dummy.getKey());
+    }
+
+    public void testKeysetPaging() {
+        this._persistence.createBatch(null, List.of(
+                this._dummy1, this._dummy2, new Dummy(null, "key 3", "Content 3")
+        ));
+
+        // Read the first page
+        var page = this._persistence.getPageByKeyset(null, null, new PagingParams(null, 2, true), null);
+        assertEquals(2, page.getData().size());
+        assertEquals(3, page.getTotal().longValue());
+        assertNotNull(page.getToken());
+
+        var ids = new ArrayList<String>();
+        page.getData().forEach((item) -> ids.add(item.getId()));
+
+        // Read the last page
+        page = this._persistence.getPageByKeyset(null, null, new PagingParams(null, 2, false), page.getToken());
+        assertEquals(1, page.getData().size());
+        assertNull(page.getToken());
+
+        ids.add(page.getData().get(0).getId());
+        assertEquals(3, ids.stream().distinct().count());
+        assertTrue(ids.get(0).compareTo(ids.get(1)) < 0);
+        assertTrue(ids.get(1).compareTo(ids.get(2)) < 0);
+    }
+
+    public void testWriteReturnMode(String mode) {
+        var dummy1 = this._persistence.create(null, this._dummy1);
+        assertNotNull(dummy1);
+
+        // Set the dummy
+        dummy1.setContent("Set Content");
+        var result = this._persistence.set(null, dummy1);
+        assertWritten(mode, dummy1, result);
+
+        // Update the dummy
+        dummy1.setContent("Updated Content");
+        result = this._persistence.update(null, dummy1);
+        assertWritten(mode, dummy1, result);
+
+        // Update with the same values changes no rows but finds the item
+        result = this._persistence.update(null, dummy1);
+        assertWritten(mode, dummy1, result);
+
+        // Update a missing dummy
+        result = this._persistence.update(null, new Dummy("missing", "key 3", "Content 3"));
+        assertNull(result);
+
+        // Partially update the dummy
+        result = this._persistence.updatePartially(
+                null, dummy1.getId(),
+                AnyValueMap.fromTuples("content", "Partially Updated Content")
+        );
+        dummy1.setContent("Partially Updated Content");
+        assertWritten(mode, dummy1, result);
+
+        // Every mode writes the same values
+        result = this._persistence.getOneById(null, dummy1.getId());
+        assertWritten("read", dummy1, result);
+    }
+
+    private static void assertWritten(String mode, Dummy expected, Dummy result) {
+        if ("none".equals(mode)) {
+            assertNull(result);
+            return;
+        }
+
+        assertNotNull(result);
+        assertEquals(expected.getId(), result.getId());
+        assertEquals(expected.getKey(), result.getKey());
+        assertEquals(expected.getContent(), result.getContent());
+    }
 }
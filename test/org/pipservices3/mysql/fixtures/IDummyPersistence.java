@@ -7,17 +7,22 @@ import org.pipservices3.commons.data.PagingParams;
 import org.pipservices3.data.IGetter;
 import org.pipservices3.data.IPartialUpdater;
 import org.pipservices3.data.IWriter;
+import org.pipservices3.mysql.persistence.KeysetDataPage;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface IDummyPersistence extends IGetter<Dummy, String>, IWriter<Dummy, String>, IPartialUpdater<Dummy, String> {
     DataPage<Dummy> getPageByFilter(String correlationId, FilterParams filter, PagingParams paging);
+    KeysetDataPage<Dummy> getPageByKeyset(String correlationId, FilterParams filter, PagingParams paging, String token);
     long getCountByFilter(String correlationId, FilterParams filter);
     List<Dummy> getListByIds(String correlationId, List<String> ids);
 
     Dummy getOneRandom(String correlationId, FilterParams filter);
+    List<Dummy> getManyRandom(String correlationId, FilterParams filter, int count);
 
     List<Dummy> getListByFilter(String correlationId, FilterParams filter);
+    Stream<Dummy> getStreamByFilter(String correlationId, FilterParams filter);
     Dummy getOneById(String correlationId, String id);
     Dummy create(String correlationId, Dummy item);
     Dummy update(String correlationId, Dummy item);
@@ -25,4 +30,8 @@ public interface IDummyPersistence extends IGetter<Dummy, String>, IWriter<Dummy
     Dummy updatePartially(String correlationId, String id, AnyValueMap data);
     Dummy deleteById(String correlationId, String id);
     void deleteByIds(String correlationId, List<String> id);
+
+    List<Dummy> createBatch(String correlationId, List<Dummy> items);
+    List<Dummy> setBatch(String correlationId, List<Dummy> items);
+    List<Dummy> updateBatch(String correlationId, List<Dummy> items);
 }
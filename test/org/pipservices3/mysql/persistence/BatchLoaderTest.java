@@ -0,0 +1,93 @@
+package org.pipservices3.mysql.persistence;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+public class BatchLoaderTest {
+
+    private static Map<Integer, String> load(List<Integer> keys) {
+        var values = new HashMap<Integer, String>();
+        for (var key : keys) {
+            // Odd keys are missing
+            if (key % 2 == 0)
+                values.put(key, "value" + key);
+        }
+        return values;
+    }
+
+    @Test
+    public void testSingleLoad() {
+        var batches = new CopyOnWriteArrayList<List<Integer>>();
+        var loader = new BatchLoader<Integer, String>((keys) -> {
+            batches.add(keys);
+            return load(keys);
+        }, 0, 10);
+
+        assertEquals("value2", loader.load(2));
+        assertNull(loader.load(3));
+        assertEquals(List.of(List.of(2), List.of(3)), batches);
+    }
+
+    @Test
+    public void testConcurrentLoads() throws Exception {
+        var batches = new CopyOnWriteArrayList<List<Integer>>();
+        var loader = new BatchLoader<Integer, String>((keys) -> {
+            batches.add(keys);
+            return load(keys);
+        }, 5000, 4);
+
+        var executor = Executors.newFixedThreadPool(4);
+        try {
+            var start = new CountDownLatch(1);
+            var futures = new ArrayList<CompletableFuture<String>>();
+            for (var key = 0; key < 4; key++) {
+                var id = key;
+                futures.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException ex) {
+                        throw new RuntimeException(ex);
+                    }
+                    return loader.load(id);
+                }, executor));
+            }
+            start.countDown();
+
+            // A full batch is loaded without waiting for the window
+            var started = System.currentTimeMillis();
+            for (var key = 0; key < 4; key++)
+                assertEquals(key % 2 == 0 ? "value" + key : null, futures.get(key).join());
+            assertTrue(System.currentTimeMillis() - started < 5000);
+
+            assertEquals(1, batches.size());
+            assertEquals(4, batches.get(0).size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFailedLoad() {
+        var loader = new BatchLoader<Integer, String>((keys) -> {
+            if (keys.contains(1))
+                throw new IllegalStateException("Load failed");
+            return load(keys);
+        }, 0, 10);
+
+        var error = assertThrows(IllegalStateException.class, () -> loader.load(1));
+        assertEquals("Load failed", error.getMessage());
+
+        // Next batches are not affected by the failure
+        assertEquals("value4", loader.load(4));
+    }
+}
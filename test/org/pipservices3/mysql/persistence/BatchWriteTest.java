@@ -0,0 +1,97 @@
+package org.pipservices3.mysql.persistence;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.pipservices3.commons.config.ConfigParams;
+import org.pipservices3.commons.errors.ConfigException;
+import org.pipservices3.mysql.connect.FakeDriver;
+import org.pipservices3.mysql.connect.MySqlConnection;
+import org.pipservices3.mysql.connect.MySqlConnectionPool;
+import org.pipservices3.mysql.fixtures.Dummy;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class BatchWriteTest {
+    String uri;
+    MySqlConnectionPool pool;
+    DummyMySqlPersistence persistence;
+
+    @Before
+    public void setup() throws ConfigException {
+        uri = FakeDriver.uri("batch");
+        pool = new MySqlConnectionPool(uri, 2, 0, 0, 1000);
+
+        persistence = new DummyMySqlPersistence();
+        persistence.configure(ConfigParams.fromTuples("options.batch_size", 2));
+        persistence._pool = pool;
+        persistence._connection = new MySqlConnection() {
+            {
+                this._pool = pool;
+            }
+        };
+    }
+
+    @After
+    public void teardown() {
+        pool.close();
+    }
+
+    private List<Dummy> items() {
+        return List.of(new Dummy("1", "A", "Content 1"), new Dummy("2", "B", "Content 2"), new Dummy("3", "C", "Content 3"));
+    }
+
+    private void failSecondChunk() {
+        var chunks = new AtomicInteger();
+        FakeDriver.onUpdate(uri, (sql) -> {
+            if (chunks.incrementAndGet() > 2)
+                throw new RuntimeException(new SQLException("Duplicate entry", "23000", 1062));
+            return 1;
+        });
+    }
+
+    @Test
+    public void testChunks() {
+        var created = persistence.createBatch(null, items());
+        assertEquals(3, created.size());
+
+        // Items are sent in chunks and committed together
+        var connection = FakeDriver.connections(uri).get(0);
+        var query = "INSERT INTO `dummies` (`key`,`id`,`content`) VALUES (?,?,?)";
+        assertEquals(List.of(query, query), connection.statements);
+        assertEquals(1, connection.commits);
+        assertEquals(0, connection.savepoints);
+    }
+
+    @Test
+    public void testFailedBatch() {
+        failSecondChunk();
+
+        assertThrows(RuntimeException.class, () -> persistence.createBatch(null, items()));
+
+        var connection = FakeDriver.connections(uri).get(0);
+        assertEquals(0, connection.commits);
+        assertTrue(connection.rollbacks > 0);
+    }
+
+    @Test
+    public void testFailedBatchInTransaction() {
+        failSecondChunk();
+
+        // Chunks written before the failure are undone without ending the caller's transaction
+        persistence._connection.inTransaction(null, () -> {
+            assertThrows(RuntimeException.class, () -> persistence.createBatch(null, items()));
+            return null;
+        });
+
+        var connection = FakeDriver.connections(uri).get(0);
+        assertEquals(1, connection.savepoints);
+        assertEquals(1, connection.savepointRollbacks);
+        assertEquals(0, connection.rollbacks);
+        assertEquals(1, connection.commits);
+    }
+}
@@ -0,0 +1,114 @@
+package org.pipservices3.mysql.persistence;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.pipservices3.commons.config.ConfigParams;
+import org.pipservices3.commons.errors.ConfigException;
+import org.pipservices3.mysql.connect.FakeDriver;
+import org.pipservices3.mysql.connect.MySqlConnectionPool;
+import org.pipservices3.mysql.fixtures.Dummy;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class BulkLoadTest {
+    String uri;
+    MySqlConnectionPool pool;
+
+    @Before
+    public void setup() {
+        uri = FakeDriver.uri("bulk");
+        pool = new MySqlConnectionPool(uri, 2, 0, 0, 1000);
+    }
+
+    @After
+    public void teardown() {
+        pool.close();
+    }
+
+    private void onColumns(String... columns) {
+        FakeDriver.onQuery(uri, (sql) -> {
+            if (!sql.contains("information_schema.COLUMNS"))
+                return List.of();
+
+            return Stream.of(columns).map((column) -> {
+                var parts = column.split(" ");
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("COLUMN_NAME", parts[0]);
+                row.put("DATA_TYPE", parts[1]);
+                return row;
+            }).toList();
+        });
+    }
+
+    private List<String> statements() {
+        return FakeDriver.connections(uri).stream().flatMap((c) -> c.statements.stream()).toList();
+    }
+
+    private String infile() {
+        var infiles = FakeDriver.connections(uri).stream().flatMap((c) -> c.infiles.stream()).toList();
+        assertEquals(1, infiles.size());
+        return new String(infiles.get(0), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testBinaryJsonLayout() throws ConfigException {
+        var persistence = new DummyJsonMySqlPersistence();
+        persistence.configure(ConfigParams.fromTuples(
+                "options.id_strategy", "ordered",
+                "options.compression", "deflate",
+                "options.compression_threshold", 0
+        ));
+        persistence.defineSchema();
+        persistence._pool = pool;
+        onColumns("id binary", "data longblob", "data_key varchar");
+
+        var id = OrderedIds.next();
+        var item = new Dummy(id, "ABC", "Content");
+        assertEquals(1, persistence.bulkLoad(null, Stream.of(item)));
+
+        // Columns of the table are found in the current database
+        var statements = statements();
+        assertTrue(statements.get(0).contains("TABLE_SCHEMA=DATABASE()"));
+        assertTrue(statements.get(1).endsWith("(@c0,@c1,`data_key`) SET `id`=UNHEX(@c0),`data`=UNHEX(@c1)"));
+
+        // Ids and compressed documents are sent as hex digits
+        var row = persistence.convertFromPublic(item);
+        var hex = HexFormat.of();
+        assertEquals(hex.formatHex((byte[]) row.get("id")) + "\t" + hex.formatHex((byte[]) row.get("data")) + "\tABC\n",
+                infile());
+    }
+
+    @Test
+    public void testColumnsFromTable() {
+        var persistence = new DummyMySqlPersistence();
+        persistence._pool = pool;
+        onColumns("id varchar", "key varchar", "content text");
+
+        // A null in the first item does not drop the column for the other items
+        var count = persistence.bulkLoad(null, Stream.of(
+                new Dummy("1", null, "Content 1"),
+                new Dummy("2", "B", "Content 2")
+        ));
+        assertEquals(1, count);
+
+        assertTrue(statements().get(1).endsWith("(`id`,`key`,`content`)"));
+        assertEquals("1\t\\N\tContent 1\n2\tB\tContent 2\n", infile());
+    }
+
+    @Test
+    public void testMissingTable() {
+        var persistence = new DummyMySqlPersistence();
+        persistence._pool = pool;
+
+        assertThrows(RuntimeException.class,
+                () -> persistence.bulkLoad(null, Stream.of(new Dummy("1", "A", "Content"))));
+    }
+}
@@ -0,0 +1,107 @@
+package org.pipservices3.mysql.persistence;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.pipservices3.commons.config.ConfigParams;
+import org.pipservices3.commons.errors.ConfigException;
+import org.pipservices3.mysql.connect.FakeDriver;
+import org.pipservices3.mysql.connect.MySqlConnection;
+import org.pipservices3.mysql.connect.MySqlConnectionPool;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class DeleteChunksTest {
+    String uri;
+    MySqlConnectionPool pool;
+    DummyMySqlPersistence persistence;
+
+    @Before
+    public void setup() {
+        uri = FakeDriver.uri("delete");
+        pool = new MySqlConnectionPool(uri, 2, 0, 0, 1000);
+
+        persistence = new DummyMySqlPersistence();
+        persistence._pool = pool;
+        persistence._connection = new MySqlConnection() {
+            {
+                this._pool = pool;
+            }
+        };
+    }
+
+    @After
+    public void teardown() {
+        pool.close();
+    }
+
+    private List<String> statements() {
+        return FakeDriver.connections(uri).stream().flatMap((c) -> c.statements.stream()).toList();
+    }
+
+    @Test
+    public void testChunkedDelete() throws ConfigException {
+        persistence.configure(ConfigParams.fromTuples(
+                "options.delete_chunk_size", 2,
+                "options.delete_pause", 50
+        ));
+
+        // Two full chunks and the last partial one
+        var counts = new AtomicInteger();
+        FakeDriver.onUpdate(uri, (sql) -> counts.incrementAndGet() < 3 ? 2 : 1);
+
+        var started = System.currentTimeMillis();
+        persistence.deleteByFilter(null, "`key`='A'");
+        var elapsed = System.currentTimeMillis() - started;
+
+        var query = "DELETE FROM `dummies` WHERE `key`='A' ORDER BY id LIMIT 2";
+        assertEquals(List.of(query, query, query), statements());
+
+        // Pauses follow full chunks only
+        assertTrue(elapsed >= 100);
+    }
+
+    @Test
+    public void testChunkedDeleteInTransaction() throws ConfigException {
+        persistence.configure(ConfigParams.fromTuples(
+                "options.delete_chunk_size", 2,
+                "options.delete_pause", 1000
+        ));
+
+        var counts = new AtomicInteger();
+        FakeDriver.onUpdate(uri, (sql) -> counts.incrementAndGet() < 2 ? 2 : 0);
+
+        // Locks are held until the commit, so chunks are not paused inside a transaction
+        var started = System.currentTimeMillis();
+        persistence._connection.inTransaction(null, () -> {
+            persistence.deleteByFilter(null, null);
+            return null;
+        });
+        assertTrue(System.currentTimeMillis() - started < 1000);
+        assertEquals(2, statements().size());
+    }
+
+    @Test
+    public void testUnchunkedDelete() {
+        persistence.deleteByFilter(null, null);
+        assertEquals(List.of("DELETE FROM `dummies`"), statements());
+    }
+
+    @Test
+    public void testTruncate() throws ConfigException {
+        persistence.configure(ConfigParams.fromTuples("options.clear_mode", "truncate"));
+
+        persistence.clear(null);
+        assertEquals(List.of("TRUNCATE TABLE `dummies`"), statements());
+
+        // TRUNCATE would commit the transaction, so rows are deleted instead
+        persistence._connection.inTransaction(null, () -> {
+            persistence.clear(null);
+            return null;
+        });
+        assertEquals(List.of("TRUNCATE TABLE `dummies`", "DELETE FROM `dummies`"), statements());
+    }
+}
@@ -0,0 +1,35 @@
+package org.pipservices3.mysql.persistence;
+
+import org.junit.Test;
+import org.pipservices3.mysql.fixtures.Dummy;
+
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class DocumentCodecTest {
+
+    @Test
+    public void testJsonCodec() throws IOException {
+        var codec = new JsonDocumentCodec();
+        assertTrue(codec.isText());
+
+        var dummy = new Dummy("1", "Key 1", "Content 1");
+        var result = codec.decode(codec.encode(dummy), Dummy.class);
+        assertEquals(dummy.getId(), result.getId());
+        assertEquals(dummy.getKey(), result.getKey());
+        assertEquals(dummy.getContent(), result.getContent());
+    }
+
+    @Test
+    public void testCborCodec() throws IOException {
+        var codec = JacksonDocumentCodec.cbor();
+        assertFalse(codec.isText());
+
+        var dummy = new Dummy("1", "Key 1", "Content 1");
+        var result = codec.decode(codec.encode(dummy), Dummy.class);
+        assertEquals(dummy.getId(), result.getId());
+        assertEquals(dummy.getKey(), result.getKey());
+        assertEquals(dummy.getContent(), result.getContent());
+    }
+}
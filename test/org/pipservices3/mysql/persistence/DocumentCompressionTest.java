@@ -0,0 +1,32 @@
+package org.pipservices3.mysql.persistence;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class DocumentCompressionTest {
+
+    @Test
+    public void testCompression() {
+        var document = "{\"content\":\"" + "ABC".repeat(1000) + "\"}";
+        var data = document.getBytes(StandardCharsets.UTF_8);
+
+        var value = DocumentCompression.encode(data, true, 100);
+        assertEquals(DocumentCompression.DEFLATE, value[0]);
+        assertTrue(value.length < data.length);
+        assertArrayEquals(data, DocumentCompression.decode(value));
+    }
+
+    @Test
+    public void testThreshold() {
+        var data = "{\"content\":\"ABC\"}".getBytes(StandardCharsets.UTF_8);
+
+        // Small documents are stored as they are
+        var value = DocumentCompression.encode(data, true, 100);
+        assertEquals(DocumentCompression.PLAIN, value[0]);
+        assertEquals(data.length + 1, value.length);
+        assertArrayEquals(data, DocumentCompression.decode(value));
+    }
+}
@@ -0,0 +1,122 @@
+package org.pipservices3.mysql.persistence;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.junit.Test;
+import org.pipservices3.commons.convert.JsonConverter;
+import org.pipservices3.mysql.fixtures.Dummy;
+import org.pipservices3.mysql.fixtures.Dummy2;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class DocumentMapperTest {
+
+    public static class Sample {
+        public String name;
+        public int count;
+        public Long total;
+        public boolean active;
+        public Double rate;
+        public BigDecimal price;
+
+        private String _displayName;
+
+        @JsonIgnore
+        public String secret;
+
+        @JsonProperty("display_name")
+        public String getDisplayName() {
+            return _displayName;
+        }
+
+        @JsonProperty("display_name")
+        public void setDisplayName(String displayName) {
+            this._displayName = displayName;
+        }
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class NonNullSample {
+        public String name;
+    }
+
+    public static class NestedSample {
+        public String name;
+        public List<String> tags;
+    }
+
+    @Test
+    public void testMatchesJsonConversion() throws IOException {
+        var sample = new Sample();
+        sample.name = "ABC";
+        sample.count = 3;
+        sample.total = 123456789012L;
+        sample.active = true;
+        sample.price = new BigDecimal("12.25");
+        sample.setDisplayName("Display");
+        sample.secret = "hidden";
+
+        assertMatches(Sample.class, sample);
+        assertMatches(Sample.class, new Sample());
+        assertMatches(Dummy.class, new Dummy("1", "Key 1", "Content 1"));
+        assertMatches(Dummy.class, new Dummy());
+        assertMatches(Dummy2.class, new Dummy2(1L, "Key 1", null));
+    }
+
+    @Test
+    public void testConvertsColumnValues() throws IOException {
+        var mapper = DocumentMapper.forClass(Sample.class);
+
+        // Values come with column types of the database
+        var row = new HashMap<String, Object>();
+        row.put("name", "ABC");
+        row.put("count", 3L);
+        row.put("total", 5);
+        row.put("active", 1);
+        row.put("rate", new BigDecimal("0.5"));
+        row.put("price", "1.25");
+        row.put("display_name", "Display");
+        row.put("secret", "hidden");
+        row.put("unknown", "ignored");
+
+        var expected = JsonConverter.fromJson(Sample.class,
+                "{\"name\":\"ABC\",\"count\":3,\"total\":5,\"active\":true,\"rate\":0.5,\"price\":1.25,\"display_name\":\"Display\"}");
+        var document = mapper.toDocument(row);
+        assertEquals(JsonConverter.toJson(expected), JsonConverter.toJson(document));
+        assertNull(document.secret);
+
+        // Nulls of primitive properties keep the defaults
+        row.put("count", null);
+        assertEquals(0, mapper.toDocument(row).count);
+    }
+
+    @Test
+    public void testUnsupportedClasses() {
+        assertNull(DocumentMapper.forClass(NonNullSample.class));
+        assertNull(DocumentMapper.forClass(NestedSample.class));
+        assertNull(DocumentMapper.forClass(Map.class));
+        assertNotNull(DocumentMapper.forClass(Sample.class));
+    }
+
+    private static <T> void assertMatches(Class<T> type, T document) throws IOException {
+        var mapper = DocumentMapper.forClass(type);
+        assertNotNull(mapper);
+
+        // Documents are converted into the same rows
+        var json = JsonConverter.toJson(document);
+        var row = mapper.fromDocument(document);
+        assertEquals(JsonConverter.toMap(json), JsonConverter.toMap(JsonConverter.toJson(row)));
+
+        // Rows are converted into the same documents
+        var expected = JsonConverter.fromJson(type, json);
+        var actual = mapper.toDocument(JsonConverter.toMap(json));
+        assertEquals(JsonConverter.toJson(expected), JsonConverter.toJson(actual));
+    }
+}
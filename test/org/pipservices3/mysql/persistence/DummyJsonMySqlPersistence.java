@@ -7,7 +7,7 @@ import org.pipservices3.mysql.fixtures.Dummy;
 import org.pipservices3.mysql.fixtures.IDummyPersistence;
 
 import java.util.List;
-import java.util.Map;
+import java.util.stream.Stream;
 
 public class DummyJsonMySqlPersistence extends IdentifiableJsonMySqlPersistence<Dummy, String>
         implements IDummyPersistence {
@@ -20,8 +20,7 @@ public class DummyJsonMySqlPersistence extends IdentifiableJsonMySqlPersistence<
     protected void defineSchema() {
         this.clearSchema();
         this.ensureTable();
-        this.ensureSchema("ALTER TABLE `" + this._tableName + "` ADD `data_key` VARCHAR(50) AS (JSON_UNQUOTE(`data`->\"$.key\"))");
-        this.ensureIndex(this._tableName + "_json_key", Map.of("data_key", 1), Map.of("unique", true));
+        this.ensureJsonIndex("$.key", "VARCHAR(50)", true);
     }
 
     @Override
@@ -31,11 +30,23 @@ public class DummyJsonMySqlPersistence extends IdentifiableJsonMySqlPersistence<
 
         String filterCondition = null;
         if (key != null)
-            filterCondition = "data->'$.key'='" + key + "'";
+            filterCondition = this.rewriteJsonFilter("data->'$.key'='" + key + "'");
 
         return super.getPageByFilter(correlationId, filterCondition, paging, null, null);
     }
 
+    @Override
+    public KeysetDataPage<Dummy> getPageByKeyset(String correlationId, FilterParams filter, PagingParams paging, String token) {
+        filter = filter != null ? filter : new FilterParams();
+        var key = filter.getAsNullableString("key");
+
+        String filterCondition = null;
+        if (key != null)
+            filterCondition = this.rewriteJsonFilter("data->'$.key'='" + key + "'");
+
+        return super.getPageByKeyset(correlationId, filterCondition, paging, token, List.of("id"), false, null);
+    }
+
     @Override
     public long getCountByFilter(String correlationId, FilterParams filter) {
         filter = filter != null ? filter : new FilterParams();
@@ -43,7 +54,7 @@ public class DummyJsonMySqlPersistence extends IdentifiableJsonMySqlPersistence<
 
         String filterCondition = null;
         if (key != null)
-            filterCondition = "data->'$.key'='" + key + "'";
+            filterCondition = this.rewriteJsonFilter("data->'$.key'='" + key + "'");
 
         return super.getCountByFilter(correlationId, filterCondition);
     }
@@ -55,11 +66,23 @@ public class DummyJsonMySqlPersistence extends IdentifiableJsonMySqlPersistence<
 
         String filterCondition = null;
         if (key != null)
-            filterCondition = "data->'$.key'='" + key + "'";
+            filterCondition = this.rewriteJsonFilter("data->'$.key'='" + key + "'");
 
         return super.getOneRandom(correlationId, filterCondition);
     }
 
+    @Override
+    public List<Dummy> getManyRandom(String correlationId, FilterParams filter, int count) {
+        filter = filter != null ? filter : new FilterParams();
+        var key = filter.getAsNullableString("key");
+
+        String filterCondition = null;
+        if (key != null)
+            filterCondition = this.rewriteJsonFilter("data->'$.key'='" + key + "'");
+
+        return super.getManyRandom(correlationId, filterCondition, count);
+    }
+
     @Override
     public List<Dummy> getListByFilter(String correlationId, FilterParams filter) {
         filter = filter != null ? filter : new FilterParams();
@@ -67,8 +90,20 @@ public class DummyJsonMySqlPersistence extends IdentifiableJsonMySqlPersistence<
 
         String filterCondition = null;
         if (key != null)
-            filterCondition = "data->'$.key'='" + key + "'";
+            filterCondition = this.rewriteJsonFilter("data->'$.key'='" + key + "'");
 
         return super.getListByFilter(correlationId, filterCondition, null, null);
     }
+
+    @Override
+    public Stream<Dummy> getStreamByFilter(String correlationId, FilterParams filter) {
+        filter = filter != null ? filter : new FilterParams();
+        var key = filter.getAsNullableString("key");
+
+        String filterCondition = null;
+        if (key != null)
+            filterCondition = this.rewriteJsonFilter("data->'$.key'='" + key + "'");
+
+        return super.getStreamByFilter(correlationId, filterCondition, null, null);
+    }
 }
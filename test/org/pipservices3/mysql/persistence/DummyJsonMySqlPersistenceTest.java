@@ -5,8 +5,13 @@ import org.junit.Before;
 import org.junit.Test;
 import org.pipservices3.commons.config.ConfigParams;
 import org.pipservices3.commons.errors.ApplicationException;
+import org.pipservices3.mysql.fixtures.Dummy;
 import org.pipservices3.mysql.fixtures.DummyPersistenceFixture;
 
+import java.util.List;
+
+import static org.junit.Assert.*;
+
 public class DummyJsonMySqlPersistenceTest {
     DummyJsonMySqlPersistence persistence;
     DummyPersistenceFixture fixture;
@@ -34,7 +39,8 @@ public class DummyJsonMySqlPersistenceTest {
                     "connection.port", mysqlPort,
                     "connection.database", mysqlDatabase,
                     "credential.username", mysqlUser,
-                    "credential.password", mysqlPassword
+                    "credential.password", mysqlPassword,
+                    "options.batch_size", 2
             );
 
             persistence = new DummyJsonMySqlPersistence();
@@ -64,4 +70,125 @@ public class DummyJsonMySqlPersistenceTest {
         if (enabled)
             fixture.testBatchOperations();
     }
+
+    @Test
+    public void testBatchWriteOperations() {
+        if (enabled)
+            fixture.testBatchWriteOperations();
+    }
+
+    @Test
+    public void testBatchFailure() {
+        if (enabled)
+            fixture.testBatchFailure();
+    }
+
+    @Test
+    public void testKeysetPaging() {
+        if (enabled)
+            fixture.testKeysetPaging();
+    }
+
+    @Test
+    public void testOrderedIds() throws ApplicationException {
+        if (!enabled)
+            return;
+
+        var orderedPersistence = new DummyJsonMySqlPersistence();
+        orderedPersistence.configure(ConfigParams.fromTuples(
+                "connection.uri", mysqlUri,
+                "connection.host", mysqlHost,
+                "connection.port", mysqlPort,
+                "connection.database", mysqlDatabase,
+                "credential.username", mysqlUser,
+                "credential.password", mysqlPassword,
+                "table", "dummies_json_ordered",
+                "options.id_strategy", "ordered"
+        ));
+
+        orderedPersistence.open(null);
+        try {
+            var orderedFixture = new DummyPersistenceFixture(orderedPersistence);
+
+            orderedPersistence.clear(null);
+            orderedFixture.testCrudOperations();
+            orderedPersistence.clear(null);
+            orderedFixture.testBatchOperations();
+            orderedPersistence.clear(null);
+            orderedFixture.testBatchWriteOperations();
+            orderedPersistence.clear(null);
+            orderedFixture.testBatchFailure();
+            orderedPersistence.clear(null);
+            orderedFixture.testKeysetPaging();
+            orderedPersistence.clear(null);
+            orderedFixture.testWriteReturnMode("read");
+
+            // Ids that cannot be stored are rejected by writes and found by no lookups
+            assertThrows(RuntimeException.class, () -> orderedPersistence.create(null, new Dummy("missing", "key", "Content")));
+            assertNull(orderedPersistence.getOneById(null, "missing"));
+            assertTrue(orderedPersistence.getListByIds(null, List.of("missing")).isEmpty());
+            assertNull(orderedPersistence.deleteById(null, "missing"));
+        } finally {
+            orderedPersistence.close(null);
+        }
+    }
+
+    @Test
+    public void testWriteReturnModes() throws ApplicationException {
+        if (!enabled)
+            return;
+
+        for (var mode : List.of("read", "memory", "none")) {
+            var modePersistence = new DummyJsonMySqlPersistence();
+            modePersistence.configure(ConfigParams.fromTuples(
+                    "connection.uri", mysqlUri,
+                    "connection.host", mysqlHost,
+                    "connection.port", mysqlPort,
+                    "connection.database", mysqlDatabase,
+                    "credential.username", mysqlUser,
+                    "credential.password", mysqlPassword,
+                    "options.write_return_mode", mode
+            ));
+
+            modePersistence.open(null);
+            try {
+                modePersistence.clear(null);
+                new DummyPersistenceFixture(modePersistence).testWriteReturnMode(mode);
+            } finally {
+                modePersistence.close(null);
+            }
+        }
+    }
+
+    @Test
+    public void testCompressedDocuments() throws ApplicationException {
+        if (!enabled)
+            return;
+
+        var compressedPersistence = new DummyJsonMySqlPersistence();
+        compressedPersistence.configure(ConfigParams.fromTuples(
+                "connection.uri", mysqlUri,
+                "connection.host", mysqlHost,
+                "connection.port", mysqlPort,
+                "connection.database", mysqlDatabase,
+                "credential.username", mysqlUser,
+                "credential.password", mysqlPassword,
+                "table", "dummies_json_deflate",
+                "options.compression", "deflate",
+                "options.compression_threshold", 0
+        ));
+
+        compressedPersistence.open(null);
+        try {
+            var compressedFixture = new DummyPersistenceFixture(compressedPersistence);
+
+            // Filters by the indexed key read the column filled by the component
+            compressedPersistence.clear(null);
+            compressedFixture.testCrudOperations();
+            compressedPersistence.clear(null);
+            compressedFixture.testBatchOperations();
+        } finally {
+            compressedPersistence.close(null);
+        }
+    }
 }
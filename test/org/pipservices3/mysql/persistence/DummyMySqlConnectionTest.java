@@ -10,6 +10,7 @@ import org.pipservices3.commons.errors.ApplicationException;
 import org.pipservices3.commons.refer.Descriptor;
 import org.pipservices3.commons.refer.References;
 import org.pipservices3.mysql.connect.MySqlConnection;
+import org.pipservices3.mysql.fixtures.Dummy;
 import org.pipservices3.mysql.fixtures.DummyPersistenceFixture;
 
 public class DummyMySqlConnectionTest {
@@ -81,4 +82,39 @@ public class DummyMySqlConnectionTest {
     public void testBatchOperations() {
         fixture.testBatchOperations();
     }
+
+    @Test
+    public void testTransactions() {
+        // Committed changes are visible after the transaction
+        var dummy1 = connection.inTransaction(null, () -> {
+            var dummy = persistence.create(null, new Dummy(null, "key 1", "Content 1"));
+            assertTrue(connection.isInTransaction());
+            assertNotNull(persistence.getOneById(null, dummy.getId()));
+            return dummy;
+        });
+        assertFalse(connection.isInTransaction());
+        assertNotNull(persistence.getOneById(null, dummy1.getId()));
+
+        // Failed transactions are rolled back
+        Dummy[] dummy2 = new Dummy[1];
+        try {
+            connection.inTransaction(null, () -> {
+                dummy2[0] = persistence.create(null, new Dummy(null, "key 2", "Content 2"));
+                persistence.deleteById(null, dummy1.getId());
+                throw new IllegalStateException("Test failure");
+            });
+            fail("Expected the transaction to fail");
+        } catch (IllegalStateException ex) {
+            // Expected
+        }
+        assertNull(persistence.getOneById(null, dummy2[0].getId()));
+        assertNotNull(persistence.getOneById(null, dummy1.getId()));
+
+        // Scopes closed without a commit roll back
+        try (var transaction = connection.beginTransaction(null)) {
+            persistence.deleteById(null, dummy1.getId());
+            assertNull(persistence.getOneById(null, dummy1.getId()));
+        }
+        assertNotNull(persistence.getOneById(null, dummy1.getId()));
+    }
 }
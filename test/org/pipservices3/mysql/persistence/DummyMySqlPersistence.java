@@ -8,6 +8,7 @@ import org.pipservices3.mysql.fixtures.IDummyPersistence;
 
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 public class DummyMySqlPersistence extends IdentifiableMySqlPersistence<Dummy, String>
         implements IDummyPersistence {
@@ -35,6 +36,18 @@ public class DummyMySqlPersistence extends IdentifiableMySqlPersistence<Dummy, S
         return super.getPageByFilter(correlationId, filterCondition, paging, null, null);
     }
 
+    @Override
+    public KeysetDataPage<Dummy> getPageByKeyset(String correlationId, FilterParams filter, PagingParams paging, String token) {
+        filter = filter != null ? filter : new FilterParams();
+        var key = filter.getAsNullableString("key");
+
+        String filterCondition = null;
+        if (key != null)
+            filterCondition = "`key`='" + key + "'";
+
+        return super.getPageByKeyset(correlationId, filterCondition, paging, token, List.of("id"), false, null);
+    }
+
     @Override
     public long getCountByFilter(String correlationId, FilterParams filter) {
         filter = filter != null ? filter : new FilterParams();
@@ -59,6 +72,18 @@ public class DummyMySqlPersistence extends IdentifiableMySqlPersistence<Dummy, S
         return super.getOneRandom(correlationId, filterCondition);
     }
 
+    @Override
+    public List<Dummy> getManyRandom(String correlationId, FilterParams filter, int count) {
+        filter = filter != null ? filter : new FilterParams();
+        var key = filter.getAsNullableString("key");
+
+        String filterCondition = null;
+        if (key != null)
+            filterCondition = "`key`='" + key + "'";
+
+        return super.getManyRandom(correlationId, filterCondition, count);
+    }
+
     @Override
     public List<Dummy> getListByFilter(String correlationId, FilterParams filter) {
         filter = filter != null ? filter : new FilterParams();
@@ -70,4 +95,16 @@ public class DummyMySqlPersistence extends IdentifiableMySqlPersistence<Dummy, S
 
         return super.getListByFilter(correlationId, filterCondition, null, null);
     }
+
+    @Override
+    public Stream<Dummy> getStreamByFilter(String correlationId, FilterParams filter) {
+        filter = filter != null ? filter : new FilterParams();
+        var key = filter.getAsNullableString("key");
+
+        String filterCondition = null;
+        if (key != null)
+            filterCondition = "`key`='" + key + "'";
+
+        return super.getStreamByFilter(correlationId, filterCondition, null, null);
+    }
 }
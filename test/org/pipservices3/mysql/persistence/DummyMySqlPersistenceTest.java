@@ -8,6 +8,8 @@ import org.pipservices3.commons.errors.ApplicationException;
 import org.pipservices3.commons.errors.ConfigException;
 import org.pipservices3.mysql.fixtures.DummyPersistenceFixture;
 
+import java.util.List;
+
 public class DummyMySqlPersistenceTest {
     DummyMySqlPersistence persistence;
     DummyPersistenceFixture fixture;
@@ -35,7 +37,8 @@ public class DummyMySqlPersistenceTest {
                     "connection.port", mysqlPort,
                     "connection.database", mysqlDatabase,
                     "credential.username", mysqlUser,
-                    "credential.password", mysqlPassword
+                    "credential.password", mysqlPassword,
+                    "options.batch_size", 2
             );
 
             persistence = new DummyMySqlPersistence();
@@ -65,4 +68,49 @@ public class DummyMySqlPersistenceTest {
         if (enabled)
             fixture.testBatchOperations();
     }
+
+    @Test
+    public void testBatchWriteOperations() {
+        if (enabled)
+            fixture.testBatchWriteOperations();
+    }
+
+    @Test
+    public void testBatchFailure() {
+        if (enabled)
+            fixture.testBatchFailure();
+    }
+
+    @Test
+    public void testKeysetPaging() {
+        if (enabled)
+            fixture.testKeysetPaging();
+    }
+
+    @Test
+    public void testWriteReturnModes() throws ApplicationException {
+        if (!enabled)
+            return;
+
+        for (var mode : List.of("read", "memory", "none")) {
+            var modePersistence = new DummyMySqlPersistence();
+            modePersistence.configure(ConfigParams.fromTuples(
+                    "connection.uri", mysqlUri,
+                    "connection.host", mysqlHost,
+                    "connection.port", mysqlPort,
+                    "connection.database", mysqlDatabase,
+                    "credential.username", mysqlUser,
+                    "credential.password", mysqlPassword,
+                    "options.write_return_mode", mode
+            ));
+
+            modePersistence.open(null);
+            try {
+                modePersistence.clear(null);
+                new DummyPersistenceFixture(modePersistence).testWriteReturnMode(mode);
+            } finally {
+                modePersistence.close(null);
+            }
+        }
+    }
 }
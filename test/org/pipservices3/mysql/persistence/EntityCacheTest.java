@@ -0,0 +1,55 @@
+package org.pipservices3.mysql.persistence;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class EntityCacheTest {
+
+    @Test
+    public void testEviction() {
+        var cache = new EntityCache<String, String>(2, 0);
+
+        cache.put("1", "A", cache.getVersion());
+        cache.put("2", "B", cache.getVersion());
+        assertEquals("A", cache.get("1"));
+
+        // The least recently used item is evicted
+        cache.put("3", "C", cache.getVersion());
+        assertEquals(2, cache.size());
+        assertNull(cache.get("2"));
+        assertEquals("A", cache.get("1"));
+        assertEquals("C", cache.get("3"));
+
+        assertEquals(3, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void testInvalidation() {
+        var cache = new EntityCache<String, String>(10, 0);
+
+        var version = cache.getVersion();
+        cache.put("1", "A", version);
+        cache.remove("1");
+        assertNull(cache.get("1"));
+
+        // Values read before the invalidation are not cached
+        assertFalse(cache.put("1", "A", version));
+        assertNull(cache.get("1"));
+
+        assertTrue(cache.put("1", "B", cache.getVersion()));
+        assertEquals("B", cache.get("1"));
+    }
+
+    @Test
+    public void testExpiration() throws InterruptedException {
+        var cache = new EntityCache<String, String>(10, 50);
+
+        cache.put("1", "A", cache.getVersion());
+        assertEquals("A", cache.get("1"));
+
+        Thread.sleep(100);
+        assertNull(cache.get("1"));
+    }
+}
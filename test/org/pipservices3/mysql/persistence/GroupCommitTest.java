@@ -0,0 +1,127 @@
+package org.pipservices3.mysql.persistence;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.pipservices3.mysql.connect.FakeDriver;
+import org.pipservices3.mysql.connect.MySqlConnectionPool;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class GroupCommitTest {
+    String uri;
+    MySqlConnectionPool pool;
+
+    @Before
+    public void setup() {
+        uri = FakeDriver.uri("group");
+        pool = new MySqlConnectionPool(uri, 4, 0, 0, 1000);
+    }
+
+    @After
+    public void teardown() {
+        pool.close();
+    }
+
+    @Test
+    public void testSingleWrite() throws SQLException {
+        var groupCommit = new GroupCommit(pool, 0, 10);
+        var executed = new CopyOnWriteArrayList<Integer>();
+
+        groupCommit.execute((connection) -> executed.add(1));
+        assertEquals(List.of(1), executed);
+        assertEquals(1, groupCommit.getCommitCount());
+
+        // A single write fails with its transaction and needs no savepoint
+        var error = assertThrows(SQLException.class, () -> groupCommit.execute((connection) -> {
+            throw new SQLException("Write failed");
+        }));
+        assertEquals("Write failed", error.getMessage());
+
+        var connection = FakeDriver.connections(uri).get(0);
+        assertEquals(0, connection.savepoints);
+        assertEquals(1, connection.commits);
+        assertEquals(1, connection.rollbacks);
+    }
+
+    @Test
+    public void testMicrosecondWindow() throws SQLException {
+        var groupCommit = new GroupCommit(pool, 100, 10);
+
+        groupCommit.execute((connection) -> {});
+
+        // Windows shorter than a millisecond are not rounded up to whole milliseconds
+        var started = System.nanoTime();
+        for (var index = 0; index < 100; index++)
+            groupCommit.execute((connection) -> {});
+        var elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        assertEquals(101, groupCommit.getCommitCount());
+        assertTrue(elapsed < 80);
+    }
+
+    @Test
+    public void testFailedWriteInGroup() throws Exception {
+        var groupCommit = new GroupCommit(pool, TimeUnit.SECONDS.toMicros(5), 3);
+        var executed = new CopyOnWriteArrayList<Integer>();
+
+        var executor = Executors.newFixedThreadPool(3);
+        try {
+            var start = new CountDownLatch(1);
+            var futures = new ArrayList<CompletableFuture<Void>>();
+            for (var index = 0; index < 3; index++) {
+                var write = index;
+                futures.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        start.await();
+                        groupCommit.execute((connection) -> {
+                            if (write == 1)
+                                throw new SQLException("Write failed");
+                            executed.add(write);
+                        });
+                    } catch (SQLException | InterruptedException ex) {
+                        throw new RuntimeException(ex);
+                    }
+                }, executor));
+            }
+            start.countDown();
+
+            // A full group is committed without waiting for the window
+            var failures = 0;
+            for (var future : futures) {
+                try {
+                    future.get(4, TimeUnit.SECONDS);
+                } catch (ExecutionException ex) {
+                    assertEquals("Write failed", ex.getCause().getCause().getMessage());
+                    failures++;
+                }
+            }
+            assertEquals(1, failures);
+
+            // The failed write is rolled back to its savepoint and the others are committed
+            assertEquals(2, executed.size());
+            assertFalse(executed.contains(1));
+            assertEquals(1, groupCommit.getCommitCount());
+            assertEquals(3, groupCommit.getWriteCount());
+
+            var connection = FakeDriver.connections(uri).get(0);
+            assertEquals(1, FakeDriver.connections(uri).size());
+            assertEquals(3, connection.savepoints);
+            assertEquals(1, connection.savepointRollbacks);
+            assertEquals(0, connection.rollbacks);
+            assertEquals(1, connection.commits);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package org.pipservices3.mysql.persistence;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.pipservices3.commons.config.ConfigParams;
+import org.pipservices3.commons.errors.ConfigException;
+import org.pipservices3.mysql.connect.FakeDriver;
+import org.pipservices3.mysql.connect.MySqlConnection;
+import org.pipservices3.mysql.connect.MySqlConnectionPool;
+import org.pipservices3.mysql.fixtures.Dummy;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+import static org.pipservices3.mysql.connect.FakeDriver.row;
+
+public class IdsChunkTest {
+    String uri;
+    MySqlConnectionPool pool;
+    DummyMySqlPersistence persistence;
+
+    @Before
+    public void setup() {
+        uri = FakeDriver.uri("ids");
+        pool = new MySqlConnectionPool(uri, 4, 0, 0, 1000);
+
+        persistence = new DummyMySqlPersistence();
+        persistence._pool = pool;
+        persistence._connection = new MySqlConnection() {
+            {
+                this._pool = pool;
+            }
+        };
+
+        // Rows come back in index order
+        FakeDriver.onQuery(uri, (sql) -> Stream.of("1", "3", "4", "5")
+                .map((id) -> row("id", id, "key", "A", "content", "Content " + id))
+                .toList());
+    }
+
+    @After
+    public void teardown() {
+        pool.close();
+    }
+
+    private List<String> statements() {
+        return FakeDriver.connections(uri).stream().flatMap((c) -> c.statements.stream()).toList();
+    }
+
+    private List<List<Object>> parameters() {
+        return FakeDriver.connections(uri).stream().flatMap((c) -> c.parameters.stream()).toList();
+    }
+
+    private List<String> getIds(List<String> ids) {
+        return persistence.getListByIds(null, ids).stream().map(Dummy::getId).toList();
+    }
+
+    @Test
+    public void testChunkedReads() throws ConfigException {
+        persistence.configure(ConfigParams.fromTuples("options.ids_chunk_size", 2));
+
+        // Items keep the order of the ids, repeated ids are read once and missing ids are skipped
+        assertEquals(List.of("5", "1", "3", "4"), getIds(List.of("5", "1", "3", "1", "4", "2")));
+
+        assertEquals(List.of(
+                "SELECT * FROM `dummies` WHERE id IN(?,?)",
+                "SELECT * FROM `dummies` WHERE id IN(?,?)",
+                "SELECT * FROM `dummies` WHERE id IN(?)"
+        ), statements());
+        assertEquals(List.of(List.of("5", "1"), List.of("3", "4"), List.of("2")), parameters());
+    }
+
+    @Test
+    public void testParallelReads() throws ConfigException {
+        persistence.configure(ConfigParams.fromTuples(
+                "options.ids_chunk_size", 1,
+                "options.ids_parallelism", 2
+        ));
+
+        // Every query waits until another one runs at the same time
+        var running = new CountDownLatch(2);
+        FakeDriver.onQuery(uri, (sql) -> {
+            running.countDown();
+            try {
+                assertTrue(running.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException ex) {
+                throw new RuntimeException(ex);
+            }
+            return List.of(row("id", "1", "key", "A", "content", "Content 1"),
+                    row("id", "3", "key", "A", "content", "Content 3"));
+        });
+
+        assertEquals(List.of("3", "1"), getIds(List.of("3", "2", "1", "4")));
+
+        // Chunks are spread over no more connections than the parallelism
+        assertEquals(2, FakeDriver.connections(uri).size());
+        assertEquals(4, statements().size());
+
+        var ids = new HashSet<>();
+        parameters().forEach(ids::addAll);
+        assertEquals(Set.of("1", "2", "3", "4"), ids);
+    }
+
+    @Test
+    public void testChunksInTransaction() throws ConfigException {
+        persistence.configure(ConfigParams.fromTuples(
+                "options.ids_chunk_size", 1,
+                "options.ids_parallelism", 2
+        ));
+
+        // Chunks of a transaction run on its connection
+        persistence._connection.inTransaction(null, () -> {
+            assertEquals(List.of("4", "3"), getIds(List.of("4", "3")));
+            persistence.deleteByIds(null, List.of("4", "3"));
+            return null;
+        });
+
+        assertEquals(1, FakeDriver.connections(uri).size());
+        assertEquals(4, statements().size());
+    }
+
+    @Test
+    public void testChunkedDeletes() throws ConfigException {
+        persistence.configure(ConfigParams.fromTuples("options.ids_chunk_size", 2));
+
+        persistence.deleteByIds(null, List.of("1", "2", "3"));
+
+        assertEquals(List.of(
+                "DELETE FROM `dummies` WHERE id IN(?,?)",
+                "DELETE FROM `dummies` WHERE id IN(?)"
+        ), statements());
+        assertEquals(List.of(List.of("1", "2"), List.of("3")), parameters());
+    }
+}
@@ -0,0 +1,85 @@
+package org.pipservices3.mysql.persistence;
+
+import org.junit.Test;
+import org.pipservices3.commons.config.ConfigParams;
+import org.pipservices3.commons.errors.ConfigException;
+import org.pipservices3.mysql.fixtures.Dummy;
+
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class JsonIndexTest {
+
+    @Test
+    public void testRewriteJsonFilter() {
+        var persistence = new DummyJsonMySqlPersistence();
+        persistence.defineSchema();
+
+        assertEquals("`data_key`='ABC'", persistence.rewriteJsonFilter("data->'$.key'='ABC'"));
+        assertEquals("`data_key` = 'ABC'", persistence.rewriteJsonFilter("`data`->>\"$.key\" = 'ABC'"));
+        assertEquals("`data_key` IN ('A', 'B')",
+                persistence.rewriteJsonFilter("JSON_UNQUOTE(JSON_EXTRACT(data, '$.key')) IN ('A', 'B')"));
+
+        // Paths that are not indexed are kept as they are
+        assertEquals("data->'$.content'='ABC'", persistence.rewriteJsonFilter("data->'$.content'='ABC'"));
+        assertEquals("data->'$.key2'='ABC'", persistence.rewriteJsonFilter("data->'$.key2'='ABC'"));
+        assertEquals("`data_key`", persistence.jsonField("$.key"));
+    }
+
+    @Test
+    public void testRewriteOnlyScalarComparisons() {
+        var persistence = new DummyJsonMySqlPersistence();
+        persistence.defineSchema();
+
+        assertEquals("`data_key` = ? AND id<>'1'", persistence.rewriteJsonFilter("data->'$.key' = ? AND id<>'1'"));
+        assertEquals("(`data_key` LIKE 'A%' OR `data_key` NOT IN (?, ?))",
+                persistence.rewriteJsonFilter("(data->>'$.key' LIKE 'A%' OR data->>'$.key' NOT IN (?, ?))"));
+        assertEquals("NOT `data_key` >= 10", persistence.rewriteJsonFilter("NOT data->>'$.key' >= 10"));
+
+        // String literals are kept as they are
+        assertEquals("content = 'data->''$.key''=''ABC'''",
+                persistence.rewriteJsonFilter("content = 'data->''$.key''=''ABC'''"));
+        assertEquals("content = \"data->>'$.key' = 'A'\"",
+                persistence.rewriteJsonFilter("content = \"data->>'$.key' = 'A'\""));
+
+        // JSON values are compared as JSON to JSON literals and literals of other types
+        assertEquals("data->'$.key' = CAST('\"ABC\"' AS JSON)",
+                persistence.rewriteJsonFilter("data->'$.key' = CAST('\"ABC\"' AS JSON)"));
+        assertEquals("data->'$.key' = 10", persistence.rewriteJsonFilter("data->'$.key' = 10"));
+        assertEquals("data->'$.key' = true", persistence.rewriteJsonFilter("data->'$.key' = true"));
+        assertEquals("data->'$.key' LIKE 'A%'", persistence.rewriteJsonFilter("data->'$.key' LIKE 'A%'"));
+        assertEquals("data->'$.key' IN ('A', 'B')", persistence.rewriteJsonFilter("data->'$.key' IN ('A', 'B')"));
+
+        // Reads inside other expressions are kept as they are
+        assertEquals("LENGTH(data->>'$.key') = 3", persistence.rewriteJsonFilter("LENGTH(data->>'$.key') = 3"));
+        assertEquals("data->>'$.key' = content", persistence.rewriteJsonFilter("data->>'$.key' = content"));
+        assertEquals("data->>'$.key' = 'A' || 'B'", persistence.rewriteJsonFilter("data->>'$.key' = 'A' || 'B'"));
+        assertEquals("data->>'$.key' IS NULL", persistence.rewriteJsonFilter("data->>'$.key' IS NULL"));
+    }
+
+    @Test
+    public void testBinaryDocuments() throws ConfigException {
+        var persistence = new DummyJsonMySqlPersistence();
+        persistence.configure(ConfigParams.fromTuples("options.compression", "deflate"));
+        persistence.defineSchema();
+
+        // Indexed paths of binary documents are kept in plain columns filled on writes
+        var row = persistence.convertFromPublic(new Dummy("1", "ABC", "Content"));
+        assertTrue(row.get("data") instanceof byte[]);
+        assertEquals("ABC", row.get("data_key"));
+        assertEquals("`data_key`='ABC'", persistence.rewriteJsonFilter("data->'$.key'='ABC'"));
+
+        row = persistence.convertFromPublic(new Dummy("2", null, "Content"));
+        assertTrue(row.containsKey("data_key"));
+        assertNull(row.get("data_key"));
+
+        // Only member paths can be read on the client
+        assertThrows(RuntimeException.class, () -> persistence.ensureJsonIndex("$.tags[0]", null, false));
+
+        // Without indexed paths only the document is written
+        persistence.clearSchema();
+        row = persistence.convertFromPublic(new Dummy("3", "ABC", "Content"));
+        assertEquals(Set.of("id", "data"), row.keySet());
+    }
+}
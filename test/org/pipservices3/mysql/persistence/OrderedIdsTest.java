@@ -0,0 +1,52 @@
+package org.pipservices3.mysql.persistence;
+
+import org.junit.Test;
+import org.pipservices3.commons.config.ConfigParams;
+import org.pipservices3.commons.errors.ConfigException;
+import org.pipservices3.mysql.fixtures.Dummy;
+
+import static org.junit.Assert.*;
+
+public class OrderedIdsTest {
+
+    @Test
+    public void testOrdering() {
+        var previous = OrderedIds.next();
+        for (var index = 0; index < 10000; index++) {
+            var id = OrderedIds.next();
+            assertTrue(id.compareTo(previous) > 0);
+            previous = id;
+        }
+    }
+
+    @Test
+    public void testFormat() {
+        var id = OrderedIds.next();
+
+        assertEquals(32, id.length());
+        assertEquals('7', id.charAt(12));
+        assertTrue("89ab".indexOf(id.charAt(16)) >= 0);
+
+        var bytes = OrderedIds.toBytes(id);
+        assertEquals(16, bytes.length);
+        assertEquals(id, OrderedIds.fromBytes(bytes));
+    }
+
+    @Test
+    public void testInvalidIds() throws ConfigException {
+        var persistence = new DummyJsonMySqlPersistence();
+        persistence.configure(ConfigParams.fromTuples("options.id_strategy", "ordered"));
+
+        var id = OrderedIds.next();
+        assertArrayEquals(OrderedIds.toBytes(id), (byte[]) persistence.convertIdToDatabase(id));
+
+        // Lookups bind ids that cannot be stored as a value that matches no row
+        assertArrayEquals(new byte[0], (byte[]) persistence.convertIdToDatabase("missing"));
+        assertArrayEquals(new byte[0], (byte[]) persistence.convertIdToDatabase("zz" + id.substring(2)));
+
+        // New items must have ids that can be stored
+        assertEquals(id, persistence.assignId(new Dummy(id, "key", "Content")).getId());
+        assertNotNull(persistence.assignId(new Dummy(null, "key", "Content")).getId());
+        assertThrows(RuntimeException.class, () -> persistence.assignId(new Dummy("missing", "key", "Content")));
+    }
+}
@@ -0,0 +1,172 @@
+package org.pipservices3.mysql.persistence;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.pipservices3.commons.data.FilterParams;
+import org.pipservices3.mysql.connect.FakeDriver;
+import org.pipservices3.mysql.connect.MySqlConnection;
+import org.pipservices3.mysql.connect.MySqlConnectionPool;
+import org.pipservices3.mysql.fixtures.Dummy;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.pipservices3.mysql.connect.FakeDriver.row;
+
+public class RandomPickTest {
+    String uri;
+    MySqlConnectionPool pool;
+    DummyMySqlPersistence persistence;
+
+    @Before
+    public void setup() {
+        uri = FakeDriver.uri("random");
+        pool = new MySqlConnectionPool(uri, 2, 0, 0, 1000);
+
+        persistence = new DummyMySqlPersistence();
+        persistence._pool = pool;
+        persistence._connection = new MySqlConnection() {
+            {
+                this._pool = pool;
+            }
+        };
+    }
+
+    @After
+    public void teardown() {
+        pool.close();
+    }
+
+    private List<String> statements() {
+        return FakeDriver.connections(uri).stream().flatMap((c) -> c.statements.stream()).toList();
+    }
+
+    private List<List<Object>> parameters() {
+        return FakeDriver.connections(uri).stream().flatMap((c) -> c.parameters.stream()).toList();
+    }
+
+    private void onRange(Object min, Object max, List<Map<String, Object>> seeks, List<Map<String, Object>> others) {
+        FakeDriver.onQuery(uri, (sql) -> {
+            if (sql.startsWith("SELECT MIN(id), MAX(id)"))
+                return List.of(row("MIN(id)", min, "MAX(id)", max));
+            return sql.contains("UNION ALL") || sql.contains("id>=?") || sql.contains("id<=?") ? seeks : others;
+        });
+    }
+
+    private List<String> pick(String key, int count) {
+        var filter = key != null ? FilterParams.fromTuples("key", key) : null;
+        return persistence.getManyRandom(null, filter, count).stream().map(Dummy::getId).toList();
+    }
+
+    @Test
+    public void testSeekBoundaries() {
+        onRange(10L, 90L, List.of(
+                row("id", "20", "key", "A", "content", "Content 1"),
+                row("id", "50", "key", "A", "content", "Content 2"),
+                row("id", "80", "key", "A", "content", "Content 3")
+        ), List.of());
+
+        assertEquals(List.of("20", "50", "80"), pick("A", 3));
+
+        // The range is read without the filter, and all seeks are sent in one query
+        var statements = statements();
+        assertEquals(2, statements.size());
+        assertEquals("SELECT MIN(id), MAX(id) FROM `dummies`", statements.get(0));
+
+        var seeks = statements.get(1).split(" UNION ALL ");
+        assertEquals(3, seeks.length);
+        for (var seek : seeks) {
+            assertTrue(seek, seek.equals("(SELECT * FROM `dummies` WHERE `key`='A' AND id>=? ORDER BY id LIMIT 1)")
+                    || seek.equals("(SELECT * FROM `dummies` WHERE `key`='A' AND id<=? ORDER BY id DESC LIMIT 1)"));
+        }
+
+        var boundaries = parameters().get(1);
+        assertEquals(3, boundaries.size());
+        for (var boundary : boundaries) {
+            var value = ((Number) boundary).longValue();
+            assertTrue(value >= 10 && value <= 90);
+        }
+    }
+
+    @Test
+    public void testSeekMissingItems() {
+        onRange(1L, 9L, List.of(row("id", "5", "key", "A", "content", "Content")), List.of());
+
+        // Boundaries that land on picked items are sought again for the missing items only
+        assertEquals(List.of("5"), pick(null, 3));
+
+        var statements = statements();
+        assertEquals(4, statements.size());
+        assertEquals(3, statements.get(1).split(" UNION ALL ").length);
+        assertEquals(2, statements.get(2).split(" UNION ALL ").length);
+        assertEquals(2, statements.get(3).split(" UNION ALL ").length);
+        assertTrue(statements.get(1).contains("`dummies` WHERE id"));
+    }
+
+    @Test
+    public void testFirstItemFallback() {
+        onRange(1L, 9L, List.of(), List.of(row("id", "1", "key", "A", "content", "Content")));
+
+        // The first matching item is taken when no seek finds any
+        assertEquals(List.of("1"), pick("A", 1));
+        assertEquals("SELECT * FROM `dummies` WHERE `key`='A' ORDER BY id LIMIT 1",
+                statements().get(statements().size() - 1));
+    }
+
+    @Test
+    public void testUnsupportedIds() {
+        onRange(LocalDateTime.of(2020, 1, 1, 0, 0), LocalDateTime.of(2021, 1, 1, 0, 0), List.of(), List.of(
+                row("id", "1", "key", "A", "content", "Content 1"),
+                row("id", "2", "key", "A", "content", "Content 2")
+        ));
+
+        // Ids without a range are sorted randomly by the server
+        assertEquals(List.of("1", "2"), pick("A", 2));
+        assertEquals(List.of(
+                "SELECT MIN(id), MAX(id) FROM `dummies`",
+                "SELECT * FROM `dummies` WHERE `key`='A' ORDER BY RAND() LIMIT 2"
+        ), statements());
+    }
+
+    @Test
+    public void testEmptyTable() {
+        onRange(null, null, List.of(), List.of());
+
+        assertEquals(List.of(), pick("A", 2));
+        assertEquals(List.of("SELECT MIN(id), MAX(id) FROM `dummies`"), statements());
+        assertNull(persistence.getOneRandom(null, (FilterParams) null));
+    }
+
+    @Test
+    public void testRandomKeys() {
+        for (var index = 0; index < 100; index++) {
+            var integer = (Number) RandomKeys.nextKey(5L, 7L);
+            assertTrue(integer.longValue() >= 5 && integer.longValue() <= 7);
+
+            var decimal = (BigDecimal) RandomKeys.nextKey(new BigDecimal("1.5"), 2.5);
+            assertTrue(decimal.compareTo(new BigDecimal("1.5")) >= 0 && decimal.compareTo(new BigDecimal("2.5")) <= 0);
+
+            var hex = (String) RandomKeys.nextKey("0a00", "0aff");
+            assertTrue(hex, hex.matches("0a[0-9a-f]{2}"));
+
+            var text = (String) RandomKeys.nextKey("apple", "apricot");
+            assertTrue(text, text.compareTo("ap") > 0 && text.compareTo("apricot") <= 0);
+
+            var binary = (byte[]) RandomKeys.nextKey(new byte[]{1, 0}, new byte[]{1, (byte) 0xff});
+            assertEquals(2, binary.length);
+            assertEquals(1, binary[0]);
+        }
+
+        assertEquals("5", RandomKeys.nextKey("5", "5"));
+        assertEquals("0aff", RandomKeys.toKeyString(new byte[]{10, (byte) 0xff}));
+        assertTrue(RandomKeys.isSupported("a", "b"));
+        assertFalse(RandomKeys.isSupported("a", 1L));
+        assertFalse(RandomKeys.isSupported(LocalDateTime.MIN, LocalDateTime.MAX));
+        assertTrue(Arrays.equals(new byte[]{7}, (byte[]) RandomKeys.nextKey(new byte[]{7}, new byte[]{7})));
+    }
+}
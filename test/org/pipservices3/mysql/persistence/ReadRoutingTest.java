@@ -0,0 +1,87 @@
+package org.pipservices3.mysql.persistence;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.pipservices3.commons.config.ConfigParams;
+import org.pipservices3.commons.errors.ConfigException;
+import org.pipservices3.mysql.connect.FakeDriver;
+import org.pipservices3.mysql.connect.MySqlConnection;
+import org.pipservices3.mysql.connect.MySqlConnectionPool;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.*;
+
+public class ReadRoutingTest {
+    String primaryUri;
+    String replicaUri;
+    MySqlConnectionPool primary;
+    MySqlConnectionPool replica;
+    DummyMySqlPersistence persistence;
+
+    @Before
+    public void setup() {
+        primaryUri = FakeDriver.uri("primary");
+        replicaUri = FakeDriver.uri("replica");
+        primary = new MySqlConnectionPool(primaryUri, 2, 0, 0, 1000);
+        replica = new MySqlConnectionPool(replicaUri, 2, 0, 0, 1000);
+
+        persistence = new DummyMySqlPersistence();
+        persistence._pool = primary;
+        persistence._connection = new MySqlConnection() {
+            {
+                this._pool = primary;
+                this._replicas = List.of(replica);
+            }
+        };
+    }
+
+    @After
+    public void teardown() {
+        primary.close();
+        replica.close();
+    }
+
+    @Test
+    public void testPrimaryReadsOnOtherThreads() {
+        assertSame(replica, persistence.getReadPool());
+
+        // Tasks started inside the primary scope read from the primary
+        var pool = persistence.withPrimaryReads(() -> CompletableFuture.supplyAsync(
+                persistence.propagateReads(persistence::getReadPool)).join());
+        assertSame(primary, pool);
+
+        // Without the scope other threads read from replicas
+        pool = CompletableFuture.supplyAsync(persistence.propagateReads(persistence::getReadPool)).join();
+        assertSame(replica, pool);
+    }
+
+    @Test
+    public void testCacheMissesReadFromPrimary() throws ConfigException {
+        persistence.getOneById(null, "1");
+        assertEquals(0, FakeDriver.connections(primaryUri).size());
+        assertEquals(1, FakeDriver.connections(replicaUri).size());
+
+        persistence.configure(ConfigParams.fromTuples("options.cache_size", 10));
+        persistence.getOneById(null, "1");
+        assertEquals(1, FakeDriver.connections(primaryUri).size());
+        assertEquals(1, FakeDriver.connections(replicaUri).size());
+    }
+
+    @Test
+    public void testPrimaryReadsBypassLoader() throws Exception {
+        persistence.configure(ConfigParams.fromTuples("options.load_window", 1000));
+
+        // The first caller opens a batch that reads from a replica
+        var replicaRead = CompletableFuture.runAsync(() -> persistence.getOneById(null, "1"));
+        Thread.sleep(100);
+
+        persistence.withPrimaryReads(() -> persistence.getOneById(null, "2"));
+        assertEquals(1, FakeDriver.connections(primaryUri).size());
+
+        replicaRead.join();
+        assertEquals(1, FakeDriver.connections(replicaUri).size());
+    }
+}
@@ -0,0 +1,134 @@
+package org.pipservices3.mysql.persistence;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.pipservices3.commons.config.ConfigParams;
+import org.pipservices3.commons.errors.ConfigException;
+import org.pipservices3.mysql.connect.FakeDriver;
+import org.pipservices3.mysql.connect.MySqlConnectionPool;
+
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.pipservices3.mysql.connect.FakeDriver.row;
+
+public class RetryTest {
+    String uri;
+    MySqlConnectionPool pool;
+    DummyMySqlPersistence persistence;
+
+    @Before
+    public void setup() {
+        uri = FakeDriver.uri("retry");
+        pool = new MySqlConnectionPool(uri, 2, 0, 0, 1000);
+
+        persistence = new DummyMySqlPersistence();
+        persistence._pool = pool;
+    }
+
+    @After
+    public void teardown() {
+        pool.close();
+    }
+
+    private static RuntimeException error(int code, String state) {
+        return new RuntimeException(new SQLException("Failed", state, code));
+    }
+
+    @Test
+    public void testClassification() {
+        // Deadlocks and lock wait timeouts can be repeated
+        assertTrue(persistence.isRetryable(error(1213, "40001")));
+        assertTrue(persistence.isRetryable(error(1205, "HY000")));
+        assertTrue(persistence.isRetryable(new RuntimeException(new SQLTransactionRollbackException("Rollback", "40001"))));
+
+        // Causes are searched through wrappers
+        assertTrue(persistence.isRetryable(new RuntimeException(new IllegalStateException(error(1213, null)))));
+
+        // Other errors are not retried
+        assertFalse(persistence.isRetryable(error(1062, "23000")));
+        assertFalse(persistence.isRetryable(error(0, "08S01")));
+        assertFalse(persistence.isRetryable(new IllegalStateException("Failed")));
+    }
+
+    @Test
+    public void testDisabledByDefault() {
+        var calls = new AtomicInteger();
+
+        assertThrows(RuntimeException.class, () -> persistence.executeWithRetry(null, () -> {
+            calls.incrementAndGet();
+            throw error(1213, "40001");
+        }));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void testRetries() throws ConfigException {
+        persistence.configure(ConfigParams.fromTuples(
+                "options.retry_attempts", 3,
+                "options.retry_delay", 1000,
+                "options.retry_max_delay", 20
+        ));
+
+        // Lock conflicts are repeated until the operation succeeds
+        var calls = new AtomicInteger();
+        var result = persistence.executeWithRetry(null, () -> {
+            if (calls.incrementAndGet() < 3)
+                throw error(1205, "HY000");
+            return "done";
+        });
+        assertEquals("done", result);
+        assertEquals(3, calls.get());
+
+        // Retries stop after the configured attempts, and delays are capped by retry_max_delay
+        calls.set(0);
+        var started = System.currentTimeMillis();
+        assertThrows(RuntimeException.class, () -> persistence.executeWithRetry(null, () -> {
+            calls.incrementAndGet();
+            throw error(1213, "40001");
+        }));
+        assertEquals(4, calls.get());
+        assertTrue(System.currentTimeMillis() - started < 1000);
+
+        // Other errors fail right away
+        calls.set(0);
+        assertThrows(RuntimeException.class, () -> persistence.executeWithRetry(null, () -> {
+            calls.incrementAndGet();
+            throw error(1062, "23000");
+        }));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void testReads() throws ConfigException {
+        persistence.configure(ConfigParams.fromTuples(
+                "options.retry_attempts", 3,
+                "options.retry_delay", 0
+        ));
+
+        // The first execution of every query hits a deadlock
+        Set<String> failed = ConcurrentHashMap.newKeySet();
+        FakeDriver.onQuery(uri, (sql) -> {
+            if (failed.add(sql.replaceAll("\\d", "")))
+                throw error(1213, "40001");
+            if (sql.contains("MIN(id)"))
+                return List.of(row("MIN(id)", 1L, "MAX(id)", 1L));
+            if (sql.contains("information_schema.TABLES"))
+                return List.of(row("TABLE_ROWS", 5L));
+            return List.<Map<String, Object>>of(row("id", "1", "key", "A", "content", "Content"));
+        });
+
+        assertEquals("1", persistence.getOneRandom(null, (String) null).getId());
+        assertEquals(5, persistence.getEstimatedCountByFilter(null, null));
+        try (var items = persistence.getStreamByFilter(null, (String) null, null, null)) {
+            assertEquals(1, items.count());
+        }
+    }
+}
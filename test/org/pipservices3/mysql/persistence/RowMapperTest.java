@@ -0,0 +1,69 @@
+package org.pipservices3.mysql.persistence;
+
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class RowMapperTest {
+
+    private static ResultSet resultSet(String[] columns, Object[][] rows) {
+        var metaData = (ResultSetMetaData) Proxy.newProxyInstance(
+                ResultSetMetaData.class.getClassLoader(),
+                new Class<?>[]{ResultSetMetaData.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getColumnCount" -> columns.length;
+                    case "getColumnLabel" -> new String(columns[(Integer) args[0] - 1]);
+                    default -> null;
+                }
+        );
+
+        var position = new int[]{-1};
+        var metaDataCalls = new int[]{0};
+        return (ResultSet) Proxy.newProxyInstance(
+                ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "next" -> ++position[0] < rows.length;
+                    case "getMetaData" -> {
+                        // Metadata is read once per result set
+                        assertEquals(0, metaDataCalls[0]++);
+                        yield metaData;
+                    }
+                    case "getObject" -> rows[position[0]][(Integer) args[0] - 1];
+                    default -> null;
+                }
+        );
+    }
+
+    @Test
+    public void testReadAll() throws Exception {
+        var rs = resultSet(new String[]{"id", "name"}, new Object[][]{{1, "A"}, {2, null}});
+
+        var rows = RowMapper.readAll(rs);
+        assertEquals(2, rows.size());
+        assertEquals(Map.of("id", 1, "name", "A"), rows.get(0));
+        assertTrue(rows.get(1).containsKey("name"));
+        assertNull(rows.get(1).get("name"));
+
+        // Column names are shared by all rows
+        var names = List.copyOf(rows.get(0).keySet());
+        for (var name : rows.get(1).keySet())
+            assertSame(names.get(names.indexOf(name)), name);
+    }
+
+    @Test
+    public void testReadOne() throws Exception {
+        var row = RowMapper.readOne(resultSet(new String[]{"id"}, new Object[][]{{"1"}}));
+        assertEquals(Map.of("id", "1"), row);
+
+        var empty = RowMapper.readOne(resultSet(new String[]{"id"}, new Object[0][]));
+        assertTrue(empty.isEmpty());
+        assertTrue(RowMapper.readAll(resultSet(new String[]{"id"}, new Object[0][])).isEmpty());
+    }
+}
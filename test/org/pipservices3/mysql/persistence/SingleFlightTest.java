@@ -0,0 +1,103 @@
+package org.pipservices3.mysql.persistence;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class SingleFlightTest {
+
+    @Test
+    public void testSequentialCalls() {
+        var flight = new SingleFlight();
+        var calls = new AtomicInteger();
+
+        assertEquals(1, (int) flight.execute("key", calls::incrementAndGet));
+        // Results are not kept after the call completes
+        assertEquals(2, (int) flight.execute("key", calls::incrementAndGet));
+
+        assertEquals(2, flight.getExecutedCount());
+        assertEquals(0, flight.getSharedCount());
+    }
+
+    @Test
+    public void testConcurrentCalls() throws Exception {
+        var flight = new SingleFlight();
+        var calls = new AtomicInteger();
+        var release = new CountDownLatch(1);
+
+        var executor = Executors.newFixedThreadPool(4);
+        try {
+            var leader = CompletableFuture.supplyAsync(() -> flight.execute("key", () -> {
+                calls.incrementAndGet();
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    throw new RuntimeException(ex);
+                }
+                return List.of("row");
+            }), executor);
+            while (calls.get() == 0)
+                Thread.sleep(1);
+
+            var followers = new ArrayList<CompletableFuture<List<String>>>();
+            for (var index = 0; index < 3; index++) {
+                followers.add(CompletableFuture.supplyAsync(
+                        () -> flight.execute("key", () -> List.of("other")), executor));
+            }
+            while (flight.getSharedCount() < 3)
+                Thread.sleep(1);
+
+            // Other keys are executed on their own
+            assertEquals(List.of("other"), flight.execute("other", () -> List.of("other")));
+
+            release.countDown();
+            var result = leader.get(5, TimeUnit.SECONDS);
+            for (var follower : followers)
+                assertSame(result, follower.get(5, TimeUnit.SECONDS));
+
+            assertEquals(1, calls.get());
+            assertEquals(2, flight.getExecutedCount());
+            assertEquals(3, flight.getSharedCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testSharedError() throws Exception {
+        var flight = new SingleFlight();
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+
+        var leader = CompletableFuture.runAsync(() -> flight.execute("key", () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                throw new RuntimeException(ex);
+            }
+            throw new IllegalStateException("Read failed");
+        }));
+        started.await();
+
+        var follower = CompletableFuture.supplyAsync(() -> flight.execute("key", () -> "value"));
+        while (flight.getSharedCount() < 1)
+            Thread.sleep(1);
+        release.countDown();
+
+        var error = assertThrows(Exception.class, follower::join);
+        assertTrue(error.getCause() instanceof IllegalStateException);
+        assertThrows(Exception.class, leader::join);
+
+        // The failed call is not kept either
+        assertEquals("value", flight.execute("key", () -> "value"));
+    }
+}
@@ -0,0 +1,88 @@
+package org.pipservices3.mysql.persistence;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.pipservices3.mysql.connect.FakeDriver;
+import org.pipservices3.mysql.connect.MySqlConnection;
+import org.pipservices3.mysql.connect.MySqlConnectionPool;
+import org.pipservices3.mysql.fixtures.Dummy;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class StatementCacheTest {
+    String uri;
+    MySqlConnectionPool pool;
+    DummyMySqlPersistence persistence;
+
+    @Before
+    public void setup() {
+        uri = FakeDriver.uri("statements");
+        pool = new MySqlConnectionPool(uri, 2, 0, 0, 1000);
+
+        persistence = new DummyMySqlPersistence();
+        persistence._pool = pool;
+        persistence._connection = new MySqlConnection() {
+            {
+                this._pool = pool;
+            }
+        };
+    }
+
+    @After
+    public void teardown() {
+        pool.close();
+    }
+
+    private List<String> statements() {
+        return FakeDriver.connections(uri).stream().flatMap((c) -> c.statements.stream()).toList();
+    }
+
+    private List<List<Object>> parameters() {
+        return FakeDriver.connections(uri).stream().flatMap((c) -> c.parameters.stream()).toList();
+    }
+
+    @Test
+    public void testComposeOnce() {
+        var composed = new AtomicInteger();
+
+        var first = persistence.composeStatement("test", () -> "SELECT " + composed.incrementAndGet());
+        var second = persistence.composeStatement("test", () -> "SELECT " + composed.incrementAndGet());
+
+        assertEquals("SELECT 1", first);
+        assertSame(first, second);
+        assertEquals(1, composed.get());
+    }
+
+    @Test
+    public void testBoundValues() {
+        persistence.create(null, new Dummy("1", "A", "It's content"));
+        persistence.create(null, new Dummy("2", "B", "Content 2"));
+
+        // Both inserts share one SQL text and values are sent as parameters
+        var query = "INSERT INTO `dummies` (`key`,`id`,`content`) VALUES (?,?,?)";
+        assertEquals(List.of(query, query), statements());
+        assertEquals(List.of(List.of("A", "1", "It's content"), List.of("B", "2", "Content 2")), parameters());
+    }
+
+    @Test
+    public void testBoundIds() {
+        persistence.getOneById(null, "1");
+        persistence.getOneById(null, "2'");
+        persistence.deleteById(null, "3");
+        persistence.getListByIds(null, List.of("4", "5"));
+
+        // Deletes read the deleted item first
+        assertEquals(List.of(
+                "SELECT * FROM `dummies` WHERE id=?",
+                "SELECT * FROM `dummies` WHERE id=?",
+                "SELECT * FROM `dummies` WHERE id=?",
+                "DELETE FROM `dummies` WHERE id=?",
+                "SELECT * FROM `dummies` WHERE id IN(?,?)"
+        ), statements());
+        assertEquals(List.of(List.of("1"), List.of("2'"), List.of("3"), List.of("3"), List.of("4", "5")), parameters());
+    }
+}
@@ -0,0 +1,94 @@
+package org.pipservices3.mysql.persistence;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.pipservices3.commons.data.FilterParams;
+import org.pipservices3.mysql.connect.FakeDriver;
+import org.pipservices3.mysql.connect.MySqlConnection;
+import org.pipservices3.mysql.connect.MySqlConnectionPool;
+import org.pipservices3.mysql.fixtures.Dummy;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.pipservices3.mysql.connect.FakeDriver.row;
+
+public class StreamTest {
+    String uri;
+    MySqlConnectionPool pool;
+    DummyMySqlPersistence persistence;
+
+    @Before
+    public void setup() {
+        uri = FakeDriver.uri("stream");
+        pool = new MySqlConnectionPool(uri, 2, 0, 0, 1000);
+
+        persistence = new DummyMySqlPersistence();
+        persistence._pool = pool;
+        persistence._connection = new MySqlConnection() {
+            {
+                this._pool = pool;
+            }
+        };
+
+        FakeDriver.onQuery(uri, (sql) -> List.of(
+                row("id", "1", "key", "A", "content", "Content 1"),
+                row("id", "2", "key", "A", "content", "Content 2"),
+                row("id", "3", "key", "A", "content", "Content 3")
+        ));
+    }
+
+    @After
+    public void teardown() {
+        pool.close();
+    }
+
+    @Test
+    public void testStreamRows() {
+        try (var items = persistence.getStreamByFilter(null, FilterParams.fromTuples("key", "A"))) {
+            // The connection is held until the stream is closed
+            assertEquals(1, pool.getActiveCount());
+
+            var ids = items.map(Dummy::getId).toList();
+            assertEquals(List.of("1", "2", "3"), ids);
+        }
+
+        // Rows are streamed by the driver instead of being read into memory
+        var connection = FakeDriver.connections(uri).get(0);
+        assertEquals(List.of("SELECT * FROM `dummies` WHERE `key`='A'"), connection.statements);
+        assertEquals(List.of(Integer.MIN_VALUE), connection.fetchSizes);
+
+        assertEquals(0, connection.openResultSets);
+        assertEquals(0, connection.openStatements);
+        assertEquals(0, pool.getActiveCount());
+    }
+
+    @Test
+    public void testCloseEarly() {
+        try (var items = persistence.getStreamByFilter(null, null)) {
+            assertEquals("1", items.findFirst().orElseThrow().getId());
+        }
+
+        // Remaining rows are skipped and all resources are released
+        var connection = FakeDriver.connections(uri).get(0);
+        assertEquals(0, connection.openResultSets);
+        assertEquals(0, connection.openStatements);
+        assertEquals(0, pool.getActiveCount());
+    }
+
+    @Test
+    public void testFailedQuery() {
+        FakeDriver.onQuery(uri, (sql) -> {
+            throw new RuntimeException(new SQLException("Table doesn't exist", "42S02", 1146));
+        });
+
+        // A stream that cannot be opened releases its connection at once
+        assertThrows(RuntimeException.class, () -> persistence.getStreamByFilter(null, null));
+
+        var connection = FakeDriver.connections(uri).get(0);
+        assertEquals(0, connection.openStatements);
+        assertEquals(0, pool.getActiveCount());
+    }
+}
@@ -0,0 +1,115 @@
+package org.pipservices3.mysql.persistence;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.pipservices3.commons.config.ConfigParams;
+import org.pipservices3.commons.data.FilterParams;
+import org.pipservices3.commons.data.PagingParams;
+import org.pipservices3.commons.errors.ConfigException;
+import org.pipservices3.mysql.connect.FakeDriver;
+import org.pipservices3.mysql.connect.MySqlConnection;
+import org.pipservices3.mysql.connect.MySqlConnectionPool;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.pipservices3.mysql.connect.FakeDriver.row;
+
+public class TotalCountTest {
+    String uri;
+    MySqlConnectionPool pool;
+    DummyMySqlPersistence persistence;
+
+    @Before
+    public void setup() {
+        uri = FakeDriver.uri("total");
+        pool = new MySqlConnectionPool(uri, 2, 0, 0, 1000);
+
+        persistence = new DummyMySqlPersistence();
+        persistence._pool = pool;
+        persistence._connection = new MySqlConnection() {
+            {
+                this._pool = pool;
+            }
+        };
+    }
+
+    @After
+    public void teardown() {
+        pool.close();
+    }
+
+    private List<String> statements() {
+        return FakeDriver.connections(uri).stream().flatMap((c) -> c.statements.stream()).toList();
+    }
+
+    private void configure(String totalMode) throws ConfigException {
+        persistence.configure(ConfigParams.fromTuples("options.total_mode", totalMode));
+    }
+
+    private long getTotal(String key) {
+        var filter = key != null ? FilterParams.fromTuples("key", key) : null;
+        var page = persistence.getPageByFilter(null, filter, new PagingParams(0, 10, true));
+        return page.getTotal();
+    }
+
+    @Test
+    public void testParallelTotal() throws ConfigException {
+        configure("parallel");
+        FakeDriver.onQuery(uri, (sql) -> sql.startsWith("SELECT COUNT(*)")
+                ? List.of(row("count", 42L))
+                : List.of(row("id", "1", "key", "A", "content", "Content")));
+
+        assertEquals(42, getTotal("A"));
+
+        // The page and the count are read by separate queries
+        assertEquals(2, statements().size());
+        assertTrue(statements().contains("SELECT COUNT(*) AS count FROM `dummies` WHERE `key`='A'"));
+    }
+
+    @Test
+    public void testWindowTotal() throws ConfigException {
+        configure("window");
+        FakeDriver.onQuery(uri, (sql) -> sql.contains("COUNT(*) OVER()")
+                ? List.of(row("id", "1", "key", "A", "content", "Content", "__total", 7L),
+                row("id", "2", "key", "A", "content", "Content", "__total", 7L))
+                : List.of(row("count", 3L)));
+
+        var page = persistence.getPageByFilter(null, FilterParams.fromTuples("key", "A"), new PagingParams(0, 10, true));
+        assertEquals(7, (long) page.getTotal());
+        assertEquals(2, page.getData().size());
+        assertEquals(List.of("SELECT *, COUNT(*) OVER() AS __total FROM `dummies` WHERE `key`='A' LIMIT 10 OFFSET 0"),
+                statements());
+    }
+
+    @Test
+    public void testWindowTotalPastEnd() throws ConfigException {
+        configure("window");
+        FakeDriver.onQuery(uri, (sql) -> sql.startsWith("SELECT COUNT(*)") ? List.of(row("count", 3L)) : List.of());
+
+        // Pages without rows have no window total and count the matches
+        assertEquals(3, getTotal("A"));
+        assertEquals(2, statements().size());
+    }
+
+    @Test
+    public void testEstimatedTotal() throws ConfigException {
+        configure("estimate");
+        FakeDriver.onQuery(uri, (sql) -> {
+            if (sql.contains("information_schema.TABLES"))
+                return List.of(row("TABLE_ROWS", 1000L));
+            if (sql.startsWith("EXPLAIN"))
+                return List.of(row("rows", 200L, "filtered", 50.0));
+            return List.of();
+        });
+
+        // Unfiltered pages take the row count of the table in the current database
+        assertEquals(1000, getTotal(null));
+        assertTrue(statements().stream().anyMatch((sql) -> sql.contains("TABLE_SCHEMA=DATABASE() AND TABLE_NAME=?")));
+
+        // Filtered pages take the rows expected by the query plan
+        assertEquals(100, getTotal("A"));
+        assertTrue(statements().contains("EXPLAIN SELECT * FROM `dummies` WHERE `key`='A'"));
+    }
+}
@@ -0,0 +1,64 @@
+package org.pipservices3.mysql.persistence;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class TsvInputStreamTest {
+
+    @Test
+    public void testEncoding() throws IOException {
+        var row = new LinkedHashMap<String, Object>();
+        row.put("id", "1");
+        row.put("content", "a\tb\nc\\d");
+        row.put("flag", true);
+        row.put("empty", null);
+
+        var stream = new TsvInputStream(List.<Map<String, Object>>of(row).iterator(),
+                List.of("id", "content", "flag", "empty"), 10);
+        var text = new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+
+        assertEquals("1\ta\\tb\\nc\\\\d\t1\t\\N\n", text);
+        assertEquals(1, stream.getRowCount());
+    }
+
+    @Test
+    public void testChunks() throws IOException {
+        var rows = List.<Map<String, Object>>of(Map.of("id", "1"), Map.of("id", "2"), Map.of("id", "3")).iterator();
+
+        // Every stream takes no more rows than allowed and leaves the rest for the next one
+        var stream = new TsvInputStream(rows, List.of("id"), 2);
+        assertEquals("1\n2\n", new String(stream.readAllBytes(), StandardCharsets.UTF_8));
+
+        stream = new TsvInputStream(rows, List.of("id"), 2);
+        assertEquals("3\n", new String(stream.readAllBytes(), StandardCharsets.UTF_8));
+        assertFalse(rows.hasNext());
+    }
+
+    @Test
+    public void testBinaryColumns() throws IOException {
+        var rows = new ArrayList<Map<String, Object>>();
+        var row = new LinkedHashMap<String, Object>();
+        row.put("id", new byte[]{0x01, (byte) 0xab});
+        row.put("data", null);
+        rows.add(row);
+        row = new LinkedHashMap<String, Object>();
+        row.put("id", "AB");
+        row.put("data", new byte[]{0x09});
+        rows.add(row);
+
+        // Every value of a binary column is written as hex digits, whatever the first row holds
+        var stream = new TsvInputStream(rows.iterator(), List.of("id", "data"), Set.of("id", "data"), 10);
+        var text = new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+
+        assertEquals("01ab\t\\N\n4142\t09\n", text);
+    }
+}
@@ -0,0 +1,125 @@
+package org.pipservices3.mysql.persistence;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class WriteBehindBufferTest {
+
+    @Test
+    public void testCoalescing() {
+        var buffer = new WriteBehindBuffer<String, String>(10, 0);
+
+        assertTrue(buffer.put("1", "A", true));
+        assertTrue(buffer.put("1", "B", false));
+        assertTrue(buffer.put("2", "C", false));
+        assertEquals(2, buffer.size());
+        assertEquals("B", buffer.get("1"));
+
+        // An update after a set still creates the item
+        var entries = buffer.drain();
+        assertEquals(2, entries.size());
+        assertTrue(entries.get("1").isUpsert());
+        assertFalse(entries.get("2").isUpsert());
+
+        // Drained items stay visible until the flush completes
+        assertEquals(0, buffer.size());
+        assertTrue(buffer.contains("1"));
+        buffer.complete();
+        assertFalse(buffer.contains("1"));
+        assertNull(buffer.get("1"));
+    }
+
+    @Test
+    public void testRestore() {
+        var buffer = new WriteBehindBuffer<String, String>(10, 0);
+
+        buffer.put("1", "A", true);
+        buffer.put("2", "B", true);
+        buffer.drain();
+        buffer.put("1", "C", false);
+
+        // Newer versions written during a failed flush are kept
+        buffer.restore();
+        assertEquals(2, buffer.size());
+        assertEquals("C", buffer.get("1"));
+        assertEquals("B", buffer.get("2"));
+    }
+
+    @Test
+    public void testRestoreUpsert() {
+        var buffer = new WriteBehindBuffer<String, String>(10, 0);
+
+        buffer.put("1", "A", true);
+        buffer.drain();
+        buffer.put("1", "B", false);
+
+        // An update written during a failed flush of a set still creates the item
+        buffer.restore();
+        var entries = buffer.drain();
+        assertEquals("B", entries.get("1").getItem());
+        assertTrue(entries.get("1").isUpsert());
+
+        // After a successful flush the item exists and the update stays an update
+        buffer.complete();
+        buffer.put("1", "A", true);
+        buffer.drain();
+        buffer.put("1", "B", false);
+        buffer.complete();
+        assertFalse(buffer.drain().get("1").isUpsert());
+    }
+
+    @Test
+    public void testCapacity() {
+        var buffer = new WriteBehindBuffer<String, String>(1, 10);
+
+        assertTrue(buffer.put("1", "A", true));
+        assertTrue(buffer.put("1", "B", true));
+        assertFalse(buffer.put("2", "C", true));
+
+        buffer.remove("1");
+        assertTrue(buffer.put("2", "C", true));
+    }
+
+    @Test
+    public void testDiscard() throws Exception {
+        var buffer = new WriteBehindBuffer<String, String>(10, 0);
+
+        buffer.put("1", "A", true);
+        buffer.put("2", "B", true);
+        buffer.discard(List.of("1"));
+        assertFalse(buffer.contains("1"));
+        assertEquals(1, buffer.size());
+
+        // Discarding items taken by a flush waits for the flush to complete
+        buffer.drain();
+        var discarded = CompletableFuture.runAsync(() -> buffer.discard(List.of("2")));
+        Thread.sleep(100);
+        assertFalse(discarded.isDone());
+
+        buffer.complete();
+        discarded.get(5, TimeUnit.SECONDS);
+        assertFalse(buffer.contains("2"));
+    }
+
+    @Test
+    public void testDiscardFailedFlush() throws Exception {
+        var buffer = new WriteBehindBuffer<String, String>(10, 0);
+
+        buffer.put("1", "A", true);
+        buffer.drain();
+        var discarded = CompletableFuture.runAsync(() -> buffer.discard(List.of("1")));
+        Thread.sleep(100);
+        assertFalse(discarded.isDone());
+
+        // Writes returned by a failed flush are not written after the discard
+        buffer.restore();
+        discarded.get(5, TimeUnit.SECONDS);
+        assertFalse(buffer.contains("1"));
+        assertEquals(0, buffer.size());
+    }
+}